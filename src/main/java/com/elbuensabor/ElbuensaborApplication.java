@@ -2,8 +2,10 @@ package com.elbuensabor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ElbuensaborApplication {
 
 	public static void main(String[] args) {
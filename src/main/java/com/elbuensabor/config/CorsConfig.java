@@ -43,7 +43,8 @@ public class CorsConfig {
                 configuration.setExposedHeaders(Arrays.asList(
                                 "Authorization",
                                 "Content-Type",
-                                "Access-Control-Allow-Origin"));
+                                "Access-Control-Allow-Origin",
+                                "Idempotent-Replayed"));
 
                 // Tiempo de cache para preflight requests
                 configuration.setMaxAge(3600L);
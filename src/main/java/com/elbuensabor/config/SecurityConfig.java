@@ -146,6 +146,11 @@ public class SecurityConfig {
                         // ==================== GESTIÓN ADMINISTRATIVA (SOLO ADMIN) ====================
                         .requestMatchers("/api/usuarios/**").hasAuthority("ADMIN")
                         .requestMatchers("/api/empleados/**").hasAuthority("ADMIN")
+                        .requestMatchers("/api/reportes/**").hasAuthority("ADMIN")
+
+                        // Actuator: health público (monitoreo), métricas solo ADMIN
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority("ADMIN")
 
                         // ✅ PROMOCIONES: Admin gestiona, Cliente solo lee
                         .requestMatchers(HttpMethod.GET, "/api/promociones/**").permitAll() // Público para catálogo
@@ -4,15 +4,18 @@ import com.elbuensabor.dto.request.ArticuloInsumoRequestDTO;
 import com.elbuensabor.dto.response.ArticuloInsumoResponseDTO;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
 import com.elbuensabor.services.IArticuloInsumoService;
+import com.elbuensabor.services.impl.LibroStockService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -22,10 +25,12 @@ public class ArticuloInsumoController {
 
     private static final Logger logger = LoggerFactory.getLogger(ArticuloInsumoController.class);
     private final IArticuloInsumoService service;
+    private final LibroStockService libroStock;
 
     @Autowired
-    public ArticuloInsumoController(IArticuloInsumoService service) {
+    public ArticuloInsumoController(IArticuloInsumoService service, LibroStockService libroStock) {
         this.service = service;
+        this.libroStock = libroStock;
     }
 
     // ==================== CRUD BÁSICAS ====================
@@ -199,4 +204,19 @@ public class ArticuloInsumoController {
 
         return ResponseEntity.ok(info);
     }
+
+    /**
+     * Stock del insumo en un instante pasado según el libro de movimientos
+     */
+    @GetMapping("/{id}/stock-historico")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStockHistorico(
+            @PathVariable("id") Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime instante) {
+        logger.debug("ℹ️ GET /api/articulos-insumo/{}/stock-historico?instante={}", id, instante);
+        return ResponseEntity.ok(Map.of(
+                "idArticulo", id,
+                "instante", instante,
+                "stock", libroStock.stockAl(id, instante)));
+    }
 }
\ No newline at end of file
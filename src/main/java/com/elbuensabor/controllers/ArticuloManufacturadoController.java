@@ -1,6 +1,7 @@
 package com.elbuensabor.controllers;
 
 import com.elbuensabor.dto.request.ArticuloManufacturadoRequestDTO;
+import com.elbuensabor.dto.request.PreparacionLoteRequestDTO;
 import com.elbuensabor.dto.response.ArticuloManufacturadoResponseDTO;
 import com.elbuensabor.services.IArticuloManufacturadoService;
 import jakarta.validation.Valid;
@@ -116,4 +117,14 @@ public class ArticuloManufacturadoController {
         ArticuloManufacturadoResponseDTO resultado = service.preparar(id, cantidad);
         return ResponseEntity.ok(resultado);
     }
+
+    @PostMapping("/preparar")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'COCINERO')")
+    public ResponseEntity<List<ArticuloManufacturadoResponseDTO>> prepararLote(
+            @Valid @RequestBody PreparacionLoteRequestDTO requestDTO) {
+        logger.info("🍳 POST /api/articulos-manufacturados/preparar - {} productos",
+                requestDTO.getProductos().size());
+        List<ArticuloManufacturadoResponseDTO> resultado = service.prepararLote(requestDTO.getProductos());
+        return ResponseEntity.ok(resultado);
+    }
 }
\ No newline at end of file
@@ -4,9 +4,15 @@ import com.elbuensabor.dto.response.cliente.CatalogoArticuloDTO;
 import com.elbuensabor.dto.response.cliente.DetalleArticuloDTO;
 import com.elbuensabor.dto.response.cliente.PromocionClienteDTO;
 import com.elbuensabor.services.ICatalogoClienteService;
+import com.elbuensabor.services.impl.CatalogoCacheService;
+import com.elbuensabor.services.impl.CatalogoCacheService.CatalogoRenderizado;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +23,8 @@ import java.util.List;
  * ✅ Endpoints públicos (sin autenticación requerida para navegar el catálogo)
  * ✅ Solo muestra información relevante para el cliente
  * ✅ Oculta información administrativa (costos, márgenes, etc.)
+ * ✅ Listado, categoría y promociones se sirven precalculados con ETag
+ *    (If-None-Match → 304)
  */
 @RestController
 @RequestMapping("/api/catalogo")
@@ -24,10 +32,13 @@ public class CatalogoClienteController {
 
     private static final Logger logger = LoggerFactory.getLogger(CatalogoClienteController.class);
     private final ICatalogoClienteService catalogoService;
+    private final CatalogoCacheService catalogoCache;
 
     @Autowired
-    public CatalogoClienteController(ICatalogoClienteService catalogoService) {
+    public CatalogoClienteController(ICatalogoClienteService catalogoService,
+            CatalogoCacheService catalogoCache) {
         this.catalogoService = catalogoService;
+        this.catalogoCache = catalogoCache;
     }
 
     // ==================== ARTÍCULOS ====================
@@ -39,11 +50,10 @@ public class CatalogoClienteController {
      * GET /api/catalogo/articulos
      */
     @GetMapping("/articulos")
-    public ResponseEntity<List<CatalogoArticuloDTO>> getArticulosDisponibles() {
+    public ResponseEntity<byte[]> getArticulosDisponibles(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("🛍️ GET /api/catalogo/articulos - Cliente consultando catálogo");
-        List<CatalogoArticuloDTO> articulos = catalogoService.obtenerArticulosDisponibles();
-        logger.info("✅ Devolviendo {} artículos disponibles", articulos.size());
-        return ResponseEntity.ok(articulos);
+        return responder(catalogoCache.articulos(), ifNoneMatch);
     }
 
     /**
@@ -65,12 +75,11 @@ public class CatalogoClienteController {
      * GET /api/catalogo/articulos/categoria/{idCategoria}
      */
     @GetMapping("/articulos/categoria/{idCategoria}")
-    public ResponseEntity<List<CatalogoArticuloDTO>> getArticulosPorCategoria(
-            @PathVariable("idCategoria") Long idCategoria) {
+    public ResponseEntity<byte[]> getArticulosPorCategoria(
+            @PathVariable("idCategoria") Long idCategoria,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("🔍 GET /api/catalogo/articulos/categoria/{}", idCategoria);
-        List<CatalogoArticuloDTO> articulos = catalogoService.obtenerArticulosPorCategoria(idCategoria);
-        logger.info("✅ Encontrados {} artículos en la categoría {}", articulos.size(), idCategoria);
-        return ResponseEntity.ok(articulos);
+        return responder(catalogoCache.articulosPorCategoria(idCategoria), ifNoneMatch);
     }
 
     /**
@@ -94,11 +103,10 @@ public class CatalogoClienteController {
      * GET /api/catalogo/articulos/promociones
      */
     @GetMapping("/articulos/promociones")
-    public ResponseEntity<List<CatalogoArticuloDTO>> getArticulosEnPromocion() {
+    public ResponseEntity<byte[]> getArticulosEnPromocion(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.debug("🎁 GET /api/catalogo/articulos/promociones - Artículos en oferta");
-        List<CatalogoArticuloDTO> articulos = catalogoService.obtenerArticulosEnPromocion();
-        logger.info("✅ Encontrados {} artículos en promoción", articulos.size());
-        return ResponseEntity.ok(articulos);
+        return responder(catalogoCache.articulosEnPromocion(), ifNoneMatch);
     }
 
     // ==================== PROMOCIONES ====================
@@ -129,4 +137,24 @@ public class CatalogoClienteController {
         logger.info("✅ Detalle de promoción '{}' devuelto", promocion.getNombre());
         return ResponseEntity.ok(promocion);
     }
-}
\ No newline at end of file
+
+    // ==================== AUXILIARES ====================
+
+    /**
+     * 304 si el cliente ya tiene esta versión; si no, el JSON precalculado.
+     * no-cache: el navegador guarda la respuesta pero revalida siempre.
+     */
+    private ResponseEntity<byte[]> responder(CatalogoRenderizado catalogo, String ifNoneMatch) {
+        if (catalogo.coincide(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(catalogo.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(catalogo.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogo.cuerpo());
+    }
+}
@@ -3,16 +3,23 @@ package com.elbuensabor.controllers;
 import com.elbuensabor.dto.request.pedido.*;
 import com.elbuensabor.dto.response.pedido.*;
 import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.exceptions.ConflictoEstadoPedidoException;
 import com.elbuensabor.services.IPedidoService;
+import com.elbuensabor.services.impl.ExportacionPedidosService;
+import com.elbuensabor.services.impl.IdempotenciaPedidoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.time.LocalDate;
@@ -24,28 +31,47 @@ public class PedidoController {
 
     private static final Logger logger = LoggerFactory.getLogger(PedidoController.class);
     private final IPedidoService service;
+    private final IdempotenciaPedidoService idempotenciaService;
+    private final ExportacionPedidosService exportacionService;
 
     @Autowired
-    public PedidoController(IPedidoService service) {
+    public PedidoController(IPedidoService service, IdempotenciaPedidoService idempotenciaService,
+            ExportacionPedidosService exportacionService) {
         this.service = service;
+        this.idempotenciaService = idempotenciaService;
+        this.exportacionService = exportacionService;
     }
 
     // ==================== CREACIÓN DE PEDIDOS ====================
 
     /**
-     * Crea un nuevo pedido (CLIENTE)
+     * Crea un nuevo pedido (CLIENTE).
+     * Con header Idempotency-Key, los reintentos devuelven el pedido ya creado.
      */
     @PostMapping
     @PreAuthorize("hasAuthority('CLIENTE')")
     public ResponseEntity<PedidoClienteResponse> crearPedido(
             @Valid @RequestBody CrearPedidoRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal Usuario usuario) {
         logger.info("📥 POST /api/pedidos - Cliente {} creando pedido", usuario.getEmail());
 
         try {
-            PedidoClienteResponse pedido = service.crearPedido(request, usuario);
-            logger.info("✅ Pedido {} creado exitosamente para cliente {}", pedido.getIdPedido(), usuario.getEmail());
-            return ResponseEntity.status(HttpStatus.CREATED).body(pedido);
+            if (idempotencyKey == null) {
+                PedidoClienteResponse pedido = service.crearPedido(request, usuario);
+                logger.info("✅ Pedido {} creado exitosamente para cliente {}", pedido.getIdPedido(), usuario.getEmail());
+                return ResponseEntity.status(HttpStatus.CREATED).body(pedido);
+            }
+
+            IdempotenciaPedidoService.Resultado resultado = idempotenciaService.ejecutar(
+                    usuario.getIdUsuario(), idempotencyKey, request,
+                    () -> service.crearPedido(request, usuario));
+            PedidoClienteResponse pedido = resultado.pedido();
+            logger.info("✅ Pedido {} {} para cliente {}", pedido.getIdPedido(),
+                    resultado.repetido() ? "devuelto (reintento)" : "creado exitosamente", usuario.getEmail());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
+                    .body(pedido);
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al crear pedido: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -70,6 +96,27 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
+    /**
+     * Obtiene una página de pedidos (ADMIN). Paginación por cursor: se envía el
+     * siguienteCursor de la respuesta anterior para pedir la página siguiente.
+     */
+    @GetMapping("/paginado")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<PaginaPedidosResponse<PedidoResponse>> listarTodosPaginado(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanio) {
+        logger.debug("📥 GET /api/pedidos/paginado - Listando página de pedidos (ADMIN)");
+
+        try {
+            PaginaPedidosResponse<PedidoResponse> pagina = service.listarTodosPedidosPaginado(cursor, tamanio);
+            logger.info("✅ Página con {} pedidos", pagina.getPedidos().size());
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Parámetros de paginación inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Obtiene un pedido por ID (Todos los roles - vista según rol)
      */
@@ -126,6 +173,28 @@ public class PedidoController {
         }
     }
 
+    /**
+     * Obtiene una página de pedidos por estado (ADMIN/CAJERO)
+     */
+    @GetMapping("/estado/{estado}/paginado")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'CAJERO')")
+    public ResponseEntity<PaginaPedidosResponse<PedidoResponse>> listarPorEstadoPaginado(
+            @PathVariable String estado,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanio) {
+        logger.debug("📥 GET /api/pedidos/estado/{}/paginado - Listando página de pedidos por estado", estado);
+
+        try {
+            PaginaPedidosResponse<PedidoResponse> pagina = service.listarPedidosPorEstadoPaginado(estado, cursor,
+                    tamanio);
+            logger.info("✅ Página con {} pedidos con estado {}", pagina.getPedidos().size(), estado);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Parámetros inválidos para estado {}: {}", estado, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Obtiene pedidos por fecha (ADMIN/CAJERO)
      */
@@ -140,6 +209,56 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
+    /**
+     * Obtiene una página de pedidos por fecha (ADMIN/CAJERO)
+     */
+    @GetMapping("/fecha/{fecha}/paginado")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'CAJERO')")
+    public ResponseEntity<PaginaPedidosResponse<PedidoResponse>> listarPorFechaPaginado(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanio) {
+        logger.debug("📥 GET /api/pedidos/fecha/{}/paginado - Listando página de pedidos por fecha", fecha);
+
+        try {
+            PaginaPedidosResponse<PedidoResponse> pagina = service.listarPedidosPorFechaPaginado(fecha, cursor,
+                    tamanio);
+            logger.info("✅ Página con {} pedidos para la fecha {}", pagina.getPedidos().size(), fecha);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Parámetros de paginación inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Exporta los pedidos con sus renglones entre dos días, ambos inclusive
+     * (ADMIN). Se escribe a medida que se lee: no arma la lista en memoria.
+     */
+    @GetMapping("/exportar")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportarPedidos(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "CSV") ExportacionPedidosService.Formato formato) {
+        logger.info("📥 GET /api/pedidos/exportar - {} a {} ({})", desde, hasta, formato);
+
+        try {
+            exportacionService.validarRango(desde, hasta);
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Rango inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportar(desde, hasta, formato, salida);
+        String archivo = "pedidos_" + desde + "_" + hasta + "." + formato.getExtension();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .body(cuerpo);
+    }
+
     /**
      * Obtiene pedidos para cocina (COCINERO)
      */
@@ -208,6 +327,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al confirmar pago: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en confirmarPago: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("❌ Error inesperado al confirmar pago", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -235,6 +357,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al cambiar estado: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en cambiarEstado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             logger.error("❌ Error inesperado al cambiar estado", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -259,6 +384,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al cancelar pedido: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en cancelarPedido: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             logger.error("❌ Error inesperado al cancelar pedido", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -282,6 +410,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al iniciar preparación del pedido {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en iniciarPreparacion: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("❌ Error inesperado al iniciar preparación del pedido {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -303,6 +434,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al marcar pedido {} como listo: {}", id, e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en marcarListo: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("❌ Error inesperado al marcar pedido {} como listo", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -327,6 +461,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al extender tiempo: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en extenderTiempo: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("❌ Error inesperado al extender tiempo", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -353,6 +490,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al marcar pedido {} como entregado: {}", id, e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en marcarEntregado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("❌ Error inesperado al marcar pedido {} como entregado", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -378,6 +518,9 @@ public class PedidoController {
         } catch (IllegalArgumentException e) {
             logger.error("❌ Error al asignar delivery: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ConflictoEstadoPedidoException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("⚠️ Conflicto de concurrencia en asignarDelivery: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("❌ Error inesperado al asignar delivery", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -0,0 +1,132 @@
+package com.elbuensabor.controllers;
+
+import com.elbuensabor.dto.response.reporte.RankingVentaResponse;
+import com.elbuensabor.dto.response.reporte.VentaDiariaResponse;
+import com.elbuensabor.services.IAnaliticaVentasService;
+import com.elbuensabor.services.IAnaliticaVentasService.CriterioRanking;
+import com.elbuensabor.services.IVentaDiariaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reportes")
+@PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN: ventas, rankings y reconstrucciones
+public class ReporteController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReporteController.class);
+
+    @Autowired
+    private IVentaDiariaService ventaDiariaService;
+
+    @Autowired
+    private IAnaliticaVentasService analiticaVentasService;
+
+    /**
+     * ✅ GET /api/reportes/ventas-diarias?desde=&hasta=
+     * Ventas por día, forma de pago y tipo de envío (ambos días inclusive)
+     */
+    @GetMapping("/ventas-diarias")
+    public ResponseEntity<List<VentaDiariaResponse>> listarVentasDiarias(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        logger.debug("📥 GET /api/reportes/ventas-diarias - {} a {}", desde, hasta);
+
+        try {
+            List<VentaDiariaResponse> ventas = ventaDiariaService.listarVentasDiarias(desde, hasta);
+            logger.info("✅ {} filas de ventas diarias entre {} y {}", ventas.size(), desde, hasta);
+            return ResponseEntity.ok(ventas);
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Rango inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * ✅ POST /api/reportes/ventas-diarias/reconstruir?desde=&hasta=
+     * Recalcula venta_diaria desde los pedidos del rango (ambos días inclusive)
+     */
+    @PostMapping("/ventas-diarias/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirVentasDiarias(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        logger.info("📥 POST /api/reportes/ventas-diarias/reconstruir - {} a {}", desde, hasta);
+
+        try {
+            int filas = ventaDiariaService.reconstruir(desde, hasta);
+            return ResponseEntity.ok(Map.of("desde", desde, "hasta", hasta, "filas", filas));
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Rango inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ==================== RANKINGS ====================
+
+    /**
+     * ✅ GET /api/reportes/ranking/articulos?desde=&hasta=&criterio=UNIDADES|MARGEN&limite=10
+     * Artículos más vendidos (combos desglosados) en el rango, ambos días inclusive
+     */
+    @GetMapping("/ranking/articulos")
+    public ResponseEntity<List<RankingVentaResponse>> rankingArticulos(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "UNIDADES") CriterioRanking criterio,
+            @RequestParam(defaultValue = "10") int limite) {
+        logger.debug("📥 GET /api/reportes/ranking/articulos - {} a {} por {}", desde, hasta, criterio);
+
+        try {
+            return ResponseEntity.ok(analiticaVentasService.rankingArticulos(desde, hasta, criterio, limite));
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * ✅ GET /api/reportes/ranking/categorias?desde=&hasta=&criterio=UNIDADES|MARGEN&limite=10
+     * Categorías más vendidas en el rango, ambos días inclusive
+     */
+    @GetMapping("/ranking/categorias")
+    public ResponseEntity<List<RankingVentaResponse>> rankingCategorias(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "UNIDADES") CriterioRanking criterio,
+            @RequestParam(defaultValue = "10") int limite) {
+        logger.debug("📥 GET /api/reportes/ranking/categorias - {} a {} por {}", desde, hasta, criterio);
+
+        try {
+            return ResponseEntity.ok(analiticaVentasService.rankingCategorias(desde, hasta, criterio, limite));
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * ✅ POST /api/reportes/ventas-articulos/reconstruir?desde=&hasta=
+     * Recalcula venta_articulo_diaria desde los pedidos del rango
+     */
+    @PostMapping("/ventas-articulos/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirVentasArticulos(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        logger.info("📥 POST /api/reportes/ventas-articulos/reconstruir - {} a {}", desde, hasta);
+
+        try {
+            int filas = analiticaVentasService.reconstruir(desde, hasta);
+            return ResponseEntity.ok(Map.of("desde", desde, "hasta", hasta, "filas", filas));
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Rango inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
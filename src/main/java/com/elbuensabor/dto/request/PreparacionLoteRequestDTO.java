@@ -0,0 +1,18 @@
+package com.elbuensabor.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreparacionLoteRequestDTO {
+    @NotEmpty(message = "La lista de preparación debe contener al menos un producto")
+    @Valid
+    private List<PreparacionRequestDTO> productos;
+}
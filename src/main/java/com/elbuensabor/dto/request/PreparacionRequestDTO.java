@@ -0,0 +1,19 @@
+package com.elbuensabor.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreparacionRequestDTO {
+    @NotNull(message = "El ID del producto es obligatorio")
+    private Long idArticuloManufacturado;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad a preparar debe ser al menos 1")
+    private Integer cantidad;
+}
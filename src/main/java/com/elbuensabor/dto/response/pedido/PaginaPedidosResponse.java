@@ -0,0 +1,18 @@
+package com.elbuensabor.dto.response.pedido;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaPedidosResponse<T> {
+
+    private List<T> pedidos;
+
+    private String siguienteCursor; // null cuando no hay más páginas
+    private Boolean hayMas;
+}
@@ -0,0 +1,23 @@
+package com.elbuensabor.dto.response.reporte;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de ranking de ventas (artículo o categoría) en un rango de días
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingVentaResponse {
+
+    private Long id;
+    private String denominacion;
+
+    private Long unidades;
+    private Double ingresos;
+    private Double descuentos;
+    private Double costo;
+    private Double margen; // ingresos - costo
+}
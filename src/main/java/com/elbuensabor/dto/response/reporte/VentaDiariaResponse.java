@@ -0,0 +1,29 @@
+package com.elbuensabor.dto.response.reporte;
+
+import com.elbuensabor.entities.FormaPago;
+import com.elbuensabor.entities.TipoEnvio;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiariaResponse {
+
+    private LocalDate fecha;
+    private FormaPago formaPago;
+    private TipoEnvio tipoEnvio;
+
+    private Long cantidadPedidos;
+    private Long cantidadCancelados;
+    private Long cantidadEntregados;
+
+    // Montos sin pedidos cancelados
+    private Double total;
+    private Double totalCosto;
+    private Double descuentos;
+    private Double ganancia;
+}
@@ -8,7 +8,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "articulo_insumo")
+@Table(name = "articulo_insumo", indexes = {
+        @Index(name = "ix_articulo_insumo_estado_stock", columnList = "estado_stock")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +19,9 @@ public class ArticuloInsumo extends Articulo {
     @Column(name = "precio_compra", nullable = false)
     private Double precioCompra;
 
-    @Column(name = "stock_actual", nullable = false)
+    // Saldo materializado del libro de stock: después del alta solo cambia con
+    // UPDATE de delta atómicos (LibroStockService), nunca al guardar la entidad
+    @Column(name = "stock_actual", nullable = false, updatable = false)
     private Double stockActual = 0.0;
 
     @Column(name = "stock_maximo", nullable = false)
@@ -26,7 +30,8 @@ public class ArticuloInsumo extends Articulo {
     @Column(name = "es_para_elaborar", nullable = false)
     private Boolean esParaElaborar = false;
 
-    @Column(name = "estado_stock", nullable = false, length = 20)
+    // Lo recalculan los mismos UPDATE que stock_actual
+    @Column(name = "estado_stock", nullable = false, length = 20, updatable = false)
     private String estadoStock = "CRITICO";
 
     // ==================== RELACIONES ====================
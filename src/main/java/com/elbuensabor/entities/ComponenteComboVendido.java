@@ -0,0 +1,53 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Parte de un renglón de combo atribuida a uno de sus artículos, tal como se
+ * sumó a venta_articulo_diaria al crear el pedido. La cancelación resta estas
+ * mismas filas: el prorrateo no se vuelve a calcular con precios o
+ * composiciones que pueden haber cambiado desde entonces.
+ *
+ * id_detalle_pedido no tiene clave foránea: las filas siguen valiendo cuando
+ * el pedido pasa a las tablas de archivo.
+ */
+@Entity
+@Table(name = "componente_combo_vendido", indexes = {
+        @Index(name = "ix_componente_combo_vendido_detalle", columnList = "id_detalle_pedido")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComponenteComboVendido {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_componente_combo_vendido")
+    private Long idComponenteComboVendido;
+
+    @Column(name = "id_detalle_pedido", nullable = false)
+    private Long idDetallePedido;
+
+    @Column(name = "id_articulo", nullable = false)
+    private Long idArticulo;
+
+    // Categoría del artículo al registrar la venta
+    @Column(name = "id_categoria", nullable = false)
+    private Long idCategoria;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false)
+    private Double ingresos;
+
+    @Column(nullable = false)
+    private Double descuentos;
+
+    @Column(nullable = false)
+    private Double costo;
+}
@@ -0,0 +1,43 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de un insumo según el libro de stock hasta el movimiento
+ * idMovimientoHasta (inclusive). fechaCorte es la fecha del último
+ * movimiento del insumo incluido. El saldo en un instante es el del último
+ * corte anterior más los movimientos posteriores a él: nunca se suma el libro
+ * completo.
+ */
+@Entity
+@Table(name = "corte_stock", indexes = {
+        @Index(name = "ix_corte_stock_insumo", columnList = "id_articulo_insumo, fecha_corte")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CorteStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_corte_stock")
+    private Long idCorteStock;
+
+    @Column(name = "id_articulo_insumo", nullable = false)
+    private Long idArticuloInsumo;
+
+    @Column(name = "id_movimiento_hasta", nullable = false)
+    private Long idMovimientoHasta;
+
+    @Column(nullable = false)
+    private Double stock;
+
+    @Column(name = "fecha_corte", nullable = false)
+    private LocalDateTime fechaCorte;
+}
@@ -44,6 +44,9 @@ public class DetallePedido {
     @JoinColumn(name = "id_promocion")
     private Promocion promocionAplicada; // Promoción que se aplicó (si existe)
 
+    @Column(name = "costo")
+    private Double costo; // Costo del renglón (x cantidad) al momento del pedido
+
     // ✅ MÉTODOS DE UTILIDAD
     public Double getPrecioUnitarioFinal() {
         return precioUnitarioOriginal - (descuentoPromocion / cantidad);
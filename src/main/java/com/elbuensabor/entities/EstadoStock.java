@@ -4,5 +4,33 @@ public enum EstadoStock {
     CRITICO, // 0-25%
     BAJO,    // 26-50%
     NORMAL,  // 51-75%
-    ALTO     // 76-100%
+    ALTO;    // 76-100%
+
+    /**
+     * Estado para el stock y el máximo dados. Mismos umbrales que
+     * IArticuloInsumoRepository.ESTADO_STOCK_CON_DELTA.
+     */
+    public static EstadoStock calcular(Double stockActual, Double stockMaximo) {
+        double sa = stockActual != null ? stockActual : 0.0;
+        double sm = stockMaximo != null ? stockMaximo : 0.0;
+
+        if (sm <= 0)
+            return CRITICO;
+
+        double porcentaje = sa * 100.0 / sm;
+        if (porcentaje <= 25.0)
+            return CRITICO;
+        if (porcentaje <= 50.0)
+            return BAJO;
+        if (porcentaje <= 75.0)
+            return NORMAL;
+        return ALTO;
+    }
+
+    /**
+     * true si este estado es peor (menos stock) que el dado
+     */
+    public boolean peorQue(EstadoStock otro) {
+        return ordinal() < otro.ordinal();
+    }
 }
@@ -0,0 +1,50 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro de stock (solo se insertan, nunca se modifican).
+ * cantidad es el delta aplicado a stock_actual: positivo ingresa, negativo
+ * egresa. Lo escribe LibroStockService en lotes JDBC.
+ *
+ * id_articulo_insumo no tiene clave foránea: insertar un movimiento no toma
+ * locks sobre la fila del insumo y el libro sobrevive a la baja del insumo.
+ */
+@Entity
+@Table(name = "movimiento_stock", indexes = {
+        @Index(name = "ix_movimiento_stock_insumo", columnList = "id_articulo_insumo, id_movimiento_stock"),
+        @Index(name = "ix_movimiento_stock_fecha", columnList = "fecha")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_movimiento_stock")
+    private Long idMovimientoStock;
+
+    @Column(name = "id_articulo_insumo", nullable = false)
+    private Long idArticuloInsumo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoMovimientoStock tipo;
+
+    @Column(nullable = false)
+    private Double cantidad;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    // Origen del movimiento (ej: "compra:12", "pedido:340", "preparacion:7")
+    @Column(length = 60)
+    private String referencia;
+}
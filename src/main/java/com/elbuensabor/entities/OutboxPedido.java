@@ -0,0 +1,75 @@
+package com.elbuensabor.entities;
+
+import com.elbuensabor.events.TipoEventoPedido;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificación de pedido pendiente de enviar por WebSocket.
+ * Se inserta en la misma transacción que el cambio del pedido y la despacha
+ * OutboxPedidoServiceImpl; fechaDespacho null = pendiente.
+ */
+@Entity
+@Table(name = "outbox_pedido", indexes = {
+        @Index(name = "ix_outbox_pedido_pendientes", columnList = "fecha_despacho, id_outbox_pedido")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxPedido {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_outbox_pedido")
+    private Long idOutboxPedido;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoEventoPedido tipo;
+
+    @Column(name = "id_pedido", nullable = false)
+    private Long idPedido;
+
+    // Datos del pedido al momento del evento (lo que necesitan las notificaciones)
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Estado estado;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_envio", nullable = false)
+    private TipoEnvio tipoEnvio;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "forma_pago", nullable = false)
+    private FormaPago formaPago;
+
+    @Column(name = "nombre_cliente")
+    private String nombreCliente;
+
+    @Column(name = "email_cliente")
+    private String emailCliente;
+
+    @Column(name = "minutos_extension")
+    private Integer minutosExtension;
+
+    @Column(name = "id_usuario_delivery")
+    private Long idUsuarioDelivery;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_despacho")
+    private LocalDateTime fechaDespacho;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fechaCreacion == null) {
+            this.fechaCreacion = LocalDateTime.now();
+        }
+    }
+}
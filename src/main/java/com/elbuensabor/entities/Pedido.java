@@ -6,14 +6,19 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "pedido")
+@Table(name = "pedido", indexes = {
+        @Index(name = "ix_pedido_fecha_id", columnList = "fecha, id_pedido"),
+        @Index(name = "ix_pedido_estado_fecha_id", columnList = "estado, fecha, id_pedido")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -90,6 +95,10 @@ public class Pedido {
     @Column(name = "tiempo_extension_minutos")
     private Integer tiempoExtensionMinutos = 0;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "id_cliente", nullable = false)
     private Cliente cliente;
@@ -99,6 +108,7 @@ public class Pedido {
     private Domicilio domicilio;
 
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<DetallePedido> detalles = new ArrayList<>();
 
     @OneToOne(mappedBy = "pedido", cascade = CascadeType.ALL)
@@ -128,11 +138,32 @@ public class Pedido {
         return estado == Estado.LISTO;
     }
 
+    /**
+     * Fecha y hora de finalización estimada. horaEstimadaFinalizacion es solo
+     * una hora: se toma el día (anterior, mismo o siguiente al del pedido) que
+     * la deja más cerca de la fecha del pedido, así los pedidos que cruzan la
+     * medianoche quedan en el día correcto.
+     */
+    public LocalDateTime calcularFechaHoraEstimada() {
+        if (horaEstimadaFinalizacion == null || fecha == null) {
+            return null;
+        }
+        LocalDateTime candidata = fecha.toLocalDate().atTime(horaEstimadaFinalizacion);
+        if (Duration.between(fecha, candidata).toHours() < -12) {
+            return candidata.plusDays(1);
+        }
+        if (Duration.between(fecha, candidata).toHours() >= 12) {
+            return candidata.minusDays(1);
+        }
+        return candidata;
+    }
+
     public boolean estaRetrasado() {
-        if (estado != Estado.PREPARACION || horaEstimadaFinalizacion == null) {
+        LocalDateTime estimada = calcularFechaHoraEstimada();
+        if (estado != Estado.PREPARACION || estimada == null) {
             return false;
         }
-        return LocalTime.now().isAfter(horaEstimadaFinalizacion);
+        return LocalDateTime.now().isAfter(estimada);
     }
 
     public Double getTotalDescuentos() {
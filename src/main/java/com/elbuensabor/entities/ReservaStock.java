@@ -0,0 +1,55 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva de stock de un insumo tomada al crear un pedido.
+ * Se libera (devolviendo el stock) si el pedido se cancela.
+ */
+@Entity
+@Table(name = "reserva_stock", indexes = {
+        @Index(name = "ix_reserva_stock_pedido", columnList = "id_pedido, liberada")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva_stock")
+    private Long idReservaStock;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "id_pedido", nullable = false)
+    private Pedido pedido;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "id_articulo_insumo", nullable = false)
+    private ArticuloInsumo articuloInsumo;
+
+    @Column(nullable = false)
+    private Double cantidad;
+
+    @Column(nullable = false)
+    private Boolean liberada = false;
+
+    @Column(name = "fecha_reserva", nullable = false)
+    private LocalDateTime fechaReserva;
+
+    @Column(name = "fecha_liberacion")
+    private LocalDateTime fechaLiberacion;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fechaReserva == null) {
+            this.fechaReserva = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.elbuensabor.entities;
+
+public enum TipoMovimientoStock {
+    COMPRA,     // ingreso por compra de insumos
+    CONSUMO,    // reserva de un pedido o preparación de productos
+    AJUSTE,     // alta del insumo, corrección manual o saldo de apertura
+    REVERSION   // cancelación de un pedido o eliminación de una compra
+}
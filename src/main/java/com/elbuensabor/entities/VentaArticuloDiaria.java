@@ -0,0 +1,57 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Acumulado de ventas por día y artículo (combos desglosados en sus
+ * artículos). Lo mantiene AnaliticaVentasServiceImpl junto con cada alta o
+ * cancelación de pedido; los rankings de un rango suman estas filas en lugar
+ * de recorrer detalle_pedido. Excluye pedidos cancelados.
+ */
+@Entity
+@Table(name = "venta_articulo_diaria", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_venta_articulo_diaria", columnNames = {"fecha", "id_articulo"})
+}, indexes = {
+        @Index(name = "ix_venta_articulo_diaria_categoria", columnList = "fecha, id_categoria")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaArticuloDiaria {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_venta_articulo_diaria")
+    private Long idVentaArticuloDiaria;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "id_articulo", nullable = false)
+    private Articulo articulo;
+
+    // Categoría del artículo al registrar la venta
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "id_categoria", nullable = false)
+    private Categoria categoria;
+
+    @Column(nullable = false)
+    private Long unidades = 0L;
+
+    // Subtotal cobrado (en combos, prorrateado por precio de lista)
+    @Column(nullable = false)
+    private Double ingresos = 0.0;
+
+    @Column(nullable = false)
+    private Double descuentos = 0.0;
+
+    @Column(nullable = false)
+    private Double costo = 0.0;
+}
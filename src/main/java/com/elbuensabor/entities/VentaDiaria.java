@@ -0,0 +1,64 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Acumulado de ventas por día, forma de pago y tipo de envío.
+ * Lo mantiene VentaDiariaServiceImpl en la misma transacción que crea, cancela
+ * o entrega el pedido; los reportes leen de acá en lugar de recorrer pedido.
+ * total, totalCosto y descuentos excluyen los pedidos cancelados.
+ */
+@Entity
+@Table(name = "venta_diaria", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_venta_diaria", columnNames = {"fecha", "forma_pago", "tipo_envio"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiaria {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_venta_diaria")
+    private Long idVentaDiaria;
+
+    // Día del pedido (no del evento): una cancelación corrige el día original
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "forma_pago", nullable = false)
+    private FormaPago formaPago;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_envio", nullable = false)
+    private TipoEnvio tipoEnvio;
+
+    @Column(name = "cantidad_pedidos", nullable = false)
+    private Long cantidadPedidos = 0L;
+
+    @Column(name = "cantidad_cancelados", nullable = false)
+    private Long cantidadCancelados = 0L;
+
+    @Column(name = "cantidad_entregados", nullable = false)
+    private Long cantidadEntregados = 0L;
+
+    @Column(nullable = false)
+    private Double total = 0.0;
+
+    @Column(name = "total_costo", nullable = false)
+    private Double totalCosto = 0.0;
+
+    @Column(nullable = false)
+    private Double descuentos = 0.0;
+
+    public Long getCantidadVendidos() {
+        return cantidadPedidos - cantidadCancelados;
+    }
+}
@@ -0,0 +1,11 @@
+package com.elbuensabor.events;
+
+import java.util.Set;
+
+/**
+ * Artículos que pasaron de disponibles a agotados o al revés (al menos una
+ * unidad preparable, o stock > 0 para los insumos), publicado por
+ * DisponibilidadStockService después de aplicar un cambio de stock o recetas.
+ */
+public record DisponibilidadCambiadaEvent(Set<Long> idsArticulos) {
+}
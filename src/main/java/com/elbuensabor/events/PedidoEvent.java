@@ -0,0 +1,29 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.dto.response.pedido.PedidoCocineroResponse;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de ciclo de vida de un pedido, publicado por PedidoServiceImpl dentro
+ * de la transacción que modifica el pedido.
+ *
+ * @param version     versión (@Version) del pedido tras el cambio; permite
+ *                    descartar eventos que llegan fuera de orden
+ * @param vistaCocina vista del pedido para el tablero de cocina, o null si el
+ *                    pedido no debe mostrarse en cocina tras este cambio
+ * @param horaEstimadaFinalizacion fecha y hora completas de finalización
+ *                    estimada (ver Pedido.calcularFechaHoraEstimada)
+ */
+public record PedidoEvent(
+        TipoEventoPedido tipo,
+        Long idPedido,
+        Long version,
+        Estado estado,
+        TipoEnvio tipoEnvio,
+        PedidoCocineroResponse vistaCocina,
+        LocalDateTime horaEstimadaFinalizacion,
+        LocalDateTime fechaEvento) {
+}
@@ -0,0 +1,28 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.entities.Estado;
+
+public enum TipoEventoPedido {
+    CREADO,
+    PAGO_CONFIRMADO,
+    PREPARACION_INICIADA,
+    LISTO,
+    ENTREGADO,
+    CANCELADO,
+    TIEMPO_EXTENDIDO,
+    DELIVERY_ASIGNADO,
+    ESTADO_CAMBIADO;
+
+    /**
+     * Tipo de evento correspondiente a un cambio manual de estado
+     */
+    public static TipoEventoPedido desdeEstado(Estado estado) {
+        return switch (estado) {
+            case PREPARACION -> PREPARACION_INICIADA;
+            case LISTO -> LISTO;
+            case ENTREGADO -> ENTREGADO;
+            case CANCELADO -> CANCELADO;
+            default -> ESTADO_CAMBIADO;
+        };
+    }
+}
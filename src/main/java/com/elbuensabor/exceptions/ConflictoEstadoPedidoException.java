@@ -0,0 +1,11 @@
+package com.elbuensabor.exceptions;
+
+/**
+ * El pedido cambió (estado o versión) entre la lectura y la escritura de una
+ * transición: otra operación concurrente ganó la carrera.
+ */
+public class ConflictoEstadoPedidoException extends RuntimeException {
+    public ConflictoEstadoPedidoException(String message) {
+        super(message);
+    }
+}
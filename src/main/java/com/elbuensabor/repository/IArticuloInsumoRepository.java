@@ -2,10 +2,12 @@ package com.elbuensabor.repository;
 
 import com.elbuensabor.entities.ArticuloInsumo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +35,53 @@ public interface IArticuloInsumoRepository extends JpaRepository<ArticuloInsumo,
 
     List<ArticuloInsumo> findByEsParaElaborarFalse();
 
+    // ==================== BÚSQUEDAS POR ESTADO DE STOCK ====================
+
+    /**
+     * Insumos en un estado de stock (usa ix_articulo_insumo_estado_stock)
+     */
+    List<ArticuloInsumo> findByEstadoStock(String estadoStock);
+
+    /**
+     * Estado de stock de todos los insumos: [idArticulo, estadoStock]
+     */
+    @Query("SELECT ai.idArticulo, ai.estadoStock FROM ArticuloInsumo ai")
+    List<Object[]> findEstadosStock();
+
+    /**
+     * Estado de stock de los insumos dados:
+     * [idArticulo, denominacion, estadoStock, stockActual, stockMaximo]
+     */
+    @Query("SELECT ai.idArticulo, ai.denominacion, ai.estadoStock, ai.stockActual, ai.stockMaximo " +
+            "FROM ArticuloInsumo ai WHERE ai.idArticulo IN :ids")
+    List<Object[]> findEstadosStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ==================== LISTA DE PRECIOS ====================
+
+    /**
+     * Precios de todos los insumos: [idArticulo, denominacion, precioVenta, precioCompra]
+     */
+    @Query("SELECT ai.idArticulo, ai.denominacion, ai.precioVenta, ai.precioCompra FROM ArticuloInsumo ai")
+    List<Object[]> findPrecios();
+
+    @Query("SELECT ai.idArticulo, ai.denominacion, ai.precioVenta, ai.precioCompra FROM ArticuloInsumo ai " +
+            "WHERE ai.idArticulo IN :ids")
+    List<Object[]> findPreciosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ==================== STOCK EN MEMORIA ====================
+
+    /**
+     * Stock actual de todos los insumos: [idArticulo, stockActual]
+     */
+    @Query("SELECT ai.idArticulo, ai.stockActual FROM ArticuloInsumo ai")
+    List<Object[]> findStock();
+
+    /**
+     * Stock actual de los insumos dados: [idArticulo, stockActual]
+     */
+    @Query("SELECT ai.idArticulo, ai.stockActual FROM ArticuloInsumo ai WHERE ai.idArticulo IN :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
     // ==================== BÚSQUEDAS POR PRECIO ====================
 
     @Query("SELECT ai FROM ArticuloInsumo ai WHERE ai.precioCompra BETWEEN :precioMin AND :precioMax")
@@ -59,4 +108,45 @@ public interface IArticuloInsumoRepository extends JpaRepository<ArticuloInsumo,
     Boolean hasStockAvailable(
             @Param("idInsumo") Long idInsumo,
             @Param("cantidad") Double cantidad); // ✅ CAMBIO: Double en lugar de Integer
-}
\ No newline at end of file
+
+    // ==================== ACTUALIZACIONES ATÓMICAS DE STOCK ====================
+
+    /**
+     * Recalcula estado_stock a partir de (stock_actual + :delta), con los mismos
+     * umbrales que EstadoStock.calcular.
+     * Se asigna ANTES que stock_actual para leer el valor previo en MySQL.
+     */
+    String ESTADO_STOCK_CON_DELTA = "estado_stock = CASE " +
+            "WHEN stock_maximo <= 0 THEN 'CRITICO' " +
+            "WHEN (stock_actual + :delta) * 100.0 / stock_maximo <= 25 THEN 'CRITICO' " +
+            "WHEN (stock_actual + :delta) * 100.0 / stock_maximo <= 50 THEN 'BAJO' " +
+            "WHEN (stock_actual + :delta) * 100.0 / stock_maximo <= 75 THEN 'NORMAL' " +
+            "ELSE 'ALTO' END";
+
+    /**
+     * ✅ Aplica un delta NEGATIVO solo si el stock alcanza (UPDATE condicional,
+     * sin leer antes). Devuelve 1 si se descontó, 0 si no había stock suficiente.
+     */
+    @Modifying
+    @Query(value = "UPDATE articulo_insumo SET " + ESTADO_STOCK_CON_DELTA + ", " +
+            "stock_actual = stock_actual + :delta " +
+            "WHERE id_articulo = :idInsumo AND stock_actual >= -(:delta)", nativeQuery = true)
+    int descontarStockSiDisponible(@Param("idInsumo") Long idInsumo, @Param("delta") Double delta);
+
+    /**
+     * Stock actual del insumo, bloqueando la fila hasta el fin de la
+     * transacción (para calcular un delta que dependa del saldo)
+     */
+    @Query(value = "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = :idInsumo FOR UPDATE",
+            nativeQuery = true)
+    Double findStockParaActualizar(@Param("idInsumo") Long idInsumo);
+
+    /**
+     * ✅ Aplica un delta de stock de forma atómica (ej: devolución de reservas).
+     */
+    @Modifying
+    @Query(value = "UPDATE articulo_insumo SET " + ESTADO_STOCK_CON_DELTA + ", " +
+            "stock_actual = stock_actual + :delta " +
+            "WHERE id_articulo = :idInsumo", nativeQuery = true)
+    int incrementarStock(@Param("idInsumo") Long idInsumo, @Param("delta") Double delta);
+}
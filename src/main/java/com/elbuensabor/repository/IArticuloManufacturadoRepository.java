@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,6 +21,31 @@ public interface IArticuloManufacturadoRepository extends JpaRepository<Articulo
         @Query("SELECT am FROM ArticuloManufacturado am WHERE LOWER(am.denominacion) LIKE LOWER(CONCAT('%', :denominacion, '%'))")
         List<ArticuloManufacturado> findByDenominacionContainingIgnoreCase(@Param("denominacion") String denominacion);
 
+        // ==================== LISTA DE PRECIOS ====================
+
+        /**
+         * Precios de todos los manufacturados: [idArticulo, denominacion, precioVenta, costoProduccion]
+         */
+        @Query("SELECT am.idArticulo, am.denominacion, am.precioVenta, am.costoProduccion FROM ArticuloManufacturado am")
+        List<Object[]> findPrecios();
+
+        @Query("SELECT am.idArticulo, am.denominacion, am.precioVenta, am.costoProduccion FROM ArticuloManufacturado am " +
+                        "WHERE am.idArticulo IN :ids")
+        List<Object[]> findPreciosByIdIn(@Param("ids") Collection<Long> ids);
+
+        // ==================== COSTOS ====================
+
+        /**
+         * Costo de la receta con los precios de compra actuales, junto a los valores guardados:
+         * [idArticulo, costoProduccion, margenGanancia, precioVenta, costoReceta]
+         */
+        @Query("SELECT am.idArticulo, am.costoProduccion, am.margenGanancia, am.precioVenta, " +
+                        "SUM(d.cantidad * COALESCE(i.precioCompra, 0.0)) " +
+                        "FROM ArticuloManufacturado am JOIN am.detalles d JOIN d.articuloInsumo i " +
+                        "WHERE am.idArticulo IN :ids " +
+                        "GROUP BY am.idArticulo, am.costoProduccion, am.margenGanancia, am.precioVenta")
+        List<Object[]> findCostosRecetaByIdIn(@Param("ids") Collection<Long> ids);
+
         // ==================== BÚSQUEDAS POR RELACIONES ====================
 
         List<ArticuloManufacturado> findByCategoriaIdCategoria(Long idCategoria);
@@ -59,4 +85,13 @@ public interface IArticuloManufacturadoRepository extends JpaRepository<Articulo
                         "AND p.activo = true " +
                         "AND CURRENT_TIMESTAMP BETWEEN p.fechaDesde AND p.fechaHasta")
         List<ArticuloManufacturado> findArticulosConPromocionVigente();
+
+        /**
+         * Productos con su receta e insumos en una sola consulta (preparación por lote)
+         */
+        @Query("SELECT DISTINCT am FROM ArticuloManufacturado am " +
+                        "LEFT JOIN FETCH am.detalles d " +
+                        "LEFT JOIN FETCH d.articuloInsumo " +
+                        "WHERE am.idArticulo IN :ids")
+        List<ArticuloManufacturado> findConRecetaByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
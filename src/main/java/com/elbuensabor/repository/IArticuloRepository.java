@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,18 @@ public interface IArticuloRepository extends JpaRepository<Articulo, Long> {
     @Query("SELECT a FROM Articulo a WHERE a.precioVenta BETWEEN :precioMin AND :precioMax")
     List<Articulo> findByPrecioVentaBetween(@Param("precioMin") Double precioMin, @Param("precioMax") Double precioMax);
 
+    /**
+     * ✅ Carga en una sola consulta polimórfica un lote de artículos por ID.
+     * Con herencia JOINED, Hibernate resuelve la subclase concreta
+     * (ArticuloManufacturado / ArticuloInsumo) en el mismo SELECT.
+     */
+    @Query("SELECT a FROM Articulo a WHERE a.idArticulo IN :ids")
+    List<Articulo> findAllByIdArticuloIn(@Param("ids") Collection<Long> ids);
+
+    // Inicializa las imágenes de un lote de artículos ya cargados (una sola query)
+    @Query("SELECT DISTINCT a FROM Articulo a LEFT JOIN FETCH a.imagenes WHERE a.idArticulo IN :ids")
+    List<Articulo> fetchImagenesByIdIn(@Param("ids") Collection<Long> ids);
+
     // Obtener todos los artículos disponibles (tanto insumos como manufacturados)
     @Query("SELECT a FROM Articulo a ORDER BY a.denominacion")
     List<Articulo> findAllArticulos();
@@ -80,4 +93,31 @@ public interface IArticuloRepository extends JpaRepository<Articulo, Long> {
             ")")
     List<Articulo> findDisponiblesParaCatalogoPorNombre(
             @Param("query") String query);
-}
\ No newline at end of file
+
+    // ==================== ÍNDICE DE BÚSQUEDA ====================
+
+    /**
+     * Textos buscables de los artículos del catálogo:
+     * [idArticulo, denominacion, descripcion (solo manufacturados), categoría]
+     */
+    @Query("SELECT a.idArticulo, a.denominacion, m.descripcion, c.denominacion FROM Articulo a " +
+            "LEFT JOIN a.categoria c " +
+            "LEFT JOIN ArticuloManufacturado m ON m.idArticulo = a.idArticulo " +
+            "WHERE a.eliminado = false " +
+            "AND (" +
+            "  TYPE(a) = ArticuloManufacturado " +
+            "  OR (TYPE(a) = ArticuloInsumo AND a.esParaElaborar = false)" +
+            ")")
+    List<Object[]> findTextosParaBusqueda();
+
+    @Query("SELECT a.idArticulo, a.denominacion, m.descripcion, c.denominacion FROM Articulo a " +
+            "LEFT JOIN a.categoria c " +
+            "LEFT JOIN ArticuloManufacturado m ON m.idArticulo = a.idArticulo " +
+            "WHERE a.idArticulo IN :ids " +
+            "AND a.eliminado = false " +
+            "AND (" +
+            "  TYPE(a) = ArticuloManufacturado " +
+            "  OR (TYPE(a) = ArticuloInsumo AND a.esParaElaborar = false)" +
+            ")")
+    List<Object[]> findTextosParaBusquedaByIdIn(@Param("ids") Collection<Long> ids);
+}
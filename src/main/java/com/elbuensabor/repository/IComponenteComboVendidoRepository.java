@@ -0,0 +1,17 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.ComponenteComboVendido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IComponenteComboVendidoRepository extends JpaRepository<ComponenteComboVendido, Long> {
+
+    /**
+     * Desglose guardado de los renglones de combo dados
+     */
+    List<ComponenteComboVendido> findByIdDetallePedidoIn(Collection<Long> idsDetalles);
+}
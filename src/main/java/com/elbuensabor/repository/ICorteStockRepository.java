@@ -0,0 +1,43 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.CorteStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ICorteStockRepository extends JpaRepository<CorteStock, Long> {
+
+    /**
+     * Último corte del insumo con fecha hasta el instante dado (0 o 1 elemento)
+     */
+    @Query(value = "SELECT * FROM corte_stock WHERE id_articulo_insumo = :idInsumo AND fecha_corte <= :instante " +
+            "ORDER BY id_movimiento_hasta DESC LIMIT 1", nativeQuery = true)
+    List<CorteStock> findUltimoAl(@Param("idInsumo") Long idInsumo, @Param("instante") LocalDateTime instante);
+
+    /**
+     * Movimiento hasta el que llega el último corte (0 si no hay cortes)
+     */
+    @Query("SELECT COALESCE(MAX(c.idMovimientoHasta), 0) FROM CorteStock c")
+    Long findUltimoMovimientoCortado();
+
+    /**
+     * ✅ Corte de los insumos con movimientos en (desde, hasta]: saldo del
+     * corte anterior del insumo más la suma de esos movimientos. Una sola
+     * sentencia INSERT ... SELECT.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO corte_stock (id_articulo_insumo, id_movimiento_hasta, stock, fecha_corte) " +
+            "SELECT m.id_articulo_insumo, :hasta, " +
+            "COALESCE((SELECT c.stock FROM corte_stock c WHERE c.id_articulo_insumo = m.id_articulo_insumo " +
+            "   ORDER BY c.id_movimiento_hasta DESC LIMIT 1), 0) + SUM(m.cantidad), MAX(m.fecha) " +
+            "FROM movimiento_stock m " +
+            "WHERE m.id_movimiento_stock > :desde AND m.id_movimiento_stock <= :hasta " +
+            "GROUP BY m.id_articulo_insumo", nativeQuery = true)
+    int cortar(@Param("desde") Long desde, @Param("hasta") Long hasta);
+}
@@ -2,8 +2,28 @@ package com.elbuensabor.repository;
 
 import com.elbuensabor.entities.DetalleManufacturado;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface IDetalleManufacturadoRepository extends JpaRepository<DetalleManufacturado, Long> {
+
+    /**
+     * Recetas de varios productos en una sola consulta:
+     * [idArticuloManufacturado, idArticuloInsumo, cantidad]
+     */
+    @Query("SELECT dm.articuloManufacturado.idArticulo, dm.articuloInsumo.idArticulo, dm.cantidad " +
+            "FROM DetalleManufacturado dm WHERE dm.articuloManufacturado.idArticulo IN :ids")
+    List<Object[]> findRecetasByManufacturadoIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Todas las recetas: [idArticuloManufacturado, idArticuloInsumo, cantidad]
+     */
+    @Query("SELECT dm.articuloManufacturado.idArticulo, dm.articuloInsumo.idArticulo, dm.cantidad " +
+            "FROM DetalleManufacturado dm")
+    List<Object[]> findRecetas();
 }
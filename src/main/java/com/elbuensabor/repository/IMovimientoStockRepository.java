@@ -0,0 +1,40 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.MovimientoStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IMovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
+
+    /**
+     * Suma de los movimientos del insumo posteriores al movimiento dado y con
+     * fecha hasta el instante (recorre solo el rango desde el último corte)
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoStock m " +
+            "WHERE m.idArticuloInsumo = :idInsumo AND m.idMovimientoStock > :desdeId AND m.fecha <= :instante")
+    Double sumarDesde(@Param("idInsumo") Long idInsumo, @Param("desdeId") Long desdeId,
+            @Param("instante") LocalDateTime instante);
+
+    /**
+     * Último movimiento con fecha hasta el instante dado (límite de un corte)
+     */
+    @Query("SELECT MAX(m.idMovimientoStock) FROM MovimientoStock m WHERE m.fecha <= :instante")
+    Long findUltimoIdHasta(@Param("instante") LocalDateTime instante);
+
+    /**
+     * ✅ Saldo de apertura: un AJUSTE con el stock actual de cada insumo que
+     * todavía no tiene movimientos
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movimiento_stock (id_articulo_insumo, tipo, cantidad, fecha, referencia) " +
+            "SELECT ai.id_articulo, 'AJUSTE', ai.stock_actual, :fecha, 'apertura' FROM articulo_insumo ai " +
+            "WHERE NOT EXISTS (SELECT 1 FROM movimiento_stock m WHERE m.id_articulo_insumo = ai.id_articulo)",
+            nativeQuery = true)
+    int abrirSaldos(@Param("fecha") LocalDateTime fecha);
+}
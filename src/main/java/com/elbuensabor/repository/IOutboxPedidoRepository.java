@@ -0,0 +1,49 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.OutboxPedido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IOutboxPedidoRepository extends JpaRepository<OutboxPedido, Long> {
+
+    /**
+     * ✅ Toma un lote de notificaciones pendientes en orden de inserción.
+     * SKIP LOCKED: si hay más de una instancia, cada una toma filas distintas.
+     */
+    @Query(value = "SELECT * FROM outbox_pedido WHERE fecha_despacho IS NULL " +
+            "ORDER BY id_outbox_pedido LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxPedido> tomarPendientes(@Param("limite") int limite);
+
+    /**
+     * Marca un lote como despachado
+     */
+    @Modifying
+    @Query("UPDATE OutboxPedido o SET o.fechaDespacho = :fecha WHERE o.idOutboxPedido IN :ids")
+    int marcarDespachados(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Cantidad de notificaciones pendientes (backlog)
+     */
+    long countByFechaDespachoIsNull();
+
+    /**
+     * Fecha de la notificación pendiente más antigua
+     */
+    @Query("SELECT MIN(o.fechaCreacion) FROM OutboxPedido o WHERE o.fechaDespacho IS NULL")
+    LocalDateTime findFechaPendienteMasAntigua();
+
+    /**
+     * Elimina notificaciones ya despachadas antes de una fecha
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxPedido o WHERE o.fechaDespacho < :fecha")
+    int eliminarDespachadosAntesDe(@Param("fecha") LocalDateTime fecha);
+}
@@ -3,15 +3,24 @@ package com.elbuensabor.repository;
 import com.elbuensabor.entities.Estado;
 import com.elbuensabor.entities.Pedido;
 import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.entities.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
@@ -33,6 +42,178 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
          */
         List<Pedido> findByEstadoInOrderByFechaAsc(List<Estado> estados);
 
+        // ==================== TRANSICIONES DE ESTADO ====================
+        // UPDATE condicionado al estado de origen: si otra operación cambió el
+        // pedido antes, afecta 0 filas. Incrementa la versión para que los save()
+        // concurrentes sobre la misma fila fallen por @Version. No limpian el
+        // contexto de persistencia: MotorTransicionesPedido refresca la entidad
+        // ya cargada.
+
+        /**
+         * ✅ Cambia el estado si el pedido sigue en :desde. Las fechas de auditoría
+         * solo se completan si estaban vacías (se pasa null para no tocarlas).
+         */
+        @Modifying(flushAutomatically = true)
+        @Query("UPDATE Pedido p SET p.estado = :hasta, p.version = p.version + 1, " +
+                        "p.fechaInicioPreparacion = COALESCE(p.fechaInicioPreparacion, :fechaInicioPreparacion), " +
+                        "p.fechaListo = COALESCE(p.fechaListo, :fechaListo), " +
+                        "p.fechaEntregado = COALESCE(p.fechaEntregado, :fechaEntregado) " +
+                        "WHERE p.idPedido = :idPedido AND p.estado = :desde")
+        int transicionarSiEstado(@Param("idPedido") Long idPedido,
+                        @Param("desde") Estado desde,
+                        @Param("hasta") Estado hasta,
+                        @Param("fechaInicioPreparacion") LocalDateTime fechaInicioPreparacion,
+                        @Param("fechaListo") LocalDateTime fechaListo,
+                        @Param("fechaEntregado") LocalDateTime fechaEntregado);
+
+        /**
+         * ✅ Cancela el pedido si sigue en :desde
+         */
+        @Modifying(flushAutomatically = true)
+        @Query("UPDATE Pedido p SET p.estado = 'CANCELADO', p.version = p.version + 1, " +
+                        "p.fechaCancelado = COALESCE(p.fechaCancelado, :fecha), " +
+                        "p.motivoCancelacion = :motivo, p.usuarioCancela = :usuario " +
+                        "WHERE p.idPedido = :idPedido AND p.estado = :desde")
+        int cancelarSiEstado(@Param("idPedido") Long idPedido,
+                        @Param("desde") Estado desde,
+                        @Param("fecha") LocalDateTime fecha,
+                        @Param("motivo") String motivo,
+                        @Param("usuario") Usuario usuario);
+
+        /**
+         * ✅ Extiende el tiempo de preparación si el pedido sigue en PREPARACION
+         * y con la versión leída
+         */
+        @Modifying(flushAutomatically = true)
+        @Query("UPDATE Pedido p SET p.tiempoExtensionMinutos = :extension, " +
+                        "p.horaEstimadaFinalizacion = :horaEstimada, p.version = p.version + 1 " +
+                        "WHERE p.idPedido = :idPedido AND p.estado = 'PREPARACION' AND p.version = :version")
+        int extenderTiempoSiVersion(@Param("idPedido") Long idPedido,
+                        @Param("version") Long version,
+                        @Param("extension") int extension,
+                        @Param("horaEstimada") LocalTime horaEstimada);
+
+        /**
+         * ✅ Asigna el delivery solo si el pedido sigue LISTO y sin delivery:
+         * dos asignaciones simultáneas no pueden quedar ambas aplicadas
+         */
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query("UPDATE Pedido p SET p.usuarioDelivery = :delivery, p.version = p.version + 1 " +
+                        "WHERE p.idPedido = :idPedido AND p.estado = 'LISTO' " +
+                        "AND p.tipoEnvio = 'DELIVERY' AND p.usuarioDelivery IS NULL")
+        int asignarDeliverySiLibre(@Param("idPedido") Long idPedido,
+                        @Param("delivery") Usuario delivery);
+
+        // ==================== CONSULTAS PARA VISTAS POR ROL ====================
+        // Los listados se resuelven en dos pasos: primero los IDs (consulta sobre
+        // índice, sin asociaciones) y luego findVistasByIdIn, que trae en una sola
+        // consulta todo lo que leen los mappers. Así la cantidad de sentencias no
+        // depende de la cantidad de pedidos.
+
+        /**
+         * Carga pedidos con cliente, usuarios, domicilio, factura y detalles
+         * (con artículo y promoción aplicada)
+         */
+        @Query("SELECT DISTINCT p FROM Pedido p " +
+                        "JOIN FETCH p.cliente c " +
+                        "LEFT JOIN FETCH c.usuario " +
+                        "LEFT JOIN FETCH c.imagen " +
+                        "LEFT JOIN FETCH p.domicilio " +
+                        "LEFT JOIN FETCH p.usuarioConfirmaPago " +
+                        "LEFT JOIN FETCH p.usuarioCancela " +
+                        "LEFT JOIN FETCH p.usuarioDelivery " +
+                        "LEFT JOIN FETCH p.factura " +
+                        "LEFT JOIN FETCH p.detalles d " +
+                        "LEFT JOIN FETCH d.articulo " +
+                        "LEFT JOIN FETCH d.promocionAplicada " +
+                        "WHERE p.idPedido IN :ids")
+        List<Pedido> findVistasByIdIn(@Param("ids") Collection<Long> ids);
+
+        /**
+         * IDs de todos los pedidos ordenados por fecha descendente
+         */
+        @Query("SELECT p.idPedido FROM Pedido p ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsOrderByFechaDesc();
+
+        /**
+         * IDs de pedidos de un estado ordenados por fecha descendente
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.estado = :estado ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsByEstado(@Param("estado") Estado estado);
+
+        /**
+         * IDs de pedidos en un rango [desde, hasta) ordenados por fecha descendente
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.fecha >= :desde AND p.fecha < :hasta " +
+                        "ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsEntreFechas(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+        /**
+         * IDs de pedidos de un cliente ordenados por fecha descendente
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.cliente.idCliente = :idCliente " +
+                        "ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsByCliente(@Param("idCliente") Long idCliente);
+
+        /**
+         * IDs de pedidos listos asignados a un delivery, por fecha descendente
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.usuarioDelivery.idUsuario = :idDelivery " +
+                        "AND p.estado = 'LISTO' AND p.tipoEnvio = 'DELIVERY' ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsListosByDelivery(@Param("idDelivery") Long idDelivery);
+
+        // ==================== CONSULTAS PAGINADAS (KEYSET) ====================
+        // Cursor: (fecha, idPedido) del último pedido de la página anterior.
+        // El Pageable solo se usa para el LIMIT (siempre página 0).
+        // Devuelven solo IDs; los pedidos se cargan luego con findVistasByIdIn.
+
+        /**
+         * Primera página de todos los pedidos (fecha DESC, id DESC)
+         */
+        @Query("SELECT p.idPedido FROM Pedido p ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsPrimeraPagina(Pageable limite);
+
+        /**
+         * Página siguiente de todos los pedidos a partir del cursor
+         */
+        @Query("SELECT p.idPedido FROM Pedido p " +
+                        "WHERE p.fecha < :fecha OR (p.fecha = :fecha AND p.idPedido < :idPedido) " +
+                        "ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsPaginaDespuesDe(@Param("fecha") LocalDateTime fecha,
+                        @Param("idPedido") Long idPedido, Pageable limite);
+
+        /**
+         * Primera página de pedidos de un estado
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.estado = :estado ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsPrimeraPaginaPorEstado(@Param("estado") Estado estado, Pageable limite);
+
+        /**
+         * Página siguiente de pedidos de un estado a partir del cursor
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.estado = :estado " +
+                        "AND (p.fecha < :fecha OR (p.fecha = :fecha AND p.idPedido < :idPedido)) " +
+                        "ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsPaginaPorEstadoDespuesDe(@Param("estado") Estado estado,
+                        @Param("fecha") LocalDateTime fecha, @Param("idPedido") Long idPedido, Pageable limite);
+
+        /**
+         * Primera página de pedidos en un rango [desde, hasta)
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.fecha >= :desde AND p.fecha < :hasta " +
+                        "ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsPrimeraPaginaEntreFechas(@Param("desde") LocalDateTime desde,
+                        @Param("hasta") LocalDateTime hasta, Pageable limite);
+
+        /**
+         * Página siguiente de pedidos en un rango [desde, hasta) a partir del cursor
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.fecha >= :desde " +
+                        "AND (p.fecha < :fecha OR (p.fecha = :fecha AND p.idPedido < :idPedido)) " +
+                        "ORDER BY p.fecha DESC, p.idPedido DESC")
+        List<Long> findIdsPaginaEntreFechasDespuesDe(@Param("desde") LocalDateTime desde,
+                        @Param("fecha") LocalDateTime fecha, @Param("idPedido") Long idPedido, Pageable limite);
+
         // ==================== CONSULTAS POR CLIENTE ====================
 
         /**
@@ -57,18 +238,28 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
          */
         List<Pedido> findByFechaBetweenOrderByFechaDesc(LocalDateTime fechaInicio, LocalDateTime fechaFin);
 
+        /**
+         * Busca pedidos en [desde, hasta) ordenados por fecha descendente.
+         * Rango sobre p.fecha, sin funciones: usa ix_pedido_fecha_id.
+         */
+        @Query("SELECT p FROM Pedido p WHERE p.fecha >= :desde AND p.fecha < :hasta ORDER BY p.fecha DESC")
+        List<Pedido> findEntreFechasOrderByFechaDesc(@Param("desde") LocalDateTime desde,
+                        @Param("hasta") LocalDateTime hasta);
+
         /**
          * Busca pedidos de un día específico
          */
-        @Query("SELECT p FROM Pedido p WHERE DATE(p.fecha) = :fecha ORDER BY p.fecha DESC")
-        List<Pedido> findByFechaDate(@Param("fecha") LocalDate fecha);
+        default List<Pedido> findByFechaDate(LocalDate fecha) {
+                return findEntreFechasOrderByFechaDesc(fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay());
+        }
 
         /**
          * Obtiene pedidos del mes actual
          */
-        @Query("SELECT p FROM Pedido p WHERE MONTH(p.fecha) = MONTH(CURRENT_DATE) " +
-                        "AND YEAR(p.fecha) = YEAR(CURRENT_DATE) ORDER BY p.fecha DESC")
-        List<Pedido> findPedidosMesActual();
+        default List<Pedido> findPedidosMesActual() {
+                LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+                return findEntreFechasOrderByFechaDesc(inicioMes.atStartOfDay(), inicioMes.plusMonths(1).atStartOfDay());
+        }
 
         // ==================== CONSULTAS POR ESTADO Y TIPO ====================
 
@@ -93,6 +284,22 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
                         "ORDER BY p.fecha ASC")
         List<Pedido> findPedidosListosSinDelivery();
 
+        /**
+         * Carga abierta por delivery: [idUsuario, pedidos LISTO asignados,
+         * fechaListo del más antiguo]
+         */
+        @Query("SELECT p.usuarioDelivery.idUsuario, COUNT(p), MIN(p.fechaListo) FROM Pedido p " +
+                        "WHERE p.estado = 'LISTO' AND p.usuarioDelivery IS NOT NULL " +
+                        "GROUP BY p.usuarioDelivery.idUsuario")
+        List<Object[]> findCargaPorDelivery();
+
+        /**
+         * Zona de entrega de cada pedido: [idPedido, cp, localidad]
+         */
+        @Query("SELECT p.idPedido, d.cp, d.localidad FROM Pedido p JOIN p.domicilio d " +
+                        "WHERE p.idPedido IN :ids")
+        List<Object[]> findZonasEntrega(@Param("ids") Collection<Long> ids);
+
         // ==================== CONSULTAS PARA COCINA ====================
 
         // /**
@@ -117,14 +324,6 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
                         "ORDER BY p.fecha ASC")
         List<Pedido> findPedidosParaCocina();
 
-        /**
-         * Obtiene pedidos en preparación retrasados
-         */
-        @Query("SELECT p FROM Pedido p WHERE p.estado = 'PREPARACION' " +
-                        "AND p.horaEstimadaFinalizacion < CURRENT_TIME " +
-                        "ORDER BY p.fecha ASC")
-        List<Pedido> findPedidosRetrasados();
-
         // ==================== CONSULTAS PARA DELIVERY ====================
 
         /**
@@ -160,25 +359,29 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
         Long countByCliente_IdCliente(Long idCliente);
 
         /**
-         * Cuenta pedidos del día actual
+         * Cuenta pedidos del día actual (desde venta_diaria)
          */
-        @Query("SELECT COUNT(p) FROM Pedido p WHERE DATE(p.fecha) = CURRENT_DATE")
+        @Query("SELECT COALESCE(SUM(v.cantidadPedidos), 0) FROM VentaDiaria v WHERE v.fecha = CURRENT_DATE")
         Long countPedidosHoy();
 
         /**
-         * Suma total de ventas del día
+         * Suma total de ventas del día (desde venta_diaria, sin cancelados)
          */
-        @Query("SELECT SUM(p.total) FROM Pedido p WHERE DATE(p.fecha) = CURRENT_DATE " +
-                        "AND p.estado != 'CANCELADO'")
+        @Query("SELECT SUM(v.total) FROM VentaDiaria v WHERE v.fecha = CURRENT_DATE")
         Double sumTotalVentasHoy();
 
         /**
-         * Suma total de ventas entre fechas
+         * Suma total de ventas entre días, ambos inclusive (desde venta_diaria)
+         */
+        @Query("SELECT SUM(v.total) FROM VentaDiaria v WHERE v.fecha BETWEEN :fechaInicio AND :fechaFin")
+        Double sumTotalVentasEntreFechas(@Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin);
+
+        /**
+         * Fecha del primer pedido registrado (null si no hay pedidos)
          */
-        @Query("SELECT SUM(p.total) FROM Pedido p WHERE p.fecha BETWEEN :fechaInicio AND :fechaFin " +
-                        "AND p.estado != 'CANCELADO'")
-        Double sumTotalVentasEntreFechas(@Param("fechaInicio") LocalDateTime fechaInicio,
-                        @Param("fechaFin") LocalDateTime fechaFin);
+        @Query("SELECT MIN(p.fecha) FROM Pedido p")
+        LocalDateTime findFechaPrimerPedido();
 
         /**
          * Obtiene los pedidos más recientes
@@ -202,23 +405,44 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
         // ==================== CONSULTAS PARA REPORTES ====================
 
         /**
-         * Obtiene pedidos agrupados por día en un rango de fechas
+         * Obtiene ventas (fecha, cantidad, total) agrupadas por día entre dos días,
+         * ambos inclusive. Lee de venta_diaria: no depende del tamaño de pedido.
          */
-        @Query("SELECT DATE(p.fecha) as fecha, COUNT(p) as cantidad, SUM(p.total) as total " +
-                        "FROM Pedido p WHERE p.fecha BETWEEN :fechaInicio AND :fechaFin " +
-                        "AND p.estado != 'CANCELADO' GROUP BY DATE(p.fecha) ORDER BY DATE(p.fecha) DESC")
-        List<Object[]> findResumenVentasPorDia(@Param("fechaInicio") LocalDateTime fechaInicio,
-                        @Param("fechaFin") LocalDateTime fechaFin);
+        @Query("SELECT v.fecha as fecha, SUM(v.cantidadPedidos - v.cantidadCancelados) as cantidad, " +
+                        "SUM(v.total) as total FROM VentaDiaria v " +
+                        "WHERE v.fecha BETWEEN :fechaInicio AND :fechaFin " +
+                        "GROUP BY v.fecha ORDER BY v.fecha DESC")
+        List<Object[]> findResumenVentasPorDia(@Param("fechaInicio") LocalDate fechaInicio,
+                        @Param("fechaFin") LocalDate fechaFin);
 
         /**
-         * Obtiene los productos más vendidos
+         * Obtiene los productos más vendidos (denominacion, cantidad) de toda la
+         * historia. Lee de venta_articulo_diaria; el Pageable limita el top-K.
          */
-        @Query("SELECT a.denominacion, SUM(d.cantidad) as cantidad " +
-                        "FROM DetallePedido d JOIN d.articulo a JOIN d.pedido p " +
-                        "WHERE p.estado != 'CANCELADO' " +
+        @Query("SELECT a.denominacion, SUM(v.unidades) as cantidad " +
+                        "FROM VentaArticuloDiaria v JOIN v.articulo a " +
                         "GROUP BY a.idArticulo, a.denominacion " +
                         "ORDER BY cantidad DESC")
-        List<Object[]> findProductosMasVendidos();
+        List<Object[]> findProductosMasVendidos(Pageable limite);
+
+        /**
+         * Renglones de pedidos no cancelados de [desde, hasta), en pedido y
+         * pedido_archivo: id_articulo, id_promocion, cantidad, subtotal,
+         * descuento_promocion, costo, id_detalle_pedido (reconstrucción de
+         * venta_articulo_diaria)
+         */
+        @Query(value = "SELECT d.id_articulo, d.id_promocion, d.cantidad, d.subtotal, d.descuento_promocion, d.costo, " +
+                        "d.id_detalle_pedido " +
+                        "FROM detalle_pedido d JOIN pedido p ON p.id_pedido = d.id_pedido " +
+                        "WHERE p.fecha >= :desde AND p.fecha < :hasta AND p.estado <> 'CANCELADO' " +
+                        "UNION ALL " +
+                        "SELECT d.id_articulo, d.id_promocion, d.cantidad, d.subtotal, d.descuento_promocion, d.costo, " +
+                        "d.id_detalle_pedido " +
+                        "FROM detalle_pedido_archivo d JOIN pedido_archivo p ON p.id_pedido = d.id_pedido " +
+                        "WHERE p.fecha >= :desde AND p.fecha < :hasta AND p.estado <> 'CANCELADO'",
+                        nativeQuery = true)
+        List<Object[]> findRenglonesVendidosEntreFechas(@Param("desde") LocalDateTime desde,
+                        @Param("hasta") LocalDateTime hasta);
 
         /**
          * Obtiene tiempo promedio de preparación
@@ -228,14 +452,78 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
                         "AND p.fechaListo IS NOT NULL")
         Double findTiempoPromedioPreparacion();
 
+        // ==================== EXPORTACIÓN ====================
+
+        /**
+         * Fila plana de exportación: datos del pedido repetidos en cada renglón
+         */
+        interface FilaExportacion {
+                Long getIdPedido();
+                LocalDateTime getFecha();
+                Estado getEstado();
+                TipoEnvio getTipoEnvio();
+                com.elbuensabor.entities.FormaPago getFormaPago();
+                Boolean getPagoConfirmado();
+                Double getTotal();
+                Double getTotalCosto();
+                String getNombreCliente();
+                String getApellidoCliente();
+                String getEmailCliente();
+                Long getIdDetallePedido();
+                Long getIdArticulo();
+                String getArticulo();
+                Integer getCantidad();
+                Double getPrecioUnitarioOriginal();
+                Double getDescuentoPromocion();
+                Double getSubtotal();
+                String getPromocion();
+        }
+
+        /**
+         * ✅ Pedidos de [desde, hasta) con sus renglones, como filas escalares
+         * ordenadas por pedido. No hay entidades: el contexto de persistencia no
+         * crece. Fetch size Integer.MIN_VALUE = MySQL envía fila por fila en lugar
+         * de cargar todo el resultado (el Stream debe cerrarse y no se pueden
+         * hacer otras consultas en la conexión mientras está abierto).
+         */
+        @QueryHints({
+                        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+        })
+        @Query("SELECT p.idPedido AS idPedido, p.fecha AS fecha, p.estado AS estado, p.tipoEnvio AS tipoEnvio, " +
+                        "p.formaPago AS formaPago, p.pagoConfirmado AS pagoConfirmado, p.total AS total, " +
+                        "p.totalCosto AS totalCosto, u.nombre AS nombreCliente, u.apellido AS apellidoCliente, " +
+                        "u.email AS emailCliente, d.idDetallePedido AS idDetallePedido, a.idArticulo AS idArticulo, " +
+                        "a.denominacion AS articulo, d.cantidad AS cantidad, " +
+                        "d.precioUnitarioOriginal AS precioUnitarioOriginal, " +
+                        "d.descuentoPromocion AS descuentoPromocion, d.subtotal AS subtotal, " +
+                        "pr.denominacion AS promocion " +
+                        "FROM Pedido p JOIN p.cliente c JOIN c.usuario u " +
+                        "LEFT JOIN p.detalles d LEFT JOIN d.articulo a LEFT JOIN d.promocionAplicada pr " +
+                        "WHERE p.fecha >= :desde AND p.fecha < :hasta " +
+                        "ORDER BY p.fecha ASC, p.idPedido ASC, d.idDetallePedido ASC")
+        Stream<FilaExportacion> streamParaExportacion(@Param("desde") LocalDateTime desde,
+                        @Param("hasta") LocalDateTime hasta);
+
         // ==================== CONSULTAS PARA CAJERO ====================
 
         /**
-         * Obtiene pedidos del día por forma de pago
+         * Obtiene pedidos en [desde, hasta) por forma de pago
          */
-        @Query("SELECT p FROM Pedido p WHERE DATE(p.fecha) = CURRENT_DATE " +
+        @Query("SELECT p FROM Pedido p WHERE p.fecha >= :desde AND p.fecha < :hasta " +
                         "AND p.formaPago = :formaPago ORDER BY p.fecha DESC")
-        List<Pedido> findPedidosHoyPorFormaPago(@Param("formaPago") com.elbuensabor.entities.FormaPago formaPago);
+        List<Pedido> findPedidosEntreFechasPorFormaPago(@Param("desde") LocalDateTime desde,
+                        @Param("hasta") LocalDateTime hasta,
+                        @Param("formaPago") com.elbuensabor.entities.FormaPago formaPago);
+
+        /**
+         * Obtiene pedidos del día por forma de pago
+         */
+        default List<Pedido> findPedidosHoyPorFormaPago(com.elbuensabor.entities.FormaPago formaPago) {
+                LocalDate hoy = LocalDate.now();
+                return findPedidosEntreFechasPorFormaPago(hoy.atStartOfDay(), hoy.plusDays(1).atStartOfDay(),
+                                formaPago);
+        }
 
         /**
          * Obtiene pedidos confirmados por un cajero específico
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +59,25 @@ public interface IPromocionRepository extends JpaRepository<Promocion, Long> {
                         "WHERE p.idPromocion = :id AND p.eliminado = false")
         Optional<Promocion> findByIdConDetalles(@Param("id") Long id);
 
+        /**
+         * ✅ Carga un lote de promociones con sus detalles (sin imágenes).
+         * Usado al crear pedidos para resolver todos los combos en una sola query.
+         */
+        @Query("SELECT DISTINCT p FROM Promocion p " +
+                        "LEFT JOIN FETCH p.detalles d " +
+                        "WHERE p.idPromocion IN :ids")
+        List<Promocion> findAllConDetallesByIdIn(@Param("ids") Collection<Long> ids);
+
+        /**
+         * ✅ Carga un lote de promociones con detalles y artículos (sin imágenes).
+         * Usado al armar las respuestas de pedidos con combos.
+         */
+        @Query("SELECT DISTINCT p FROM Promocion p " +
+                        "LEFT JOIN FETCH p.detalles d " +
+                        "LEFT JOIN FETCH d.articulo " +
+                        "WHERE p.idPromocion IN :ids")
+        List<Promocion> findAllConDetallesYArticulosByIdIn(@Param("ids") Collection<Long> ids);
+
         /**
          * ✅ Carga imágenes de una promoción específica
          */
@@ -95,4 +115,17 @@ public interface IPromocionRepository extends JpaRepository<Promocion, Long> {
                         "AND p.activo = true " +
                         "AND CURRENT_TIMESTAMP BETWEEN p.fechaDesde AND p.fechaHasta")
         boolean articuloTienePromocionVigente(@Param("idArticulo") Long idArticulo);
-}
\ No newline at end of file
+
+        // ==================== ÍNDICE DE BÚSQUEDA ====================
+
+        /**
+         * Nombres de las promociones activas de cada artículo: [idArticulo, denominacion]
+         */
+        @Query("SELECT d.articulo.idArticulo, p.denominacion FROM Promocion p JOIN p.detalles d " +
+                        "WHERE p.eliminado = false AND p.activo = true")
+        List<Object[]> findNombresActivosPorArticulo();
+
+        @Query("SELECT d.articulo.idArticulo, p.denominacion FROM Promocion p JOIN p.detalles d " +
+                        "WHERE p.eliminado = false AND p.activo = true AND d.articulo.idArticulo IN :ids")
+        List<Object[]> findNombresActivosPorArticuloByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,31 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.ReservaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    /**
+     * Reservas todavía vigentes (no liberadas) de un pedido
+     */
+    @Query("SELECT r FROM ReservaStock r JOIN FETCH r.articuloInsumo " +
+            "WHERE r.pedido.idPedido = :idPedido AND r.liberada = false")
+    List<ReservaStock> findVigentesByPedido(@Param("idPedido") Long idPedido);
+
+    /**
+     * ✅ Marca una reserva como liberada solo si aún no lo estaba.
+     * Devuelve 0 si otra transacción ya la liberó (evita devolver stock dos veces).
+     */
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.liberada = true, r.fechaLiberacion = :fecha " +
+            "WHERE r.idReservaStock = :idReserva AND r.liberada = false")
+    int marcarLiberada(@Param("idReserva") Long idReserva, @Param("fecha") LocalDateTime fecha);
+}
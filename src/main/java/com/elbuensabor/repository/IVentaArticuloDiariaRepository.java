@@ -0,0 +1,76 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.dto.response.reporte.RankingVentaResponse;
+import com.elbuensabor.entities.VentaArticuloDiaria;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IVentaArticuloDiariaRepository extends JpaRepository<VentaArticuloDiaria, Long> {
+
+    /**
+     * Elimina los acumulados de un día
+     */
+    @Modifying
+    @Query("DELETE FROM VentaArticuloDiaria v WHERE v.fecha = :fecha")
+    int eliminarDia(@Param("fecha") LocalDate fecha);
+
+    // ==================== RANKINGS ====================
+    // Suman los acumulados diarios del rango [desde, hasta]; el Pageable solo
+    // limita la cantidad (top-K).
+
+    /**
+     * Artículos más vendidos por unidades
+     */
+    @Query("SELECT new com.elbuensabor.dto.response.reporte.RankingVentaResponse(" +
+            "a.idArticulo, a.denominacion, SUM(v.unidades), SUM(v.ingresos), SUM(v.descuentos), " +
+            "SUM(v.costo), SUM(v.ingresos - v.costo)) " +
+            "FROM VentaArticuloDiaria v JOIN v.articulo a " +
+            "WHERE v.fecha BETWEEN :desde AND :hasta " +
+            "GROUP BY a.idArticulo, a.denominacion ORDER BY SUM(v.unidades) DESC")
+    List<RankingVentaResponse> rankingArticulosPorUnidades(@Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta, Pageable limite);
+
+    /**
+     * Artículos con mayor margen (ingresos - costo)
+     */
+    @Query("SELECT new com.elbuensabor.dto.response.reporte.RankingVentaResponse(" +
+            "a.idArticulo, a.denominacion, SUM(v.unidades), SUM(v.ingresos), SUM(v.descuentos), " +
+            "SUM(v.costo), SUM(v.ingresos - v.costo)) " +
+            "FROM VentaArticuloDiaria v JOIN v.articulo a " +
+            "WHERE v.fecha BETWEEN :desde AND :hasta " +
+            "GROUP BY a.idArticulo, a.denominacion ORDER BY SUM(v.ingresos - v.costo) DESC")
+    List<RankingVentaResponse> rankingArticulosPorMargen(@Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta, Pageable limite);
+
+    /**
+     * Categorías más vendidas por unidades
+     */
+    @Query("SELECT new com.elbuensabor.dto.response.reporte.RankingVentaResponse(" +
+            "c.idCategoria, c.denominacion, SUM(v.unidades), SUM(v.ingresos), SUM(v.descuentos), " +
+            "SUM(v.costo), SUM(v.ingresos - v.costo)) " +
+            "FROM VentaArticuloDiaria v JOIN v.categoria c " +
+            "WHERE v.fecha BETWEEN :desde AND :hasta " +
+            "GROUP BY c.idCategoria, c.denominacion ORDER BY SUM(v.unidades) DESC")
+    List<RankingVentaResponse> rankingCategoriasPorUnidades(@Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta, Pageable limite);
+
+    /**
+     * Categorías con mayor margen (ingresos - costo)
+     */
+    @Query("SELECT new com.elbuensabor.dto.response.reporte.RankingVentaResponse(" +
+            "c.idCategoria, c.denominacion, SUM(v.unidades), SUM(v.ingresos), SUM(v.descuentos), " +
+            "SUM(v.costo), SUM(v.ingresos - v.costo)) " +
+            "FROM VentaArticuloDiaria v JOIN v.categoria c " +
+            "WHERE v.fecha BETWEEN :desde AND :hasta " +
+            "GROUP BY c.idCategoria, c.denominacion ORDER BY SUM(v.ingresos - v.costo) DESC")
+    List<RankingVentaResponse> rankingCategoriasPorMargen(@Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta, Pageable limite);
+}
@@ -0,0 +1,80 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.VentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IVentaDiariaRepository extends JpaRepository<VentaDiaria, Long> {
+
+    /**
+     * ✅ Suma los deltas al acumulado del día (lo crea si no existe).
+     * Un único INSERT ... ON DUPLICATE KEY UPDATE: atómico ante pedidos concurrentes.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO venta_diaria (fecha, forma_pago, tipo_envio, cantidad_pedidos, " +
+            "cantidad_cancelados, cantidad_entregados, total, total_costo, descuentos) " +
+            "VALUES (:fecha, :formaPago, :tipoEnvio, :pedidos, :cancelados, :entregados, :total, :costo, :descuentos) " +
+            "ON DUPLICATE KEY UPDATE cantidad_pedidos = cantidad_pedidos + VALUES(cantidad_pedidos), " +
+            "cantidad_cancelados = cantidad_cancelados + VALUES(cantidad_cancelados), " +
+            "cantidad_entregados = cantidad_entregados + VALUES(cantidad_entregados), " +
+            "total = total + VALUES(total), " +
+            "total_costo = total_costo + VALUES(total_costo), " +
+            "descuentos = descuentos + VALUES(descuentos)", nativeQuery = true)
+    int acumular(@Param("fecha") LocalDate fecha,
+            @Param("formaPago") String formaPago,
+            @Param("tipoEnvio") String tipoEnvio,
+            @Param("pedidos") long pedidos,
+            @Param("cancelados") long cancelados,
+            @Param("entregados") long entregados,
+            @Param("total") double total,
+            @Param("costo") double costo,
+            @Param("descuentos") double descuentos);
+
+    /**
+     * Elimina los acumulados de un rango de días [desde, hasta)
+     */
+    @Modifying
+    @Query("DELETE FROM VentaDiaria v WHERE v.fecha >= :desde AND v.fecha < :hasta")
+    int eliminarEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * ✅ Recalcula los acumulados de [desde, hasta) desde pedido y
+     * pedido_archivo. Filtra por rango sobre fecha (usa el índice); el DATE()
+     * queda solo en el GROUP BY.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO venta_diaria (fecha, forma_pago, tipo_envio, cantidad_pedidos, " +
+            "cantidad_cancelados, cantidad_entregados, total, total_costo, descuentos) " +
+            "SELECT DATE(p.fecha), p.forma_pago, p.tipo_envio, COUNT(*), " +
+            "SUM(CASE WHEN p.estado = 'CANCELADO' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.estado = 'ENTREGADO' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.estado <> 'CANCELADO' THEN p.total ELSE 0 END), " +
+            "SUM(CASE WHEN p.estado <> 'CANCELADO' THEN p.total_costo ELSE 0 END), " +
+            "SUM(CASE WHEN p.estado <> 'CANCELADO' THEN COALESCE(p.descuentos, 0) ELSE 0 END) " +
+            "FROM (" +
+            "   SELECT p1.fecha, p1.forma_pago, p1.tipo_envio, p1.estado, p1.total, p1.total_costo, " +
+            "   (SELECT SUM(d1.descuento_promocion) FROM detalle_pedido d1 WHERE d1.id_pedido = p1.id_pedido) " +
+            "   AS descuentos FROM pedido p1 WHERE p1.fecha >= :desde AND p1.fecha < :hasta " +
+            "   UNION ALL " +
+            "   SELECT p2.fecha, p2.forma_pago, p2.tipo_envio, p2.estado, p2.total, p2.total_costo, " +
+            "   (SELECT SUM(d2.descuento_promocion) FROM detalle_pedido_archivo d2 WHERE d2.id_pedido = p2.id_pedido) " +
+            "   AS descuentos FROM pedido_archivo p2 WHERE p2.fecha >= :desde AND p2.fecha < :hasta" +
+            ") p " +
+            "GROUP BY DATE(p.fecha), p.forma_pago, p.tipo_envio", nativeQuery = true)
+    int reconstruirEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Acumulados de un rango de días [desde, hasta), más recientes primero
+     */
+    @Query("SELECT v FROM VentaDiaria v WHERE v.fecha >= :desde AND v.fecha < :hasta " +
+            "ORDER BY v.fecha DESC, v.formaPago, v.tipoEnvio")
+    List<VentaDiaria> findEntreFechas(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
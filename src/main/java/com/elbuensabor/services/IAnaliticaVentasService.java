@@ -0,0 +1,40 @@
+package com.elbuensabor.services;
+
+import com.elbuensabor.dto.response.reporte.RankingVentaResponse;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.events.TipoEventoPedido;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface IAnaliticaVentasService {
+
+    enum CriterioRanking {
+        UNIDADES,
+        MARGEN
+    }
+
+    /**
+     * Aplica el alta o la cancelación del pedido a los acumulados por artículo
+     * de su día, en la transacción actual.
+     */
+    void registrar(TipoEventoPedido tipo, Pedido pedido);
+
+    /**
+     * Recalcula desde pedido los acumulados por artículo entre dos días,
+     * ambos inclusive. Devuelve la cantidad de filas generadas.
+     */
+    int reconstruir(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Top-K de artículos entre dos días, ambos inclusive
+     */
+    List<RankingVentaResponse> rankingArticulos(LocalDate desde, LocalDate hasta, CriterioRanking criterio,
+            int limite);
+
+    /**
+     * Top-K de categorías entre dos días, ambos inclusive
+     */
+    List<RankingVentaResponse> rankingCategorias(LocalDate desde, LocalDate hasta, CriterioRanking criterio,
+            int limite);
+}
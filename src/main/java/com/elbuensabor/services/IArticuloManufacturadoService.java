@@ -1,6 +1,7 @@
 package com.elbuensabor.services;
 
 import com.elbuensabor.dto.request.ArticuloManufacturadoRequestDTO;
+import com.elbuensabor.dto.request.PreparacionRequestDTO;
 import com.elbuensabor.dto.response.ArticuloManufacturadoResponseDTO;
 import java.util.List;
 
@@ -74,4 +75,13 @@ public interface IArticuloManufacturadoService {
      * @return El DTO del producto preparado.
      */
     ArticuloManufacturadoResponseDTO preparar(Long id, Integer cantidad);
+
+    /**
+     * Prepara varios productos en una sola transacción (todo o nada). El
+     * consumo se agrega por insumo y se descuenta una vez por insumo.
+     * 
+     * @param preparaciones Productos y cantidades a preparar.
+     * @return Los DTOs de los productos preparados, en el orden recibido.
+     */
+    List<ArticuloManufacturadoResponseDTO> prepararLote(List<PreparacionRequestDTO> preparaciones);
 }
\ No newline at end of file
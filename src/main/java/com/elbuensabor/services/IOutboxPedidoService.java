@@ -0,0 +1,19 @@
+package com.elbuensabor.services;
+
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.events.TipoEventoPedido;
+
+public interface IOutboxPedidoService {
+
+    /**
+     * Registra la notificación del evento en la transacción actual del pedido.
+     * Solo se envía si esa transacción confirma.
+     */
+    void registrar(TipoEventoPedido tipo, Pedido pedido, Integer minutosExtension);
+
+    /**
+     * Envía por WebSocket un lote de notificaciones pendientes.
+     * Devuelve la cantidad despachada.
+     */
+    int despacharPendientes();
+}
@@ -28,6 +28,16 @@ public interface IPedidoService {
      */
     List<PedidoResponse> listarPedidosPorEstado(String estado);
 
+    /**
+     * Obtiene una página de todos los pedidos a partir del cursor (ADMIN)
+     */
+    PaginaPedidosResponse<PedidoResponse> listarTodosPedidosPaginado(String cursor, int tamanio);
+
+    /**
+     * Obtiene una página de pedidos de un estado a partir del cursor (ADMIN/CAJERO)
+     */
+    PaginaPedidosResponse<PedidoResponse> listarPedidosPorEstadoPaginado(String estado, String cursor, int tamanio);
+
     /**
      * Obtiene pedidos del día actual (CAJERO)
      */
@@ -38,6 +48,11 @@ public interface IPedidoService {
      */
     List<PedidoResponse> listarPedidosPorFecha(LocalDate fecha);
 
+    /**
+     * Obtiene una página de pedidos de una fecha a partir del cursor (ADMIN/CAJERO)
+     */
+    PaginaPedidosResponse<PedidoResponse> listarPedidosPorFechaPaginado(LocalDate fecha, String cursor, int tamanio);
+
     /**
      * Obtiene pedidos en preparación o pendientes (COCINERO)
      */
@@ -105,6 +120,13 @@ public interface IPedidoService {
      */
     PedidoResponse asignarDelivery(AsignarDeliveryRequest request, Usuario usuarioAutenticado);
 
+    /**
+     * Asigna al delivery, en una transacción, los pedidos que sigan LISTO y
+     * sin asignar (despacho automático, un recorrido). Devuelve los IDs
+     * efectivamente asignados.
+     */
+    List<Long> asignarDeliverySiLibre(List<Long> idsPedidos, Long idUsuarioDelivery);
+
     // ==================== VALIDACIONES ====================
 
     /**
@@ -0,0 +1,17 @@
+package com.elbuensabor.services;
+
+import com.elbuensabor.entities.Pedido;
+
+public interface IStockReservaService {
+
+    /**
+     * Descompone el pedido en cantidades por insumo y las reserva atómicamente.
+     * Lanza IllegalArgumentException si algún insumo no tiene stock suficiente.
+     */
+    void reservarStock(Pedido pedido);
+
+    /**
+     * Devuelve al stock las reservas vigentes del pedido (al cancelarlo)
+     */
+    void liberarReservas(Pedido pedido);
+}
@@ -0,0 +1,28 @@
+package com.elbuensabor.services;
+
+import com.elbuensabor.dto.response.reporte.VentaDiariaResponse;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.events.TipoEventoPedido;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface IVentaDiariaService {
+
+    /**
+     * Aplica el evento del pedido (creación, cancelación o entrega) al
+     * acumulado de su día, en la transacción actual.
+     */
+    void registrar(TipoEventoPedido tipo, Pedido pedido);
+
+    /**
+     * Recalcula desde pedido los acumulados entre dos días, ambos inclusive.
+     * Devuelve la cantidad de filas generadas.
+     */
+    int reconstruir(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Acumulados entre dos días, ambos inclusive, más recientes primero
+     */
+    List<VentaDiariaResponse> listarVentasDiarias(LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,139 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.EstadoStock;
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Alertas por cambio de estado de stock de los insumos.
+ *
+ * Guarda el último estado conocido de cada insumo. Cuando una transacción que
+ * movió stock confirma, se releen solo esos insumos y cada cambio de estado
+ * (ALTO -> NORMAL -> BAJO -> CRITICO y viceversa) se publica en
+ * /topic/stock/alertas. Los estados se calculan en la base con los mismos
+ * umbrales que EstadoStock.calcular, así que acá solo se comparan.
+ */
+@Service
+public class AlertasStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertasStockService.class);
+
+    @Autowired
+    private IArticuloInsumoRepository insumoRepository;
+
+    @Autowired
+    private WebSocketNotificationService notificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Map<Long, EstadoStock> estados = Map.of();
+
+    /** Serializa a los escritores; los lectores usan el mapa publicado. */
+    private final Object escritura = new Object();
+
+    private Counter alertas;
+
+    @PostConstruct
+    void registrarMetricas() {
+        alertas = Counter.builder("stock.alertas")
+                .description("Cambios de estado de stock notificados")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compara el estado de los insumos dados cuando confirma la transacción
+     * actual (o en el momento, si no hay una)
+     */
+    public void verificarAlConfirmar(Collection<Long> idsInsumos) {
+        Set<Long> ids = new HashSet<>(idsInsumos);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    verificar(ids);
+                }
+            });
+        } else {
+            verificar(ids);
+        }
+    }
+
+    /**
+     * Carga el estado actual de todos los insumos sin notificar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recargar() {
+        Map<Long, EstadoStock> nuevos = new HashMap<>();
+        for (Object[] fila : insumoRepository.findEstadosStock()) {
+            nuevos.put((Long) fila[0], estadoDe(fila[1]));
+        }
+        synchronized (escritura) {
+            estados = Map.copyOf(nuevos);
+        }
+        log.info("📦 Alertas de stock: {} insumos cargados", nuevos.size());
+    }
+
+    private void verificar(Set<Long> ids) {
+        List<Object[]> filas;
+        try {
+            filas = insumoRepository.findEstadosStockByIdIn(ids);
+        } catch (RuntimeException e) {
+            log.error("❌ Error leyendo estado de stock de {}: {}", ids, e.getMessage());
+            return;
+        }
+
+        List<Object[]> cambios = new ArrayList<>();
+        synchronized (escritura) {
+            Map<Long, EstadoStock> nuevos = new HashMap<>(estados);
+            // Los que no vuelven se dieron de baja
+            nuevos.keySet().removeAll(ids);
+            for (Object[] fila : filas) {
+                Long id = (Long) fila[0];
+                EstadoStock nuevo = estadoDe(fila[2]);
+                EstadoStock anterior = estados.get(id);
+                nuevos.put(id, nuevo);
+                // Un insumo nuevo se registra sin alerta
+                if (anterior != null && anterior != nuevo) {
+                    cambios.add(new Object[]{fila, anterior, nuevo});
+                }
+            }
+            estados = Map.copyOf(nuevos);
+        }
+
+        for (Object[] cambio : cambios) {
+            Object[] fila = (Object[]) cambio[0];
+            EstadoStock anterior = (EstadoStock) cambio[1];
+            EstadoStock nuevo = (EstadoStock) cambio[2];
+            double stockActual = fila[3] != null ? (Double) fila[3] : 0.0;
+            double stockMaximo = fila[4] != null ? (Double) fila[4] : 0.0;
+
+            notificationService.notificarAlertaStock((Long) fila[0], (String) fila[1],
+                    anterior.name(), nuevo.name(), stockActual, stockMaximo, nuevo.peorQue(anterior));
+            alertas.increment();
+        }
+    }
+
+    private static EstadoStock estadoDe(Object valor) {
+        if (valor == null) {
+            return EstadoStock.CRITICO;
+        }
+        return valor instanceof EstadoStock e ? e : EstadoStock.valueOf(valor.toString());
+    }
+}
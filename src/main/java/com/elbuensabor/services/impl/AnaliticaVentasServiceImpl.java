@@ -0,0 +1,389 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.reporte.RankingVentaResponse;
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ComponenteComboVendido;
+import com.elbuensabor.entities.DetallePedido;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.entities.PromocionDetalle;
+import com.elbuensabor.events.TipoEventoPedido;
+import com.elbuensabor.repository.IArticuloRepository;
+import com.elbuensabor.repository.IComponenteComboVendidoRepository;
+import com.elbuensabor.repository.IPedidoRepository;
+import com.elbuensabor.repository.IPromocionRepository;
+import com.elbuensabor.repository.IVentaArticuloDiariaRepository;
+import com.elbuensabor.services.IAnaliticaVentasService;
+import com.elbuensabor.services.impl.ListaPreciosService.PrecioArticulo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Analítica de ventas por artículo y categoría (venta_articulo_diaria).
+ *
+ * Cada alta de pedido suma, y cada cancelación resta, sus renglones en el
+ * acumulado del día del pedido, dentro de la misma transacción. Los combos se
+ * desglosan en sus artículos: unidades exactas, ingresos y descuentos
+ * prorrateados por precio de lista y costo prorrateado por costo de cada
+ * artículo. El desglose se guarda al crear el pedido (componente_combo_vendido)
+ * y la cancelación y la reconstrucción usan ese mismo desglose, así un cambio
+ * de precios o de composición del combo no deja saldos sueltos. Los
+ * acumulados de un pedido se escriben en un solo lote JDBC.
+ *
+ * Los rankings de un rango suman los acumulados diarios (a lo sumo una fila
+ * por artículo y día), así que incluyen el día en curso al instante.
+ */
+@Service
+public class AnaliticaVentasServiceImpl implements IAnaliticaVentasService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnaliticaVentasServiceImpl.class);
+
+    private static final int LIMITE_MAXIMO = 100;
+
+    private static final String ACUMULAR =
+            "INSERT INTO venta_articulo_diaria (fecha, id_articulo, id_categoria, unidades, " +
+                    "ingresos, descuentos, costo) " +
+                    "VALUES (:fecha, :idArticulo, :idCategoria, :unidades, :ingresos, :descuentos, :costo) " +
+                    "ON DUPLICATE KEY UPDATE id_categoria = VALUES(id_categoria), " +
+                    "unidades = unidades + VALUES(unidades), " +
+                    "ingresos = ingresos + VALUES(ingresos), " +
+                    "descuentos = descuentos + VALUES(descuentos), " +
+                    "costo = costo + VALUES(costo)";
+
+    /** Renglón vendido, venga de una entidad o de una fila de la reconstrucción */
+    private record Renglon(Long idDetalle, Articulo articulo, Promocion promocion, int cantidad, Double subtotal,
+            Double descuento, Double costo) {
+    }
+
+    /**
+     * Desgloses de combos: los guardados al crear los pedidos, por renglón, y
+     * los calculados ahora que todavía hay que guardar
+     */
+    private record Desgloses(Map<Long, List<ComponenteComboVendido>> guardados,
+            List<ComponenteComboVendido> nuevos) {
+    }
+
+    /** Acumulado de un artículo mientras se procesan los renglones */
+    private static final class Acumulado {
+        private final Long idCategoria;
+        private long unidades;
+        private double ingresos;
+        private double descuentos;
+        private double costo;
+
+        private Acumulado(Long idCategoria) {
+            this.idCategoria = idCategoria;
+        }
+    }
+
+    @Autowired
+    private IVentaArticuloDiariaRepository ventaArticuloRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private IPromocionRepository promocionRepository;
+
+    @Autowired
+    private IArticuloRepository articuloRepository;
+
+    @Autowired
+    private IComponenteComboVendidoRepository componenteComboRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ListaPreciosService listaPreciosService;
+
+    // ==================== MANTENIMIENTO ====================
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoPedido tipo, Pedido pedido) {
+        int signo = switch (tipo) {
+            case CREADO -> 1;
+            case CANCELADO -> -1;
+            default -> 0;
+        };
+        if (signo == 0) {
+            return;
+        }
+
+        List<Renglon> renglones = pedido.getDetalles().stream()
+                .map(detalle -> new Renglon(detalle.getIdDetallePedido(), detalle.getArticulo(),
+                        detalle.getPromocionAplicada(), detalle.getCantidad(), detalle.getSubtotal(),
+                        detalle.getDescuentoPromocion(), detalle.getCosto()))
+                .toList();
+        // Un alta todavía no tiene desglose guardado; una cancelación resta el del alta
+        Desgloses desgloses = signo > 0 ? new Desgloses(Map.of(), new ArrayList<>()) : cargarDesgloses(renglones);
+
+        Map<Long, Acumulado> acumulados = new HashMap<>();
+        for (Renglon renglon : renglones) {
+            acumular(renglon, acumulados, desgloses);
+        }
+        guardar(pedido.getFecha().toLocalDate(), acumulados, signo);
+        if (signo > 0) {
+            componenteComboRepository.saveAll(desgloses.nuevos());
+        }
+    }
+
+    @Override
+    @Transactional
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+
+        int filas = 0;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            filas += reconstruirDia(dia);
+        }
+
+        log.info("✅ venta_articulo_diaria reconstruida del {} al {}: {} filas", desde, hasta, filas);
+        return filas;
+    }
+
+    /**
+     * Un día por vez, desde las tablas operativas y el archivo: la memoria
+     * usada depende de los renglones de un día, no del rango
+     */
+    private int reconstruirDia(LocalDate dia) {
+        ventaArticuloRepository.eliminarDia(dia);
+
+        List<Object[]> filas = pedidoRepository.findRenglonesVendidosEntreFechas(
+                dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+        if (filas.isEmpty()) {
+            return 0;
+        }
+
+        // Artículos (subclase concreta) y combos con sus detalles, en una consulta cada uno
+        Map<Long, Articulo> articulos = articuloRepository.findAllByIdArticuloIn(
+                filas.stream().map(f -> ((Number) f[0]).longValue()).distinct().toList()).stream()
+                .collect(Collectors.toMap(Articulo::getIdArticulo, a -> a));
+        List<Long> idsPromociones = filas.stream()
+                .filter(f -> f[1] != null)
+                .map(f -> ((Number) f[1]).longValue())
+                .distinct()
+                .toList();
+        Map<Long, Promocion> promociones = idsPromociones.isEmpty() ? Map.of()
+                : promocionRepository.findAllConDetallesYArticulosByIdIn(idsPromociones).stream()
+                        .collect(Collectors.toMap(Promocion::getIdPromocion, p -> p));
+
+        List<Renglon> renglones = new ArrayList<>(filas.size());
+        for (Object[] f : filas) {
+            Articulo articulo = articulos.get(((Number) f[0]).longValue());
+            if (articulo == null) {
+                continue;
+            }
+            renglones.add(new Renglon(
+                    ((Number) f[6]).longValue(),
+                    articulo,
+                    f[1] != null ? promociones.get(((Number) f[1]).longValue()) : null,
+                    ((Number) f[2]).intValue(),
+                    f[3] != null ? ((Number) f[3]).doubleValue() : null,
+                    f[4] != null ? ((Number) f[4]).doubleValue() : null,
+                    f[5] != null ? ((Number) f[5]).doubleValue() : null));
+        }
+
+        // Los combos sin desglose guardado (pedidos anteriores al desglose) se
+        // prorratean con los precios actuales y se guardan para su cancelación
+        Desgloses desgloses = cargarDesgloses(renglones);
+        Map<Long, Acumulado> acumulados = new HashMap<>();
+        for (Renglon renglon : renglones) {
+            acumular(renglon, acumulados, desgloses);
+        }
+        guardar(dia, acumulados, 1);
+        componenteComboRepository.saveAll(desgloses.nuevos());
+        return acumulados.size();
+    }
+
+    /**
+     * Relleno inicial: solo si venta_articulo_diaria está vacía
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarSiVacia() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            if (ventaArticuloRepository.count() > 0) {
+                return;
+            }
+            LocalDateTime primerPedido = pedidoRepository.findFechaPrimerPedido();
+            if (primerPedido != null) {
+                log.info("🔁 venta_articulo_diaria vacía: rellenando desde {}", primerPedido.toLocalDate());
+                reconstruir(primerPedido.toLocalDate(), LocalDate.now());
+            }
+        });
+    }
+
+    /**
+     * Suma (o resta) los acumulados a sus filas del día, creándolas si no
+     * existen. Un solo lote JDBC.
+     */
+    private void guardar(LocalDate fecha, Map<Long, Acumulado> acumulados, int signo) {
+        if (acumulados.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = acumulados.entrySet().stream()
+                .map(e -> new MapSqlParameterSource("fecha", fecha)
+                        .addValue("idArticulo", e.getKey())
+                        .addValue("idCategoria", e.getValue().idCategoria)
+                        .addValue("unidades", signo * e.getValue().unidades)
+                        .addValue("ingresos", signo * e.getValue().ingresos)
+                        .addValue("descuentos", signo * e.getValue().descuentos)
+                        .addValue("costo", signo * e.getValue().costo))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate(ACUMULAR, lote);
+    }
+
+    // ==================== DESGLOSE DE RENGLONES ====================
+
+    private Desgloses cargarDesgloses(List<Renglon> renglones) {
+        List<Long> idsCombos = renglones.stream()
+                .filter(r -> r.promocion() != null && r.idDetalle() != null)
+                .map(Renglon::idDetalle)
+                .toList();
+        Map<Long, List<ComponenteComboVendido>> guardados = idsCombos.isEmpty() ? Map.of()
+                : componenteComboRepository.findByIdDetallePedidoIn(idsCombos).stream()
+                        .collect(Collectors.groupingBy(ComponenteComboVendido::getIdDetallePedido));
+        return new Desgloses(guardados, new ArrayList<>());
+    }
+
+    private void acumular(Renglon renglon, Map<Long, Acumulado> acumulados, Desgloses desgloses) {
+        List<ComponenteComboVendido> guardado = renglon.idDetalle() != null
+                ? desgloses.guardados().get(renglon.idDetalle())
+                : null;
+        if (guardado != null) {
+            for (ComponenteComboVendido c : guardado) {
+                sumar(acumulados, c.getIdArticulo(), c.getIdCategoria(), c.getUnidades(), c.getIngresos(),
+                        c.getDescuentos(), c.getCosto());
+            }
+            return;
+        }
+        if (renglon.promocion() != null && !renglon.promocion().getDetalles().isEmpty()) {
+            acumularCombo(renglon, acumulados, desgloses);
+            return;
+        }
+        double costo = renglon.costo() != null
+                ? renglon.costo()
+                : costoActual(renglon.articulo()) * renglon.cantidad();
+        sumar(acumulados, renglon.articulo().getIdArticulo(), renglon.articulo().getCategoria().getIdCategoria(),
+                renglon.cantidad(), valor(renglon.subtotal()), valor(renglon.descuento()), costo);
+    }
+
+    private void acumularCombo(Renglon renglon, Map<Long, Acumulado> acumulados, Desgloses desgloses) {
+        List<PromocionDetalle> componentes = renglon.promocion().getDetalles();
+
+        double precioLista = 0;
+        double costoLista = 0;
+        for (PromocionDetalle pd : componentes) {
+            precioLista += precioActual(pd.getArticulo()) * pd.getCantidad();
+            costoLista += costoActual(pd.getArticulo()) * pd.getCantidad();
+        }
+        // Costo del renglón guardado al crear el pedido; si no existe, el actual
+        double costoRenglon = renglon.costo() != null
+                ? renglon.costo()
+                : costoLista * renglon.cantidad();
+
+        for (PromocionDetalle pd : componentes) {
+            Articulo articulo = pd.getArticulo();
+            double pesoPrecio = precioLista > 0
+                    ? precioActual(articulo) * pd.getCantidad() / precioLista
+                    : 1.0 / componentes.size();
+            double pesoCosto = costoLista > 0
+                    ? costoActual(articulo) * pd.getCantidad() / costoLista
+                    : pesoPrecio;
+
+            ComponenteComboVendido componente = new ComponenteComboVendido(null, renglon.idDetalle(),
+                    articulo.getIdArticulo(), articulo.getCategoria().getIdCategoria(),
+                    (long) pd.getCantidad() * renglon.cantidad(),
+                    valor(renglon.subtotal()) * pesoPrecio,
+                    valor(renglon.descuento()) * pesoPrecio,
+                    costoRenglon * pesoCosto);
+            sumar(acumulados, componente.getIdArticulo(), componente.getIdCategoria(), componente.getUnidades(),
+                    componente.getIngresos(), componente.getDescuentos(), componente.getCosto());
+            if (renglon.idDetalle() != null) {
+                desgloses.nuevos().add(componente);
+            }
+        }
+    }
+
+    private void sumar(Map<Long, Acumulado> acumulados, Long idArticulo, Long idCategoria, long unidades,
+            double ingresos, double descuentos, double costo) {
+        Acumulado a = acumulados.computeIfAbsent(idArticulo, id -> new Acumulado(idCategoria));
+        a.unidades += unidades;
+        a.ingresos += ingresos;
+        a.descuentos += descuentos;
+        a.costo += costo;
+    }
+
+    private double costoActual(Articulo articulo) {
+        PrecioArticulo precio = listaPreciosService.obtener(articulo.getIdArticulo());
+        return precio != null ? precio.costo() : 0.0;
+    }
+
+    private double precioActual(Articulo articulo) {
+        return valor(listaPreciosService.precioVenta(articulo.getIdArticulo(), articulo.getPrecioVenta()));
+    }
+
+    private double valor(Double monto) {
+        return monto != null ? monto : 0.0;
+    }
+
+    // ==================== RANKINGS ====================
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RankingVentaResponse> rankingArticulos(LocalDate desde, LocalDate hasta, CriterioRanking criterio,
+            int limite) {
+        Pageable topK = validar(desde, hasta, limite);
+        return criterio == CriterioRanking.MARGEN
+                ? ventaArticuloRepository.rankingArticulosPorMargen(desde, hasta, topK)
+                : ventaArticuloRepository.rankingArticulosPorUnidades(desde, hasta, topK);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RankingVentaResponse> rankingCategorias(LocalDate desde, LocalDate hasta, CriterioRanking criterio,
+            int limite) {
+        Pageable topK = validar(desde, hasta, limite);
+        return criterio == CriterioRanking.MARGEN
+                ? ventaArticuloRepository.rankingCategoriasPorMargen(desde, hasta, topK)
+                : ventaArticuloRepository.rankingCategoriasPorUnidades(desde, hasta, topK);
+    }
+
+    private Pageable validar(LocalDate desde, LocalDate hasta, int limite) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser mayor a 0");
+        }
+        return PageRequest.of(0, Math.min(limite, LIMITE_MAXIMO));
+    }
+}
@@ -0,0 +1,381 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.pedido.DetallePedidoResponse;
+import com.elbuensabor.dto.response.pedido.PedidoClienteResponse;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.FormaPago;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.repository.IPedidoRepository.FilaExportacion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Archivo de pedidos terminados (tablas frías).
+ *
+ * Los pedidos ENTREGADO o CANCELADO hace más de app.archivo.dias días se
+ * mueven, junto con sus renglones, reservas de stock y factura (con pagos y
+ * datos de MercadoPago), a tablas *_archivo con el mismo esquema. Cada lote
+ * es un INSERT ... SELECT + DELETE en una transacción corta, así las tablas
+ * operativas quedan con los pedidos activos y recientes.
+ *
+ * Las tablas de archivo se crean con CREATE TABLE ... LIKE y al iniciar se les
+ * agregan las columnas nuevas de la tabla original. No tienen claves foráneas.
+ *
+ * Lecturas que cruzan ambos almacenes: historial del cliente y exportación
+ * (este servicio) y reconstrucción de los acumulados de ventas (consultas
+ * UNION ALL en los repositorios). Los acumulados en sí no se tocan al archivar.
+ */
+@Service
+public class ArchivoPedidosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoPedidosService.class);
+
+    private static final String SUFIJO = "_archivo";
+
+    /** Tabla a archivar y la condición que selecciona sus filas del lote */
+    private record Tabla(String nombre, String condicion) {
+    }
+
+    // Orden de copia: padres primero; el borrado va en orden inverso
+    private static final List<Tabla> TABLAS = List.of(
+            new Tabla("pedido", "id_pedido IN (:pedidos)"),
+            new Tabla("detalle_pedido", "id_pedido IN (:pedidos)"),
+            new Tabla("reserva_stock", "id_pedido IN (:pedidos)"),
+            new Tabla("factura", "id_factura IN (:facturas)"),
+            new Tabla("pagos", "id_pago IN (:pagos)"),
+            new Tabla("datos_mercado_pago", "id_pago IN (:pagos)"));
+
+    @Value("${app.archivo.dias:90}")
+    private int diasRetencion;
+
+    @Value("${app.archivo.lote:500}")
+    private int tamanioLote;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Columnas de cada tabla operativa (lista explícita para INSERT ... SELECT)
+    private final Map<String, String> columnas = new HashMap<>();
+
+    private volatile boolean preparado;
+    private Counter archivados;
+
+    // Lecturas fila por fila (MySQL: fetch size Integer.MIN_VALUE)
+    private NamedParameterJdbcTemplate jdbcStreaming;
+
+    @PostConstruct
+    void inicializar() {
+        archivados = Counter.builder("pedidos.archivados")
+                .description("Pedidos movidos a las tablas de archivo")
+                .register(meterRegistry);
+
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(Integer.MIN_VALUE);
+        jdbcStreaming = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    // ==================== ESQUEMA ====================
+
+    /**
+     * Crea las tablas de archivo que falten y agrega las columnas nuevas de
+     * las tablas operativas. Corre antes que las reconstrucciones que leen de
+     * ambos almacenes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void prepararTablas() {
+        for (Tabla tabla : TABLAS) {
+            String archivo = tabla.nombre() + SUFIJO;
+            jdbc.getJdbcOperations().execute("CREATE TABLE IF NOT EXISTS " + archivo + " LIKE " + tabla.nombre());
+
+            List<Map<String, Object>> faltantes = jdbc.queryForList(
+                    "SELECT c.COLUMN_NAME, c.COLUMN_TYPE FROM information_schema.COLUMNS c " +
+                            "WHERE c.TABLE_SCHEMA = DATABASE() AND c.TABLE_NAME = :tabla " +
+                            "AND NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS a " +
+                            "   WHERE a.TABLE_SCHEMA = DATABASE() AND a.TABLE_NAME = :archivo " +
+                            "   AND a.COLUMN_NAME = c.COLUMN_NAME) " +
+                            "ORDER BY c.ORDINAL_POSITION",
+                    new MapSqlParameterSource("tabla", tabla.nombre()).addValue("archivo", archivo));
+            for (Map<String, Object> columna : faltantes) {
+                jdbc.getJdbcOperations().execute("ALTER TABLE " + archivo + " ADD COLUMN `"
+                        + columna.get("COLUMN_NAME") + "` " + columna.get("COLUMN_TYPE") + " NULL");
+                log.info("🔁 {}: columna {} agregada", archivo, columna.get("COLUMN_NAME"));
+            }
+
+            List<String> nombres = jdbc.queryForList(
+                    "SELECT COLUMN_NAME FROM information_schema.COLUMNS " +
+                            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :tabla ORDER BY ORDINAL_POSITION",
+                    new MapSqlParameterSource("tabla", tabla.nombre()), String.class);
+            columnas.put(tabla.nombre(), nombres.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", ")));
+        }
+
+        preparado = true;
+        log.info("✅ Tablas de archivo de pedidos listas");
+    }
+
+    // ==================== ARCHIVADO ====================
+
+    /**
+     * Mueve los pedidos terminados hace más de diasRetencion días, lote por
+     * lote, hasta que no quede ninguno. Devuelve la cantidad archivada.
+     */
+    @Scheduled(cron = "${app.archivo.cron:0 0 3 * * *}")
+    public int archivar() {
+        if (!preparado) {
+            log.warn("⚠️ Archivo de pedidos: tablas no preparadas, se omite la ejecución");
+            return 0;
+        }
+
+        LocalDateTime limite = LocalDateTime.now().minusDays(diasRetencion);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int total = 0;
+        int movidos;
+
+        do {
+            movidos = tx.execute(status -> archivarLote(limite));
+            total += movidos;
+        } while (movidos == tamanioLote);
+
+        if (total > 0) {
+            archivados.increment(total);
+            log.info("✅ Archivo de pedidos: {} pedidos terminados antes de {} archivados", total, limite);
+        }
+        return total;
+    }
+
+    private int archivarLote(LocalDateTime limite) {
+        // fecha < limite acota por el índice (estado, fecha, id_pedido)
+        List<Long> pedidos = jdbc.queryForList(
+                "SELECT id_pedido FROM pedido WHERE estado IN ('ENTREGADO', 'CANCELADO') " +
+                        "AND fecha < :limite AND COALESCE(fecha_entregado, fecha_cancelado, fecha) < :limite " +
+                        "LIMIT :lote FOR UPDATE",
+                new MapSqlParameterSource("limite", limite).addValue("lote", tamanioLote), Long.class);
+        if (pedidos.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource("pedidos", pedidos);
+        List<Long> facturas = jdbc.queryForList(
+                "SELECT id_factura FROM factura WHERE id_pedido IN (:pedidos)", parametros, Long.class);
+        List<Long> pagos = facturas.isEmpty() ? List.of() : jdbc.queryForList(
+                "SELECT id_pago FROM pagos WHERE id_factura IN (:facturas)",
+                new MapSqlParameterSource("facturas", facturas), Long.class);
+        parametros.addValue("facturas", facturas).addValue("pagos", pagos);
+
+        for (Tabla tabla : TABLAS) {
+            if (!vacia(tabla, facturas, pagos)) {
+                String cols = columnas.get(tabla.nombre());
+                jdbc.update("INSERT INTO " + tabla.nombre() + SUFIJO + " (" + cols + ") SELECT " + cols
+                        + " FROM " + tabla.nombre() + " WHERE " + tabla.condicion(), parametros);
+            }
+        }
+        for (int i = TABLAS.size() - 1; i >= 0; i--) {
+            Tabla tabla = TABLAS.get(i);
+            if (!vacia(tabla, facturas, pagos)) {
+                jdbc.update("DELETE FROM " + tabla.nombre() + " WHERE " + tabla.condicion(), parametros);
+            }
+        }
+
+        log.debug("📦 Lote archivado: {} pedidos, {} facturas", pedidos.size(), facturas.size());
+        return pedidos.size();
+    }
+
+    // IN () vacío no es SQL válido
+    private boolean vacia(Tabla tabla, Collection<Long> facturas, Collection<Long> pagos) {
+        return (tabla.condicion().contains(":facturas") && facturas.isEmpty())
+                || (tabla.condicion().contains(":pagos") && pagos.isEmpty());
+    }
+
+    // ==================== LECTURAS DEL ARCHIVO ====================
+
+    /**
+     * Pedidos archivados de un cliente, más recientes primero
+     */
+    public List<PedidoClienteResponse> listarPedidosCliente(Long idCliente) {
+        if (!preparado) {
+            return List.of();
+        }
+
+        List<PedidoClienteResponse> pedidos = jdbc.query(
+                "SELECT p.id_pedido, p.fecha, p.estado, p.total, p.tipo_envio, p.forma_pago, p.pago_confirmado, " +
+                        "p.hora_estimada_finalizacion, p.observaciones, p.motivo_cancelacion, " +
+                        "ud.nombre AS nombre_delivery, ud.apellido AS apellido_delivery " +
+                        "FROM pedido_archivo p LEFT JOIN usuario ud ON ud.id_usuario = p.id_usuario_delivery " +
+                        "WHERE p.id_cliente = :idCliente ORDER BY p.fecha DESC, p.id_pedido DESC",
+                new MapSqlParameterSource("idCliente", idCliente),
+                (rs, i) -> new PedidoClienteResponse(
+                        rs.getLong("id_pedido"),
+                        rs.getObject("fecha", LocalDateTime.class),
+                        Estado.valueOf(rs.getString("estado")),
+                        new ArrayList<>(),
+                        rs.getDouble("total"),
+                        0.0,
+                        TipoEnvio.valueOf(rs.getString("tipo_envio")),
+                        FormaPago.valueOf(rs.getString("forma_pago")),
+                        rs.getBoolean("pago_confirmado"),
+                        rs.getObject("hora_estimada_finalizacion", LocalTime.class),
+                        rs.getString("nombre_delivery") != null
+                                ? rs.getString("nombre_delivery") + " " + rs.getString("apellido_delivery")
+                                : null,
+                        rs.getString("observaciones"),
+                        rs.getString("motivo_cancelacion")));
+        if (pedidos.isEmpty()) {
+            return pedidos;
+        }
+
+        Map<Long, PedidoClienteResponse> porId = pedidos.stream()
+                .collect(Collectors.toMap(PedidoClienteResponse::getIdPedido, p -> p));
+        jdbc.query(
+                "SELECT d.id_pedido, d.id_detalle_pedido, d.id_articulo, a.denominacion AS articulo, d.cantidad, " +
+                        "d.precio_unitario_original, d.descuento_promocion, d.subtotal, d.id_promocion, " +
+                        "pr.denominacion AS promocion, d.observaciones " +
+                        "FROM detalle_pedido_archivo d " +
+                        "LEFT JOIN articulo a ON a.id_articulo = d.id_articulo " +
+                        "LEFT JOIN promocion pr ON pr.id_promocion = d.id_promocion " +
+                        "WHERE d.id_pedido IN (:pedidos) ORDER BY d.id_detalle_pedido",
+                new MapSqlParameterSource("pedidos", porId.keySet()),
+                rs -> {
+                    PedidoClienteResponse pedido = porId.get(rs.getLong("id_pedido"));
+                    DetallePedidoResponse detalle = detalle(rs);
+                    pedido.getDetalles().add(detalle);
+                    pedido.setTotalDescuentos(pedido.getTotalDescuentos() + detalle.getDescuentoPromocion());
+                });
+
+        return pedidos;
+    }
+
+    private DetallePedidoResponse detalle(ResultSet rs) throws SQLException {
+        int cantidad = rs.getInt("cantidad");
+        double precioOriginal = rs.getDouble("precio_unitario_original");
+        double descuento = rs.getDouble("descuento_promocion");
+        Long idPromocion = rs.getObject("id_promocion", Long.class);
+
+        return DetallePedidoResponse.builder()
+                .idDetallePedido(rs.getLong("id_detalle_pedido"))
+                .idArticulo(rs.getLong("id_articulo"))
+                .nombreArticulo(rs.getString("articulo"))
+                .cantidad(cantidad)
+                .precioUnitarioOriginal(precioOriginal)
+                .descuentoPromocion(descuento)
+                .precioUnitarioFinal(precioOriginal - descuento / cantidad)
+                .subtotal(rs.getDouble("subtotal"))
+                .idPromocion(idPromocion)
+                .nombrePromocion(idPromocion != null ? rs.getString("promocion") : null)
+                .articulosCombo(List.of())
+                .observaciones(rs.getString("observaciones"))
+                .build();
+    }
+
+    /**
+     * Recorre fila por fila los pedidos archivados de [desde, hasta) con sus
+     * renglones, con el mismo formato que IPedidoRepository.streamParaExportacion.
+     * Usa la conexión de la transacción actual si la hay.
+     */
+    public void recorrerParaExportacion(LocalDateTime desde, LocalDateTime hasta, Consumer<FilaExportacion> consumidor) {
+        if (!preparado) {
+            return;
+        }
+
+        jdbcStreaming.query(
+                "SELECT p.id_pedido, p.fecha, p.estado, p.tipo_envio, p.forma_pago, p.pago_confirmado, p.total, " +
+                        "p.total_costo, u.nombre, u.apellido, u.email, d.id_detalle_pedido, d.id_articulo, " +
+                        "a.denominacion AS articulo, d.cantidad, d.precio_unitario_original, " +
+                        "d.descuento_promocion, d.subtotal, pr.denominacion AS promocion " +
+                        "FROM pedido_archivo p " +
+                        "JOIN cliente c ON c.id_cliente = p.id_cliente " +
+                        "JOIN usuario u ON u.id_usuario = c.id_usuario " +
+                        "LEFT JOIN detalle_pedido_archivo d ON d.id_pedido = p.id_pedido " +
+                        "LEFT JOIN articulo a ON a.id_articulo = d.id_articulo " +
+                        "LEFT JOIN promocion pr ON pr.id_promocion = d.id_promocion " +
+                        "WHERE p.fecha >= :desde AND p.fecha < :hasta " +
+                        "ORDER BY p.fecha ASC, p.id_pedido ASC, d.id_detalle_pedido ASC",
+                new MapSqlParameterSource("desde", desde).addValue("hasta", hasta),
+                rs -> {
+                    consumidor.accept(new FilaArchivo(
+                            rs.getLong("id_pedido"),
+                            rs.getObject("fecha", LocalDateTime.class),
+                            Estado.valueOf(rs.getString("estado")),
+                            TipoEnvio.valueOf(rs.getString("tipo_envio")),
+                            FormaPago.valueOf(rs.getString("forma_pago")),
+                            rs.getBoolean("pago_confirmado"),
+                            rs.getDouble("total"),
+                            rs.getObject("total_costo", Double.class),
+                            rs.getString("nombre"),
+                            rs.getString("apellido"),
+                            rs.getString("email"),
+                            rs.getObject("id_detalle_pedido", Long.class),
+                            rs.getObject("id_articulo", Long.class),
+                            rs.getString("articulo"),
+                            rs.getObject("cantidad", Integer.class),
+                            rs.getObject("precio_unitario_original", Double.class),
+                            rs.getObject("descuento_promocion", Double.class),
+                            rs.getObject("subtotal", Double.class),
+                            rs.getString("promocion")));
+                });
+    }
+
+    /** Fila de pedido_archivo con su renglón, con los getters de FilaExportacion */
+    @Getter
+    @AllArgsConstructor
+    private static final class FilaArchivo implements FilaExportacion {
+        private final Long idPedido;
+        private final LocalDateTime fecha;
+        private final Estado estado;
+        private final TipoEnvio tipoEnvio;
+        private final FormaPago formaPago;
+        private final Boolean pagoConfirmado;
+        private final Double total;
+        private final Double totalCosto;
+        private final String nombreCliente;
+        private final String apellidoCliente;
+        private final String emailCliente;
+        private final Long idDetallePedido;
+        private final Long idArticulo;
+        private final String articulo;
+        private final Integer cantidad;
+        private final Double precioUnitarioOriginal;
+        private final Double descuentoPromocion;
+        private final Double subtotal;
+        private final String promocion;
+    }
+}
@@ -5,8 +5,10 @@ import com.elbuensabor.dto.request.ImagenDTO;
 import com.elbuensabor.dto.response.ArticuloInsumoResponseDTO;
 import com.elbuensabor.entities.ArticuloInsumo;
 import com.elbuensabor.entities.Categoria;
+import com.elbuensabor.entities.EstadoStock;
 import com.elbuensabor.entities.Imagen;
 import com.elbuensabor.entities.TipoCategoria;
+import com.elbuensabor.entities.TipoMovimientoStock;
 import com.elbuensabor.entities.UnidadMedida;
 import com.elbuensabor.exceptions.DuplicateResourceException;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
@@ -28,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -50,6 +53,20 @@ public class ArticuloInsumoServiceImpl extends
     private ICompraInsumoRepository compraInsumoRepository;
     @Autowired
     private IImagenService imagenService;
+    @Autowired
+    private ListaPreciosService listaPreciosService;
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+    @Autowired
+    private IndiceBusquedaService indiceBusqueda;
+    @Autowired
+    private DisponibilidadStockService disponibilidadStock;
+    @Autowired
+    private LibroStockService libroStock;
+    @Autowired
+    private AlertasStockService alertasStock;
+    @Autowired
+    private CostosProduccionService costosProduccion;
 
     @Autowired
     public ArticuloInsumoServiceImpl(
@@ -104,7 +121,8 @@ public class ArticuloInsumoServiceImpl extends
         // 4️⃣ Validar que categoría sea apta para insumos (INGREDIENTES o BEBIDAS)
         validarCategoriaAptaParaInsumos(entity.getCategoria());
 
-        // 5️⃣ Inicializar colecciones
+        // 5️⃣ Inicializar colecciones y estado de stock (después del alta solo lo cambian los UPDATE de stock)
+        entity.setEstadoStock(EstadoStock.calcular(entity.getStockActual(), entity.getStockMaximo()).name());
         entity.setImagenes(new ArrayList<>());
         entity.setDetallesManufacturados(new ArrayList<>());
         entity.setHistoricosPrecios(new ArrayList<>());
@@ -121,6 +139,14 @@ public class ArticuloInsumoServiceImpl extends
 
         // 7️⃣ Volver a guardar para persistir las imágenes asociadas
         ArticuloInsumo finalInsumo = repository.save(saved);
+        // El stock inicial entra con el INSERT; en el libro queda como AJUSTE
+        libroStock.registrar(List.of(new LibroStockService.Movimiento(finalInsumo.getIdArticulo(),
+                TipoMovimientoStock.AJUSTE, finalInsumo.getStockActual(), "alta")));
+        listaPreciosService.actualizarAlConfirmar(List.of(finalInsumo.getIdArticulo()));
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.actualizarAlConfirmar(List.of(finalInsumo.getIdArticulo()));
+        disponibilidadStock.actualizarStockAlConfirmar(List.of(finalInsumo.getIdArticulo()));
+        alertasStock.verificarAlConfirmar(List.of(finalInsumo.getIdArticulo()));
         logger.info("✅ Insumo creado exitosamente: {} (ID: {})",
                 finalInsumo.getDenominacion(), finalInsumo.getIdArticulo());
 
@@ -145,6 +171,9 @@ public class ArticuloInsumoServiceImpl extends
         }
 
         // 3️⃣ Actualizar desde DTO
+        double stockAnterior = entity.getStockActual() != null ? entity.getStockActual() : 0.0;
+        Double maximoAnterior = entity.getStockMaximo();
+        Double precioCompraAnterior = entity.getPrecioCompra();
         mapper.updateEntityFromDTO(requestDTO, entity);
         if (requestDTO.getEsParaElaborar() != null) {
             entity.setEsParaElaborar(requestDTO.getEsParaElaborar());
@@ -166,8 +195,31 @@ public class ArticuloInsumoServiceImpl extends
             }
         }
 
-        // 6️⃣ Guardar
+        // 6️⃣ Guardar (stock y estado no se escriben desde la entidad)
         ArticuloInsumo updated = repository.save(entity);
+
+        // 7️⃣ Un cambio de stock se aplica como AJUSTE por la diferencia con lo que se editó
+        double ajuste = (updated.getStockActual() != null ? updated.getStockActual() : 0.0) - stockAnterior;
+        if (ajuste != 0) {
+            libroStock.aplicar(List.of(new LibroStockService.Movimiento(id,
+                    TipoMovimientoStock.AJUSTE, ajuste, "ajuste manual")),
+                    idInsumo -> new IllegalArgumentException(
+                            "El stock del insumo cambió mientras se editaba y no alcanza para el ajuste. " +
+                                    "Vuelva a intentar"));
+        }
+        if (ajuste == 0 && !Objects.equals(maximoAnterior, updated.getStockMaximo())) {
+            // Recalcula estado_stock con el nuevo máximo (delta 0)
+            repository.incrementarStock(id, 0.0);
+            alertasStock.verificarAlConfirmar(List.of(id));
+        }
+        updated.setEstadoStock(EstadoStock.calcular(updated.getStockActual(), updated.getStockMaximo()).name());
+        listaPreciosService.actualizarAlConfirmar(List.of(id));
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.actualizarAlConfirmar(List.of(id));
+        disponibilidadStock.actualizarStockAlConfirmar(List.of(id));
+        if (!Objects.equals(precioCompraAnterior, updated.getPrecioCompra())) {
+            costosProduccion.propagarAlConfirmar(List.of(id));
+        }
         logger.info("✅ Insumo actualizado: {}", updated.getDenominacion());
 
         return enriquecerResponseDTO(updated);
@@ -194,6 +246,10 @@ public class ArticuloInsumoServiceImpl extends
             compraInsumoRepository.deleteByArticuloInsumoId(id);
 
             repository.delete(entity);
+            listaPreciosService.actualizarAlConfirmar(List.of(id));
+            catalogoCache.invalidarAlConfirmar();
+            indiceBusqueda.actualizarAlConfirmar(List.of(id));
+            disponibilidadStock.recargarAlConfirmar();
             logger.info("✅ Insumo eliminado permanentemente: {}", entity.getDenominacion());
         } catch (DataIntegrityViolationException ex) {
             logger.error("❌ Violación de integridad al eliminar insumo {}: {}", id, ex.getMessage());
@@ -263,8 +319,7 @@ public class ArticuloInsumoServiceImpl extends
     public List<ArticuloInsumoResponseDTO> findByCriticoStock() {
         logger.debug("🔍 Buscando insumos con stock crítico");
 
-        return repository.findAll().stream()
-                .filter(insumo -> "CRITICO".equals(insumo.getEstadoStock()))
+        return repository.findByEstadoStock(EstadoStock.CRITICO.name()).stream()
                 .map(this::enriquecerResponseDTO)
                 .collect(Collectors.toList());
     }
@@ -274,8 +329,7 @@ public class ArticuloInsumoServiceImpl extends
     public List<ArticuloInsumoResponseDTO> findByBajoStock() {
         logger.debug("🔍 Buscando insumos con stock bajo");
 
-        return repository.findAll().stream()
-                .filter(insumo -> "BAJO".equals(insumo.getEstadoStock()))
+        return repository.findByEstadoStock(EstadoStock.BAJO.name()).stream()
                 .map(this::enriquecerResponseDTO)
                 .collect(Collectors.toList());
     }
@@ -285,8 +339,7 @@ public class ArticuloInsumoServiceImpl extends
     public List<ArticuloInsumoResponseDTO> findByAltoStock() {
         logger.debug("🔍 Buscando insumos con stock alto");
 
-        return repository.findAll().stream()
-                .filter(insumo -> "ALTO".equals(insumo.getEstadoStock()))
+        return repository.findByEstadoStock(EstadoStock.ALTO.name()).stream()
                 .map(this::enriquecerResponseDTO)
                 .collect(Collectors.toList());
     }
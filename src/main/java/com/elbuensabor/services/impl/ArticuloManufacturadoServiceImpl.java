@@ -3,6 +3,7 @@ package com.elbuensabor.services.impl;
 import com.elbuensabor.dto.request.ArticuloManufacturadoRequestDTO;
 import com.elbuensabor.dto.request.DetalleManufacturadoRequestDTO;
 import com.elbuensabor.dto.request.ImagenDTO;
+import com.elbuensabor.dto.request.PreparacionRequestDTO;
 import com.elbuensabor.dto.response.ArticuloManufacturadoResponseDTO;
 import com.elbuensabor.entities.*;
 import com.elbuensabor.exceptions.DuplicateResourceException;
@@ -19,7 +20,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,6 +48,16 @@ public class ArticuloManufacturadoServiceImpl implements IArticuloManufacturadoS
     private IArticuloRepository articuloRepository;
     @Autowired
     private IImagenService imagenService;
+    @Autowired
+    private ListaPreciosService listaPreciosService;
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+    @Autowired
+    private IndiceBusquedaService indiceBusqueda;
+    @Autowired
+    private DisponibilidadStockService disponibilidadStock;
+    @Autowired
+    private LibroStockService libroStock;
 
     @Override
     @Transactional(readOnly = true)
@@ -94,6 +109,10 @@ public class ArticuloManufacturadoServiceImpl implements IArticuloManufacturadoS
 
         // 3️⃣ Volver a guardar para persistir las asociaciones de imágenes.
         ArticuloManufacturado finalManufacturado = repository.save(saved);
+        listaPreciosService.actualizarAlConfirmar(List.of(finalManufacturado.getIdArticulo()));
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.actualizarAlConfirmar(List.of(finalManufacturado.getIdArticulo()));
+        disponibilidadStock.recargarAlConfirmar();
 
         log.info("Producto {} creado y finalizado con ID {}", finalManufacturado.getDenominacion(),
                 finalManufacturado.getIdArticulo());
@@ -127,6 +146,10 @@ public class ArticuloManufacturadoServiceImpl implements IArticuloManufacturadoS
         manejarImagenes(manufacturado, requestDTO.getImagenes());
 
         ArticuloManufacturado updated = repository.save(manufacturado);
+        listaPreciosService.actualizarAlConfirmar(List.of(id));
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.actualizarAlConfirmar(List.of(id));
+        disponibilidadStock.recargarAlConfirmar();
         return enriquecerDTO(updated);
     }
 
@@ -145,6 +168,8 @@ public class ArticuloManufacturadoServiceImpl implements IArticuloManufacturadoS
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
         manufacturado.setEliminado(true);
         repository.save(manufacturado);
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.actualizarAlConfirmar(List.of(id));
     }
 
     @Override
@@ -155,6 +180,8 @@ public class ArticuloManufacturadoServiceImpl implements IArticuloManufacturadoS
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
         manufacturado.setEliminado(false);
         repository.save(manufacturado);
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.actualizarAlConfirmar(List.of(id));
     }
 
     @Override
@@ -288,28 +315,92 @@ public class ArticuloManufacturadoServiceImpl implements IArticuloManufacturadoS
                     "Stock insuficiente. Máximo preparable: " + manufacturado.calcularCantidadMaximaPreparable());
         }
 
-        // Descontar stock de cada ingrediente
+        // Descontar stock de cada ingrediente: movimientos CONSUMO + deltas atómicos condicionales
+        List<LibroStockService.Movimiento> consumos = manufacturado.getDetalles().stream()
+                .map(detalle -> new LibroStockService.Movimiento(detalle.getArticuloInsumo().getIdArticulo(),
+                        TipoMovimientoStock.CONSUMO, -(detalle.getCantidad() * cantidad), "preparacion:" + id))
+                .toList();
+        // Otro consumo puede llevarse el stock entre la verificación y el descuento
+        libroStock.aplicar(consumos,
+                idInsumo -> new IllegalStateException("Stock insuficiente del insumo con ID: " + idInsumo));
         for (DetalleManufacturado detalle : manufacturado.getDetalles()) {
+            // Solo para la respuesta: la entidad no escribe stock_actual
             ArticuloInsumo insumo = detalle.getArticuloInsumo();
-            double nuevoStock = insumo.getStockActual() - (detalle.getCantidad() * cantidad);
-            insumo.setStockActual(Math.round(nuevoStock * 100.0) / 100.0);
-            actualizarEstadoStock(insumo);
-            articuloInsumoRepository.save(insumo);
+            insumo.setStockActual(insumo.getStockActual() - detalle.getCantidad() * cantidad);
         }
+        disponibilidadStock.actualizarStockAlConfirmar(manufacturado.getDetalles().stream()
+                .map(detalle -> detalle.getArticuloInsumo().getIdArticulo())
+                .toList());
 
         return enriquecerDTO(manufacturado);
     }
 
-    private void actualizarEstadoStock(ArticuloInsumo insumo) {
-        double porcentaje = insumo.getPorcentajeStock();
-        if (porcentaje <= 0) {
-            insumo.setEstadoStock("CRITICO");
-        } else if (porcentaje < 25) {
-            insumo.setEstadoStock("BAJO");
-        } else if (porcentaje < 75) {
-            insumo.setEstadoStock("NORMAL");
-        } else {
-            insumo.setEstadoStock("ALTO");
+    @Override
+    @Transactional
+    public List<ArticuloManufacturadoResponseDTO> prepararLote(List<PreparacionRequestDTO> preparaciones) {
+        if (preparaciones == null || preparaciones.isEmpty()) {
+            throw new IllegalArgumentException("La lista de preparación debe contener al menos un producto");
+        }
+
+        // 1️⃣ Unidades por producto (un producto repetido en la lista se suma)
+        Map<Long, Integer> unidadesPorProducto = new LinkedHashMap<>();
+        for (PreparacionRequestDTO preparacion : preparaciones) {
+            if (preparacion.getCantidad() == null || preparacion.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad a preparar debe ser mayor a 0");
+            }
+            unidadesPorProducto.merge(preparacion.getIdArticuloManufacturado(), preparacion.getCantidad(),
+                    Integer::sum);
         }
+
+        // 2️⃣ Productos con receta e insumos en una consulta
+        Map<Long, ArticuloManufacturado> productos = new HashMap<>();
+        for (ArticuloManufacturado manufacturado : repository.findConRecetaByIdIn(unidadesPorProducto.keySet())) {
+            productos.put(manufacturado.getIdArticulo(), manufacturado);
+        }
+        for (Long id : unidadesPorProducto.keySet()) {
+            if (!productos.containsKey(id)) {
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + id);
+            }
+        }
+
+        // 3️⃣ Consumo total por insumo de todo el lote
+        Map<Long, Double> consumoPorInsumo = new TreeMap<>();
+        Map<Long, ArticuloInsumo> insumos = new HashMap<>();
+        unidadesPorProducto.forEach((id, unidades) -> {
+            for (DetalleManufacturado detalle : productos.get(id).getDetalles()) {
+                ArticuloInsumo insumo = detalle.getArticuloInsumo();
+                consumoPorInsumo.merge(insumo.getIdArticulo(), detalle.getCantidad() * unidades, Double::sum);
+                insumos.put(insumo.getIdArticulo(), insumo);
+            }
+        });
+
+        // 4️⃣ Validar todo el lote antes de descontar
+        for (Map.Entry<Long, Double> entry : consumoPorInsumo.entrySet()) {
+            ArticuloInsumo insumo = insumos.get(entry.getKey());
+            if (insumo.getStockActual() < entry.getValue()) {
+                throw new IllegalStateException("Stock insuficiente de " + insumo.getDenominacion()
+                        + ": el lote requiere " + entry.getValue() + " y hay " + insumo.getStockActual());
+            }
+        }
+
+        // 5️⃣ Un movimiento CONSUMO y un delta atómico por insumo (el estado se recalcula una vez)
+        //    Otro consumo puede llevarse el stock entre la validación y el descuento
+        libroStock.aplicar(consumoPorInsumo.entrySet().stream()
+                .map(e -> new LibroStockService.Movimiento(e.getKey(), TipoMovimientoStock.CONSUMO,
+                        -e.getValue(), "preparacion:lote"))
+                .toList(),
+                idInsumo -> new IllegalStateException("Stock insuficiente del insumo con ID: " + idInsumo));
+        consumoPorInsumo.forEach((idInsumo, cantidad) -> {
+            // Solo para la respuesta: la entidad no escribe stock_actual
+            ArticuloInsumo insumo = insumos.get(idInsumo);
+            insumo.setStockActual(insumo.getStockActual() - cantidad);
+        });
+        disponibilidadStock.actualizarStockAlConfirmar(consumoPorInsumo.keySet());
+
+        log.info("🍳 Lote preparado: {} productos, {} insumos descontados",
+                unidadesPorProducto.size(), consumoPorInsumo.size());
+        return unidadesPorProducto.keySet().stream()
+                .map(id -> enriquecerDTO(productos.get(id)))
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,353 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.cliente.CatalogoArticuloDTO;
+import com.elbuensabor.events.DisponibilidadCambiadaEvent;
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.repository.IArticuloRepository;
+import com.elbuensabor.services.mapper.CatalogoArticuloMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo público precalculado (GET /api/catalogo/articulos y sus filtros
+ * por categoría y promoción).
+ *
+ * El listado se arma una vez con CatalogoArticuloMapper, se serializa a JSON
+ * una vez por variante y se sirve como bytes con un ETag fuerte (hash del
+ * contenido). Si una reconstrucción da el mismo contenido, el ETag no cambia
+ * y los clientes siguen recibiendo 304.
+ *
+ * Se invalida al confirmar cambios de artículos, imágenes, categorías y
+ * promociones, y cuando vence el horario de alguna promoción. Los movimientos
+ * de stock (reservas de pedidos, compras, preparación) solo invalidan cuando
+ * DisponibilidadStockService informa que algún artículo pasó de disponible a
+ * agotado o al revés. Las invalidaciones sin pasar por estos servicios se
+ * cubren con app.catalogo.ttl-max-segundos.
+ *
+ * Mientras se reconstruye en segundo plano se sigue sirviendo la versión
+ * anterior (stale-while-revalidate); solo la primera consulta espera.
+ */
+@Service
+public class CatalogoCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoCacheService.class);
+
+    /**
+     * Variante serializada del catálogo, lista para escribir en la respuesta
+     */
+    public record CatalogoRenderizado(byte[] cuerpo, String etag, List<CatalogoArticuloDTO> articulos) {
+
+        /**
+         * true si el If-None-Match recibido incluye este ETag (o es "*")
+         */
+        public boolean coincide(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            for (String candidato : ifNoneMatch.split(",")) {
+                String valor = candidato.trim();
+                if (valor.startsWith("W/")) {
+                    valor = valor.substring(2);
+                }
+                if (valor.equals("*") || valor.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Versión del catálogo
+     */
+    private record Catalogo(long generacion, LocalDateTime armado, LocalDateTime vence,
+            CatalogoRenderizado todos, CatalogoRenderizado enPromocion,
+            Map<Long, CatalogoRenderizado> porCategoria, CatalogoRenderizado vacio,
+            Map<Long, CatalogoArticuloDTO> porId) {
+    }
+
+    private volatile Catalogo catalogo;
+
+    // Se incrementa con cada invalidación; el catálogo de otra generación está vencido
+    private final AtomicLong generacion = new AtomicLong();
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean();
+
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "catalogo-cache");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Value("${app.catalogo.ttl-max-segundos:300}")
+    private long ttlMaxSegundos;
+
+    @Autowired
+    private IArticuloRepository articuloRepository;
+
+    @Autowired
+    private CatalogoArticuloMapper catalogoMapper;
+
+    @Autowired
+    private IndicePromocionesService indicePromociones;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer tiempoReconstruccion;
+    private Counter invalidaciones;
+
+    @PostConstruct
+    void registrarMetricas() {
+        tiempoReconstruccion = Timer.builder("catalogo.reconstruccion")
+                .description("Tiempo de armado y serialización del catálogo público")
+                .register(meterRegistry);
+        invalidaciones = Counter.builder("catalogo.invalidaciones")
+                .description("Invalidaciones del catálogo público")
+                .register(meterRegistry);
+        Gauge.builder("catalogo.antiguedad", this,
+                s -> s.catalogo != null
+                        ? Duration.between(s.catalogo.armado(), LocalDateTime.now()).toMillis()
+                        : 0)
+                .description("Tiempo desde el armado del catálogo que se está sirviendo")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    // ==================== CONSULTA ====================
+
+    public CatalogoRenderizado articulos() {
+        return vigente().todos();
+    }
+
+    public CatalogoRenderizado articulosEnPromocion() {
+        return vigente().enPromocion();
+    }
+
+    public CatalogoRenderizado articulosPorCategoria(Long idCategoria) {
+        Catalogo actual = vigente();
+        return actual.porCategoria().getOrDefault(idCategoria, actual.vacio());
+    }
+
+    /**
+     * Artículos del catálogo con los IDs dados, en ese orden. Los que no
+     * están en el catálogo se omiten.
+     */
+    public List<CatalogoArticuloDTO> articulos(List<Long> idsArticulos) {
+        Map<Long, CatalogoArticuloDTO> porId = vigente().porId();
+        List<CatalogoArticuloDTO> resultado = new ArrayList<>(idsArticulos.size());
+        for (Long id : idsArticulos) {
+            CatalogoArticuloDTO dto = porId.get(id);
+            if (dto != null) {
+                resultado.add(dto);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Catálogo a servir. Si está vencido se devuelve igual y se pide la
+     * reconstrucción; solo se espera cuando todavía no hay ninguno.
+     */
+    private Catalogo vigente() {
+        Catalogo actual = catalogo;
+        if (actual == null) {
+            return armarSincronico();
+        }
+        if (actual.generacion() != generacion.get() || !LocalDateTime.now().isBefore(actual.vence())) {
+            solicitarReconstruccion();
+        }
+        return actual;
+    }
+
+    // ==================== INVALIDACIÓN ====================
+
+    /**
+     * Invalida el catálogo cuando confirma la transacción actual (o en el
+     * momento, si no hay una)
+     */
+    public void invalidarAlConfirmar() {
+        alConfirmar(this::invalidar);
+    }
+
+    public void invalidar() {
+        generacion.incrementAndGet();
+        invalidaciones.increment();
+        solicitarReconstruccion();
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Algún artículo pasó de disponible a agotado o al revés
+     */
+    @EventListener
+    public void alCambiarDisponibilidad(DisponibilidadCambiadaEvent evento) {
+        log.debug("📦 Cambió la disponibilidad de {}: se invalida el catálogo", evento.idsArticulos());
+        invalidar();
+    }
+
+    // ==================== RECONSTRUCCIÓN ====================
+
+    /**
+     * Después de cargar la lista de precios y el índice de promociones
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void precargar() {
+        armarSincronico();
+    }
+
+    private synchronized Catalogo armarSincronico() {
+        if (catalogo == null) {
+            catalogo = armar(generacion.get());
+        }
+        return catalogo;
+    }
+
+    private void solicitarReconstruccion() {
+        if (reconstruyendo.compareAndSet(false, true)) {
+            ejecutor.execute(this::reconstruir);
+        }
+    }
+
+    /**
+     * Reconstruye hasta alcanzar la generación actual: las invalidaciones que
+     * llegan durante el armado se juntan en una sola vuelta más
+     */
+    private void reconstruir() {
+        try {
+            long objetivo;
+            do {
+                objetivo = generacion.get();
+                Catalogo nuevo = armar(objetivo);
+                synchronized (this) {
+                    catalogo = nuevo;
+                }
+            } while (objetivo != generacion.get());
+        } catch (RuntimeException e) {
+            // Se sigue sirviendo el anterior; el próximo pedido vuelve a intentar
+            log.error("❌ Error reconstruyendo el catálogo: {}", e.getMessage(), e);
+        } finally {
+            reconstruyendo.set(false);
+        }
+    }
+
+    private Catalogo armar(long generacionArmado) {
+        return tiempoReconstruccion.record(() -> {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+
+            LocalDateTime ahora = LocalDateTime.now();
+
+            List<CatalogoArticuloDTO> articulos = tx.execute(status -> {
+                List<Articulo> disponibles = articuloRepository.findDisponiblesParaCatalogo();
+                List<CatalogoArticuloDTO> dtos = new ArrayList<>(disponibles.size());
+                for (Articulo articulo : disponibles) {
+                    dtos.add(catalogoMapper.toDTO(articulo, ahora));
+                }
+                return dtos;
+            });
+
+            Map<Long, List<CatalogoArticuloDTO>> agrupados = new LinkedHashMap<>();
+            for (CatalogoArticuloDTO dto : articulos) {
+                if (dto.getIdCategoria() != null) {
+                    agrupados.computeIfAbsent(dto.getIdCategoria(), id -> new ArrayList<>()).add(dto);
+                }
+            }
+            Map<Long, CatalogoRenderizado> porCategoria = new HashMap<>();
+            agrupados.forEach((id, lista) -> porCategoria.put(id, renderizar(lista)));
+
+            // Mismo criterio que obtenerArticulosEnPromocion: manufacturados disponibles con promoción
+            List<CatalogoArticuloDTO> enPromocion = articulos.stream()
+                    .filter(dto -> "MANUFACTURADO".equals(dto.getTipoArticulo())
+                            && Boolean.TRUE.equals(dto.getTienePromocion())
+                            && Boolean.TRUE.equals(dto.getDisponible()))
+                    .toList();
+
+            LocalDateTime vence = ahora.plusSeconds(ttlMaxSegundos);
+            LocalDateTime cambioPromociones = indicePromociones.proximoCambio(ahora);
+            if (cambioPromociones != null && cambioPromociones.isBefore(vence)) {
+                vence = cambioPromociones;
+            }
+
+            log.info("✅ Catálogo armado: {} artículos, {} categorías, {} en promoción (vence {})",
+                    articulos.size(), porCategoria.size(), enPromocion.size(), vence);
+
+            return new Catalogo(generacionArmado, ahora, vence, renderizar(articulos), renderizar(enPromocion),
+                    Map.copyOf(porCategoria), renderizar(List.of()),
+                    articulos.stream().collect(Collectors.toUnmodifiableMap(CatalogoArticuloDTO::getIdArticulo,
+                            dto -> dto)));
+        });
+    }
+
+    private CatalogoRenderizado renderizar(List<CatalogoArticuloDTO> articulos) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsBytes(articulos);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(cuerpo);
+            String etag = "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+            return new CatalogoRenderizado(cuerpo, etag, List.copyOf(articulos));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
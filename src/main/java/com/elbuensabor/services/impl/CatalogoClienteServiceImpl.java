@@ -11,10 +11,8 @@ import com.elbuensabor.entities.EstadoStock;
 import com.elbuensabor.entities.Promocion;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
 import com.elbuensabor.repository.IArticuloRepository;
-import com.elbuensabor.repository.IArticuloManufacturadoRepository;
 import com.elbuensabor.repository.IPromocionRepository;
 import com.elbuensabor.services.ICatalogoClienteService;
-import com.elbuensabor.services.mapper.CatalogoArticuloMapper;
 import com.elbuensabor.services.mapper.DetalleArticuloMapper;
 import com.elbuensabor.services.mapper.PromocionClienteMapper;
 import org.slf4j.Logger;
@@ -36,15 +34,14 @@ public class CatalogoClienteServiceImpl implements ICatalogoClienteService {
     @Autowired
     private IArticuloRepository articuloRepository;
 
-    // ✅ Solo para métodos exclusivos de manufacturados
     @Autowired
-    private IArticuloManufacturadoRepository manufacturadoRepository;
+    private IPromocionRepository promocionRepository;
 
     @Autowired
-    private IPromocionRepository promocionRepository;
+    private CatalogoCacheService catalogoCache;
 
     @Autowired
-    private CatalogoArticuloMapper catalogoMapper;
+    private IndiceBusquedaService indiceBusqueda;
 
     @Autowired
     private DetalleArticuloMapper detalleMapper;
@@ -54,56 +51,40 @@ public class CatalogoClienteServiceImpl implements ICatalogoClienteService {
 
     // ==================== ARTÍCULOS ====================
 
+    // ✅ Listado, categoría y promociones salen del catálogo precalculado
+
     @Override
-    @Transactional(readOnly = true)
     public List<CatalogoArticuloDTO> obtenerArticulosDisponibles() {
-        log.info("🛍️ Cliente consultando catálogo de productos disponibles");
-
-        List<Articulo> articulos = articuloRepository.findDisponiblesParaCatalogo();
-
-        log.info("📊 Total artículos para catálogo: {}", articulos.size());
-        return catalogoMapper.toDTOList(articulos);
+        log.debug("🛍️ Cliente consultando catálogo de productos disponibles");
+        return catalogoCache.articulos().articulos();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<CatalogoArticuloDTO> obtenerArticulosPorCategoria(Long idCategoria) {
-        log.info("🔍 Cliente filtrando por categoría ID: {}", idCategoria);
-
-        List<Articulo> articulos = articuloRepository.findDisponiblesParaCatalogoPorCategoria(idCategoria);
-
-        log.info("📊 Artículos en categoría {}: {}", idCategoria, articulos.size());
-        return catalogoMapper.toDTOList(articulos);
+        log.debug("🔍 Cliente filtrando por categoría ID: {}", idCategoria);
+        return catalogoCache.articulosPorCategoria(idCategoria).articulos();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<CatalogoArticuloDTO> buscarArticulos(String query) {
-        log.info("🔍 Cliente buscando: '{}'", query);
+        log.debug("🔍 Cliente buscando: '{}'", query);
 
         if (query == null || query.trim().isEmpty()) {
             return obtenerArticulosDisponibles();
         }
 
-        List<Articulo> articulos = articuloRepository.findDisponiblesParaCatalogoPorNombre(query.trim());
+        // ✅ Índice en memoria (sin acentos, tolera errores de tipeo), ordenado por relevancia
+        List<CatalogoArticuloDTO> articulos = catalogoCache.articulos(indiceBusqueda.buscar(query));
 
-        log.info("📊 Búsqueda '{}': {} resultados", query, articulos.size());
-        return catalogoMapper.toDTOList(articulos);
+        log.debug("📊 Búsqueda '{}': {} resultados", query, articulos.size());
+        return articulos;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<CatalogoArticuloDTO> obtenerArticulosEnPromocion() {
-        log.info("🎁 Cliente consultando artículos en promoción");
-
+        log.debug("🎁 Cliente consultando artículos en promoción");
         // Las promociones solo aplican a manufacturados
-        List<ArticuloManufacturado> articulos = manufacturadoRepository.findByEliminadoFalse();
-
-        return articulos.stream()
-                .filter(a -> !a.getEliminado() && a.verificarStockSuficiente(1))
-                .filter(ArticuloManufacturado::tienePromocionVigente)
-                .map(catalogoMapper::toDTO)
-                .collect(Collectors.toList());
+        return catalogoCache.articulosEnPromocion().articulos();
     }
 
     @Override
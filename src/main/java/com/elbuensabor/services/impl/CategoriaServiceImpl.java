@@ -26,6 +26,12 @@ public class CategoriaServiceImpl
 
     private static final Logger logger = LoggerFactory.getLogger(CategoriaServiceImpl.class);
 
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
+    @Autowired
+    private IndiceBusquedaService indiceBusqueda;
+
     @Autowired
     public CategoriaServiceImpl(ICategoriaRepository repository, CategoriaMapper mapper) {
         super(repository, mapper, Categoria.class, CategoriaResponseDTO.class);
@@ -204,6 +210,9 @@ public class CategoriaServiceImpl
         }
 
         Categoria updatedCategoria = repository.save(existingCategoria);
+        // El catálogo público muestra y busca por el nombre de la categoría
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.recargarAlConfirmar();
         logger.info("✅ Categoría actualizada: {} (ID: {})", updatedCategoria.getDenominacion(), id);
         return mapearCategoriaCompleta(updatedCategoria);
     }
@@ -4,8 +4,8 @@ import com.elbuensabor.dto.request.CompraInsumoRequestDTO;
 import com.elbuensabor.dto.response.CompraInsumoResponseDTO;
 import com.elbuensabor.entities.ArticuloInsumo;
 import com.elbuensabor.entities.CompraInsumo;
-import com.elbuensabor.entities.EstadoStock;
 import com.elbuensabor.entities.HistoricoPrecio;
+import com.elbuensabor.entities.TipoMovimientoStock;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
 import com.elbuensabor.repository.IArticuloInsumoRepository;
 import com.elbuensabor.repository.ICompraInsumoRepository;
@@ -30,6 +30,10 @@ public class CompraInsumoServiceImpl implements ICompraInsumoService {
     private final ICompraInsumoRepository compraInsumoRepository;
     private final IArticuloInsumoRepository articuloInsumoRepository;
     private final IHistoricoPrecioRepository historicoPrecioRepository;
+    private final ListaPreciosService listaPreciosService;
+    private final DisponibilidadStockService disponibilidadStock;
+    private final LibroStockService libroStock;
+    private final CostosProduccionService costosProduccion;
 
     /**
      * ✅ Registrar compra SOLO por paquetes y calcular estado
@@ -90,18 +94,17 @@ public class CompraInsumoServiceImpl implements ICompraInsumoService {
         Double nuevoPromedio = calcularPrecioPromedio(insumo, compra.getPrecioUnitario(), cantidadTecnica);
         insumo.setPrecioCompra(nuevoPromedio);
 
-        // 6. Aumentar stock (unidad técnica)
-        Double stockActual = insumo.getStockActual() != null ? insumo.getStockActual() : 0.0;
-        insumo.setStockActual(stockActual + cantidadTecnica);
-
-        // 7. Calcular estado del stock (enum)
-        EstadoStock nuevoEstado = calcularEstadoStockEnum(insumo.getStockActual(), insumo.getStockMaximo());
-        insumo.setEstadoStock(nuevoEstado.name());
-
-        // 8. Guardar cambios en insumo
+        // 6. Guardar el precio (stock y estado no se escriben desde la entidad)
         articuloInsumoRepository.save(insumo);
 
-        // 9. Registrar en historial de precios (cantidad técnica)
+        // 7. Aumentar stock (unidad técnica): movimiento COMPRA + delta atómico, recalcula el estado
+        libroStock.aplicar(List.of(new LibroStockService.Movimiento(insumo.getIdArticulo(),
+                TipoMovimientoStock.COMPRA, cantidadTecnica, "compra:" + compraGuardada.getId())));
+        listaPreciosService.actualizarAlConfirmar(List.of(insumo.getIdArticulo()));
+        disponibilidadStock.actualizarStockAlConfirmar(List.of(insumo.getIdArticulo()));
+        costosProduccion.propagarAlConfirmar(List.of(insumo.getIdArticulo()));
+
+        // 8. Registrar en historial de precios (cantidad técnica)
         try {
             HistoricoPrecio historico = new HistoricoPrecio();
             historico.setCompra(compraGuardada);
@@ -137,22 +140,24 @@ public class CompraInsumoServiceImpl implements ICompraInsumoService {
 
         logger.info("📦 Compra: {} unidades a ${}", compra.getCantidad(), compra.getPrecioUnitario());
 
-        // 2. Restar stock
-        Double nuevoStock = Math.max(insumo.getStockActual() - compra.getCantidad(), 0.0);
-        insumo.setStockActual(nuevoStock);
+        // 2. Restar stock sin quedar en negativo: movimiento REVERSION + delta atómico.
+        //    La fila queda bloqueada desde la lectura, así el delta se calcula sobre el saldo real.
+        double stockActual = articuloInsumoRepository.findStockParaActualizar(idInsumo);
+        double revertido = Math.min(compra.getCantidad(), Math.max(stockActual, 0.0));
+        libroStock.aplicar(List.of(new LibroStockService.Movimiento(idInsumo,
+                TipoMovimientoStock.REVERSION, -revertido, "compra:" + idCompra)));
 
         // 3. Recalcular precio promedio
         Double nuevoPrecio = recalcularPrecioPromedio(insumo, compra.getPrecioUnitario(), compra.getCantidad());
         insumo.setPrecioCompra(nuevoPrecio);
 
-        // 4. Recalcular estado (enum)
-        EstadoStock nuevoEstado = calcularEstadoStockEnum(insumo.getStockActual(), insumo.getStockMaximo());
-        insumo.setEstadoStock(nuevoEstado.name());
-
-        // 5. Guardar cambios
+        // 4. Guardar cambios
         articuloInsumoRepository.save(insumo);
+        listaPreciosService.actualizarAlConfirmar(List.of(idInsumo));
+        disponibilidadStock.actualizarStockAlConfirmar(List.of(idInsumo));
+        costosProduccion.propagarAlConfirmar(List.of(idInsumo));
 
-        // 6. Eliminar compra (su HistoricoPrecio se elimina por cascade = REMOVE)
+        // 5. Eliminar compra (su HistoricoPrecio se elimina por cascade = REMOVE)
         compraInsumoRepository.delete(compra);
         logger.info("✅ Compra eliminada - Retornando ID insumo: {}", idInsumo);
 
@@ -198,29 +203,6 @@ public class CompraInsumoServiceImpl implements ICompraInsumoService {
         return Math.round(promedio * 100.0) / 100.0;
     }
 
-    /**
-     * ✅ Calcular estado usando los umbrales del enum
-     */
-    private EstadoStock calcularEstadoStockEnum(Double stockActual, Double stockMaximo) {
-        double sa = stockActual != null ? stockActual : 0.0;
-        double sm = stockMaximo != null ? stockMaximo : 0.0;
-
-        if (sm <= 0)
-            return EstadoStock.CRITICO;
-
-        double porcentaje = (sa / sm) * 100.0;
-
-        // Umbrales exactos:
-        // 0–25 => CRITICO, 26–50 => BAJO, 51–75 => NORMAL, 76–100 => ALTO
-        if (porcentaje <= 25.0)
-            return EstadoStock.CRITICO;
-        if (porcentaje <= 50.0)
-            return EstadoStock.BAJO;
-        if (porcentaje <= 75.0)
-            return EstadoStock.NORMAL;
-        return EstadoStock.ALTO;
-    }
-
     @Override
     public List<CompraInsumo> getAllCompras() {
         return compraInsumoRepository.findAll();
@@ -0,0 +1,208 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.repository.IArticuloManufacturadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propagación de precios de compra de insumos a los productos manufacturados.
+ *
+ * Cuando cambia el precioCompra de un insumo (compras, bajas de compras o
+ * edición), el insumo queda pendiente al confirmar la transacción. Cada
+ * app.costos.propagacion-ms los pendientes se juntan, el índice inverso de
+ * recetas de DisponibilidadStockService da los productos que los usan y solo
+ * esos se recalculan: costoProduccion con los precios actuales y precioVenta
+ * con su margenGanancia, en un único lote de UPDATE. Una ráfaga de compras
+ * del mismo insumo se propaga una sola vez.
+ *
+ * El precio de venta solo se recalcula si era el que da el margen sobre el
+ * costo anterior: un precio cargado a mano no se pisa. Cada UPDATE exige que
+ * costo, margen y precio sigan siendo los leídos; si un producto se editó entre la
+ * lectura y la escritura no se toca y se vuelve a calcular en el próximo ciclo.
+ */
+@Service
+public class CostosProduccionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CostosProduccionService.class);
+
+    private static final String ACTUALIZAR_COSTO =
+            "UPDATE articulo a JOIN articulo_manufacturado am ON am.id_articulo = a.id_articulo " +
+                    "SET am.costo_produccion = :costo, a.precio_venta = :precioVenta " +
+                    "WHERE a.id_articulo = :id AND am.costo_produccion <=> :costoAnterior " +
+                    "AND a.precio_venta <=> :precioAnterior AND am.margen_ganancia <=> :margen";
+
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    // Productos cuyo UPDATE no encontró los valores leídos (editados en el medio)
+    private final Set<Long> productosPendientes = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private IArticuloManufacturadoRepository manufacturadoRepository;
+
+    @Autowired
+    private DisponibilidadStockService disponibilidadStock;
+
+    @Autowired
+    private ListaPreciosService listaPreciosService;
+
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter recalculados;
+    private Timer tiempoPropagacion;
+
+    @PostConstruct
+    void registrarMetricas() {
+        recalculados = Counter.builder("costos.recalculados")
+                .description("Productos con costo o precio de venta actualizado por cambios de precio de insumos")
+                .register(meterRegistry);
+        tiempoPropagacion = Timer.builder("costos.propagacion")
+                .description("Duración de la propagación de precios de insumos a los productos")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deja los insumos pendientes de propagar cuando confirma la transacción
+     * actual (o en el momento, si no hay una)
+     */
+    public void propagarAlConfirmar(Collection<Long> idsInsumos) {
+        Set<Long> ids = new HashSet<>(idsInsumos);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendientes.addAll(ids);
+                }
+            });
+        } else {
+            pendientes.addAll(ids);
+        }
+    }
+
+    /**
+     * Recalcula los productos que usan los insumos pendientes
+     */
+    @Scheduled(fixedDelayString = "${app.costos.propagacion-ms:2000}")
+    public void propagar() {
+        if (pendientes.isEmpty() && productosPendientes.isEmpty()) {
+            return;
+        }
+        Set<Long> insumos = new HashSet<>(pendientes);
+        pendientes.removeAll(insumos);
+        Set<Long> reintentos = new HashSet<>(productosPendientes);
+        productosPendientes.removeAll(reintentos);
+
+        long inicio = System.nanoTime();
+        Set<Long> productos = disponibilidadStock.productosQueUsan(insumos);
+        productos.addAll(reintentos);
+        if (productos.isEmpty()) {
+            return;
+        }
+
+        Integer actualizados;
+        try {
+            actualizados = new TransactionTemplate(transactionManager).execute(status -> actualizar(productos));
+        } catch (RuntimeException e) {
+            // Se reintenta en el próximo ciclo
+            pendientes.addAll(insumos);
+            productosPendientes.addAll(reintentos);
+            log.error("❌ Error propagando precios de {} insumos: {}", insumos.size(), e.getMessage());
+            return;
+        }
+        tiempoPropagacion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        if (actualizados != null && actualizados > 0) {
+            recalculados.increment(actualizados);
+            log.info("💲 Precios de {} insumos propagados a {} productos", insumos.size(), actualizados);
+        }
+    }
+
+    private int actualizar(Set<Long> productos) {
+        List<SqlParameterSource> lote = new ArrayList<>();
+        List<Long> cambiados = new ArrayList<>();
+
+        for (Object[] fila : manufacturadoRepository.findCostosRecetaByIdIn(productos)) {
+            Long id = (Long) fila[0];
+            Double costoLeido = (Double) fila[1];
+            Double precioLeido = (Double) fila[3];
+            double costoAnterior = costoLeido != null ? costoLeido : 0.0;
+            Double margenLeido = (Double) fila[2];
+            double margen = margenLeido != null ? margenLeido : 1.0;
+            double precioVenta = precioLeido != null ? precioLeido : 0.0;
+            double costo = redondear2((Double) fila[4]);
+
+            if (costo == costoAnterior) {
+                continue;
+            }
+            // Mismo cálculo que ArticuloManufacturado.actualizarPrecioVenta
+            double nuevoPrecio = Math.abs(precioVenta - redondear2(costoAnterior * margen)) < 0.005
+                    ? redondear2(costo * margen)
+                    : precioVenta;
+
+            lote.add(new MapSqlParameterSource("id", id)
+                    .addValue("costo", costo)
+                    .addValue("precioVenta", nuevoPrecio)
+                    .addValue("costoAnterior", costoLeido)
+                    .addValue("precioAnterior", precioLeido)
+                    .addValue("margen", margenLeido));
+            cambiados.add(id);
+        }
+
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        int[] filas = jdbc.batchUpdate(ACTUALIZAR_COSTO, lote.toArray(SqlParameterSource[]::new));
+
+        List<Long> actualizados = new ArrayList<>(cambiados.size());
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                productosPendientes.add(cambiados.get(i));
+            } else {
+                actualizados.add(cambiados.get(i));
+            }
+        }
+        if (actualizados.size() < cambiados.size()) {
+            log.warn("⚠️ {} productos se editaron durante la propagación de precios; se recalculan en el próximo ciclo",
+                    cambiados.size() - actualizados.size());
+        }
+        listaPreciosService.actualizarAlConfirmar(actualizados);
+        catalogoCache.invalidarAlConfirmar();
+        return actualizados.size();
+    }
+
+    private static double redondear2(Double valor) {
+        return valor != null ? Math.round(valor * 100.0) / 100.0 : 0.0;
+    }
+}
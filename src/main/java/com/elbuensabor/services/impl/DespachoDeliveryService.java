@@ -0,0 +1,349 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.Rol;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.events.PedidoEvent;
+import com.elbuensabor.events.TipoEventoPedido;
+import com.elbuensabor.repository.IPedidoRepository;
+import com.elbuensabor.repository.IUsuarioRepository;
+import com.elbuensabor.services.IPedidoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Despacho automático de pedidos a deliverys.
+ *
+ * Los pedidos DELIVERY que pasan a LISTO entran en una cola de espera. Antes
+ * de asignarlos se agrupan en lotes por zona (código postal y localidad del
+ * domicilio): un lote sale cuando junta el máximo de pedidos o cuando su
+ * pedido más antiguo cumple la ventana de espera. Cada lote va completo a un
+ * único delivery como un recorrido, sin pasar su máximo de pedidos abiertos:
+ * si ningún delivery tiene lugar para el lote entero, el que tiene lugar se
+ * lleva los pedidos más antiguos que le entran y el resto queda en la cola.
+ *
+ * El delivery elegido es el activo con menos pedidos abiertos (LISTO
+ * asignados); a igual carga, el que tiene su pedido pendiente más reciente.
+ * La asignación es un UPDATE condicionado a que el pedido siga LISTO y sin
+ * delivery, así que una asignación manual simultánea nunca se pisa: el pedido
+ * simplemente sale de la cola.
+ *
+ * La carga se consulta una vez por ciclo y se actualiza en memoria con cada
+ * asignación del ciclo.
+ */
+@Service
+public class DespachoDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachoDeliveryService.class);
+
+    private record Carga(long abiertos, LocalDateTime masAntiguo) {
+    }
+
+    // Zona de entrega; SIN_ZONA = pedido sin domicilio, viaja solo
+    private record Zona(Integer cp, String localidad) {
+    }
+
+    private static final Zona SIN_ZONA = new Zona(null, null);
+
+    // zona null = todavía no resuelta
+    private record Espera(LocalDateTime desde, Zona zona) {
+    }
+
+    // Pedidos del lote con su llegada a la cola, en orden de llegada
+    private record Lote(Zona zona, Map<Long, LocalDateTime> llegadas) {
+        List<Long> idsPedidos() {
+            return List.copyOf(llegadas.keySet());
+        }
+
+        LocalDateTime desde() {
+            return llegadas.values().iterator().next();
+        }
+    }
+
+    // Más libre primero: menos pedidos abiertos y, a igual cantidad, el más antiguo más reciente
+    private static final Comparator<Carga> ORDEN_CARGA = Comparator
+            .comparingLong(Carga::abiertos)
+            .thenComparing(Carga::masAntiguo, Comparator.nullsFirst(Comparator.reverseOrder()));
+
+    // Pedidos esperando delivery, desde cuándo y hacia qué zona
+    private final Map<Long, Espera> enEspera = new ConcurrentHashMap<>();
+
+    @Value("${app.delivery.despacho.automatico:true}")
+    private boolean automatico;
+
+    @Value("${app.delivery.despacho.max-pedidos:3}")
+    private int maxPedidosPorDelivery;
+
+    @Value("${app.delivery.lotes.ventana-segundos:180}")
+    private long ventanaSegundos;
+
+    @Value("${app.delivery.lotes.max-pedidos:3}")
+    private int maxPedidosPorLote;
+
+    @Autowired
+    private IPedidoService pedidoService;
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+
+    @Autowired
+    private WebSocketNotificationService notificationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter asignados;
+    private Timer esperaAsignacion;
+    private DistributionSummary tamanioLote;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("delivery.despacho.pendientes", enEspera, Map::size)
+                .description("Pedidos LISTO esperando delivery")
+                .register(meterRegistry);
+        asignados = Counter.builder("delivery.despacho.asignados")
+                .description("Pedidos asignados automáticamente a un delivery")
+                .register(meterRegistry);
+        esperaAsignacion = Timer.builder("delivery.despacho.espera")
+                .description("Tiempo entre LISTO y la asignación automática del delivery")
+                .publishPercentiles(0.5, 0.9)
+                .register(meterRegistry);
+        tamanioLote = DistributionSummary.builder("delivery.lotes.tamanio")
+                .description("Pedidos por recorrido asignado")
+                .register(meterRegistry);
+    }
+
+    // ==================== COLA DE ESPERA ====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoEvent(PedidoEvent evento) {
+        if (!automatico || evento.tipoEnvio() != TipoEnvio.DELIVERY) {
+            return;
+        }
+        if (evento.tipo() == TipoEventoPedido.LISTO) {
+            enEspera.putIfAbsent(evento.idPedido(), new Espera(evento.fechaEvento(), null));
+        } else if (evento.tipo() == TipoEventoPedido.DELIVERY_ASIGNADO || evento.estado() != Estado.LISTO) {
+            enEspera.remove(evento.idPedido());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        if (!automatico) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        tx.executeWithoutResult(status -> {
+            for (Pedido pedido : pedidoRepository.findPedidosListosSinDelivery()) {
+                LocalDateTime desde = pedido.getFechaListo() != null ? pedido.getFechaListo() : pedido.getFecha();
+                Zona zona = pedido.getDomicilio() != null
+                        ? zona(pedido.getDomicilio().getCp(), pedido.getDomicilio().getLocalidad())
+                        : SIN_ZONA;
+                enEspera.putIfAbsent(pedido.getIdPedido(), new Espera(desde, zona));
+            }
+        });
+
+        log.info("✅ Despacho de delivery: {} pedidos listos esperando asignación", enEspera.size());
+    }
+
+    // ==================== DESPACHO ====================
+
+    /**
+     * Asigna los lotes que ya pueden salir, del más antiguo al más nuevo,
+     * mientras haya deliverys por debajo del máximo de pedidos abiertos.
+     * Devuelve la cantidad de pedidos asignados.
+     */
+    @Scheduled(fixedDelayString = "${app.delivery.despacho.intervalo-ms:1000}")
+    public int despacharPendientes() {
+        if (!automatico || enEspera.isEmpty()) {
+            return 0;
+        }
+        resolverZonas();
+
+        List<Lote> lotes = armarLotes(LocalDateTime.now());
+        if (lotes.isEmpty()) {
+            return 0;
+        }
+
+        List<Usuario> deliverys = usuarioRepository.findByRolAndActivoTrue(Rol.DELIVERY);
+        if (deliverys.isEmpty()) {
+            log.debug("Despacho de delivery: no hay deliverys activos para {} pedidos", enEspera.size());
+            return 0;
+        }
+
+        Map<Long, Carga> cargas = new HashMap<>();
+        for (Usuario delivery : deliverys) {
+            cargas.put(delivery.getIdUsuario(), new Carga(0, null));
+        }
+        for (Object[] fila : pedidoRepository.findCargaPorDelivery()) {
+            Long idUsuario = (Long) fila[0];
+            if (cargas.containsKey(idUsuario)) {
+                cargas.put(idUsuario, new Carga((Long) fila[1], (LocalDateTime) fila[2]));
+            }
+        }
+
+        int cantidad = 0;
+        for (Lote lote : lotes) {
+            List<Long> idsLote = lote.idsPedidos();
+            Map.Entry<Long, Carga> elegido = cargas.entrySet().stream()
+                    .filter(e -> e.getValue().abiertos() + idsLote.size() <= maxPedidosPorDelivery)
+                    .min(Map.Entry.comparingByValue(ORDEN_CARGA))
+                    .orElseGet(() -> cargas.entrySet().stream()
+                            .filter(e -> e.getValue().abiertos() < maxPedidosPorDelivery)
+                            .min(Map.Entry.comparingByValue(ORDEN_CARGA))
+                            .orElse(null));
+            if (elegido == null) {
+                log.debug("Despacho de delivery: todos los deliverys tienen {} pedidos abiertos",
+                        maxPedidosPorDelivery);
+                break;
+            }
+
+            Long idDelivery = elegido.getKey();
+            int lugar = (int) (maxPedidosPorDelivery - elegido.getValue().abiertos());
+            List<Long> idsPedidos = idsLote.size() <= lugar ? idsLote : idsLote.subList(0, lugar);
+            try {
+                // Los eventos DELIVERY_ASIGNADO sacan de la cola a los asignados al confirmar
+                List<Long> asignadosLote = pedidoService.asignarDeliverySiLibre(idsPedidos, idDelivery);
+                registrarAsignacion(lote, asignadosLote, idDelivery, elegido.getValue(), cargas);
+                cantidad += asignadosLote.size();
+                // Asignados, asignados por otro o ya no LISTO: salen de la cola
+                idsPedidos.forEach(enEspera::remove);
+            } catch (RuntimeException e) {
+                log.error("❌ Error asignando delivery a los pedidos {}: {}", idsPedidos, e.getMessage());
+            }
+        }
+
+        if (cantidad > 0) {
+            log.info("📤 Despacho de delivery: {} pedidos asignados, {} en espera", cantidad, enEspera.size());
+        }
+        return cantidad;
+    }
+
+    private void registrarAsignacion(Lote lote, List<Long> asignadosLote, Long idDelivery, Carga carga,
+            Map<Long, Carga> cargas) {
+        if (asignadosLote.isEmpty()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Long idPedido : asignadosLote) {
+            esperaAsignacion.record(Duration.between(lote.llegadas().get(idPedido), ahora));
+        }
+        asignados.increment(asignadosLote.size());
+        tamanioLote.record(asignadosLote.size());
+
+        LocalDateTime masAntiguo = carga.masAntiguo() == null || lote.desde().isBefore(carga.masAntiguo())
+                ? lote.desde()
+                : carga.masAntiguo();
+        cargas.put(idDelivery, new Carga(carga.abiertos() + asignadosLote.size(), masAntiguo));
+
+        if (asignadosLote.size() > 1) {
+            notificationService.notificarRecorridoAsignado(idDelivery, asignadosLote,
+                    lote.zona().cp() + " " + lote.zona().localidad());
+        }
+    }
+
+    // ==================== LOTES POR ZONA ====================
+
+    /**
+     * Completa la zona de los pedidos que entraron por evento, en una consulta
+     */
+    private void resolverZonas() {
+        List<Long> sinResolver = enEspera.entrySet().stream()
+                .filter(e -> e.getValue().zona() == null)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (sinResolver.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Zona> zonas = new HashMap<>();
+        for (Object[] fila : pedidoRepository.findZonasEntrega(sinResolver)) {
+            zonas.put((Long) fila[0], zona((Integer) fila[1], (String) fila[2]));
+        }
+        for (Long idPedido : sinResolver) {
+            enEspera.computeIfPresent(idPedido,
+                    (id, espera) -> new Espera(espera.desde(), zonas.getOrDefault(id, SIN_ZONA)));
+        }
+    }
+
+    /**
+     * Agrupa la cola por zona en lotes de hasta maxPedidosPorLote, por orden de
+     * llegada. Devuelve solo los lotes completos o cuyo pedido más antiguo ya
+     * cumplió la ventana, del más antiguo al más nuevo.
+     */
+    private List<Lote> armarLotes(LocalDateTime ahora) {
+        LocalDateTime limiteVentana = ahora.minusSeconds(Math.max(0, ventanaSegundos));
+        int maxLote = Math.max(1, maxPedidosPorLote);
+
+        Map<Zona, List<Map.Entry<Long, Espera>>> porZona = new HashMap<>();
+        List<Lote> lotes = new ArrayList<>();
+        enEspera.entrySet().stream()
+                .filter(e -> e.getValue().zona() != null)
+                .sorted(Comparator.comparing((Map.Entry<Long, Espera> e) -> e.getValue().desde())
+                        .thenComparing(Map.Entry::getKey))
+                .forEach(e -> {
+                    Zona zona = e.getValue().zona();
+                    if (zona == SIN_ZONA) {
+                        lotes.add(new Lote(zona, Map.of(e.getKey(), e.getValue().desde())));
+                    } else {
+                        porZona.computeIfAbsent(zona, z -> new ArrayList<>()).add(Map.entry(e.getKey(), e.getValue()));
+                    }
+                });
+
+        porZona.forEach((zona, pedidos) -> {
+            for (int i = 0; i < pedidos.size(); i += maxLote) {
+                Map<Long, LocalDateTime> llegadas = new LinkedHashMap<>();
+                for (Map.Entry<Long, Espera> e : pedidos.subList(i, Math.min(i + maxLote, pedidos.size()))) {
+                    llegadas.put(e.getKey(), e.getValue().desde());
+                }
+                lotes.add(new Lote(zona, llegadas));
+            }
+        });
+
+        return lotes.stream()
+                .filter(l -> l.idsPedidos().size() >= maxLote || !l.desde().isAfter(limiteVentana))
+                .sorted(Comparator.comparing(Lote::desde))
+                .toList();
+    }
+
+    private static Zona zona(Integer cp, String localidad) {
+        String normalizada = localidad != null ? localidad.trim().toLowerCase(Locale.ROOT) : "";
+        return new Zona(cp, normalizada);
+    }
+}
@@ -0,0 +1,176 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.events.PedidoEvent;
+import com.elbuensabor.repository.IPedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Detector de pedidos retrasados.
+ *
+ * Cada pedido en PREPARACION tiene un vencimiento (fecha y hora estimada de
+ * finalización) en una agenda ordenada por instante. Una tarea periódica solo
+ * mira el principio de la agenda: los vencimientos ya cumplidos se quitan y se
+ * notifican por WebSocket una única vez. No se consulta la base salvo para
+ * reconstruir la agenda al iniciar la aplicación.
+ *
+ * La agenda se mantiene con los PedidoEvent: iniciar preparación o extender el
+ * tiempo (re)programa el vencimiento; cualquier otro estado lo cancela. Igual
+ * que en TableroCocinaService, los eventos con versión vieja se descartan.
+ */
+@Service
+public class DetectorRetrasosService {
+
+    private static final Logger log = LoggerFactory.getLogger(DetectorRetrasosService.class);
+
+    private static final long RETENCION_TOMBSTONES_MINUTOS = 60;
+
+    private record Vencimiento(LocalDateTime instante, Long idPedido) {
+    }
+
+    private record Entrada(long version, Vencimiento vencimiento, LocalDateTime fechaBaja) {
+    }
+
+    private static final Comparator<Vencimiento> ORDEN_VENCIMIENTO = Comparator
+            .comparing(Vencimiento::instante)
+            .thenComparing(Vencimiento::idPedido);
+
+    // Vencimientos pendientes, el más próximo primero
+    private final ConcurrentSkipListMap<Vencimiento, Boolean> agenda = new ConcurrentSkipListMap<>(
+            ORDEN_VENCIMIENTO);
+
+    // Última versión conocida de cada pedido (programados, vencidos o dados de baja)
+    private final Map<Long, Entrada> versiones = new ConcurrentHashMap<>();
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private WebSocketNotificationService notificationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter retrasosNotificados;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("cocina.retrasos.programados", agenda, Map::size)
+                .description("Pedidos en preparación con vencimiento programado")
+                .register(meterRegistry);
+        retrasosNotificados = Counter.builder("cocina.retrasos.notificados")
+                .description("Pedidos que superaron su hora estimada")
+                .register(meterRegistry);
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoEvent(PedidoEvent evento) {
+        LocalDateTime vencimiento = evento.estado() == Estado.PREPARACION
+                ? evento.horaEstimadaFinalizacion()
+                : null;
+        aplicar(evento.idPedido(), evento.version(), vencimiento);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        tx.executeWithoutResult(status -> {
+            for (Pedido pedido : pedidoRepository.findByEstadoInOrderByFechaAsc(List.of(Estado.PREPARACION))) {
+                aplicar(pedido.getIdPedido(), pedido.getVersion(), pedido.calcularFechaHoraEstimada());
+            }
+        });
+
+        log.info("✅ Agenda de retrasos reconstruida con {} pedidos en preparación", agenda.size());
+    }
+
+    /**
+     * Programa, reprograma o cancela el vencimiento del pedido si la versión es
+     * más nueva que la conocida.
+     */
+    private synchronized void aplicar(Long idPedido, Long version, LocalDateTime instante) {
+        long v = version != null ? version : 0L;
+        Entrada actual = versiones.get(idPedido);
+        if (actual != null && actual.version() >= v) {
+            return;
+        }
+
+        if (actual != null && actual.vencimiento() != null) {
+            agenda.remove(actual.vencimiento());
+        }
+
+        if (instante != null) {
+            Vencimiento vencimiento = new Vencimiento(instante, idPedido);
+            agenda.put(vencimiento, Boolean.TRUE);
+            versiones.put(idPedido, new Entrada(v, vencimiento, null));
+        } else {
+            versiones.put(idPedido, new Entrada(v, null, LocalDateTime.now()));
+        }
+    }
+
+    // ==================== DETECCIÓN ====================
+
+    /**
+     * Notifica los pedidos cuyo vencimiento ya pasó. Cada vencimiento se
+     * notifica una sola vez; una extensión de tiempo lo vuelve a programar.
+     */
+    @Scheduled(fixedDelayString = "${app.cocina.retrasos.intervalo-ms:1000}")
+    public void detectarRetrasos() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Vencimiento> vencidos = new ArrayList<>();
+
+        synchronized (this) {
+            Map.Entry<Vencimiento, Boolean> primero;
+            while ((primero = agenda.firstEntry()) != null && !primero.getKey().instante().isAfter(ahora)) {
+                Vencimiento vencimiento = primero.getKey();
+                agenda.remove(vencimiento);
+                Entrada entrada = versiones.get(vencimiento.idPedido());
+                if (entrada != null) {
+                    versiones.put(vencimiento.idPedido(), new Entrada(entrada.version(), null, null));
+                }
+                vencidos.add(vencimiento);
+            }
+            purgarTombstones(ahora);
+        }
+
+        for (Vencimiento vencimiento : vencidos) {
+            log.warn("⚠️ Pedido {} retrasado: debía estar listo a las {}",
+                    vencimiento.idPedido(), vencimiento.instante());
+            notificationService.notificarPedidoRetrasado(vencimiento.idPedido(), vencimiento.instante());
+            retrasosNotificados.increment();
+        }
+    }
+
+    private void purgarTombstones(LocalDateTime ahora) {
+        LocalDateTime limite = ahora.minusMinutes(RETENCION_TOMBSTONES_MINUTOS);
+        versiones.values().removeIf(e -> e.fechaBaja() != null && e.fechaBaja().isBefore(limite));
+    }
+}
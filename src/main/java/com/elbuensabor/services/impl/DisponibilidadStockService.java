@@ -0,0 +1,494 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.events.DisponibilidadCambiadaEvent;
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.IDetalleManufacturadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Disponibilidad de todo el menú a partir de las recetas y el stock.
+ *
+ * Guarda la matriz producto x insumo (DetalleManufacturado) en arreglos
+ * primitivos por filas (inicioFila/columnas/cantidades), el stock de cada
+ * insumo y, por cada producto, la cantidad máxima preparable: el mínimo de
+ * floor(stock / cantidad) sobre su receta. Un índice inverso insumo →
+ * productos permite recalcular solo los productos afectados cuando cambia el
+ * stock de un insumo.
+ *
+ * El estado es inmutable y se reemplaza en cada cambio; leer no toma locks ni
+ * consulta la base. Los servicios que mueven stock llaman a
+ * actualizarStockAlConfirmar (se relee el stock de esos insumos después del
+ * commit) y los que cambian recetas o altas/bajas de insumos a
+ * recargarAlConfirmar. La recarga completa periódica
+ * (app.disponibilidad.recarga-ms) cubre los cambios que no pasan por ellos.
+ * La recarga lee la base sin bloquear a los que escriben: el stock releído
+ * por una actualización puntual posterior al inicio de la lectura se
+ * conserva, y una recarga que termina después de otra más nueva se descarta.
+ *
+ * Cuando un artículo pasa de disponible a agotado o al revés se publica
+ * DisponibilidadCambiadaEvent. La reserva de stock del pedido (UPDATE
+ * condicional) sigue siendo la que decide: esto es una vista de lectura.
+ */
+@Service
+public class DisponibilidadStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadStockService.class);
+
+    /**
+     * Recetas en arreglos por filas. Los productos sin receta no aparecen.
+     * usos: para el insumo i, los productos usos[inicioUso[i]..inicioUso[i+1]).
+     */
+    private record Recetas(Map<Long, Integer> posicionProducto, long[] idsProducto, int[] inicioFila,
+            int[] columnas, double[] cantidades, Map<Long, Integer> posicionInsumo, long[] idsInsumo,
+            int[] inicioUso, int[] usos) {
+    }
+
+    private record Estado(Recetas recetas, double[] stock, int[] maximoPreparable) {
+    }
+
+    private static final Estado VACIO = new Estado(
+            new Recetas(Map.of(), new long[0], new int[1], new int[0], new double[0], Map.of(), new long[0],
+                    new int[1], new int[0]),
+            new double[0], new int[0]);
+
+    private volatile Estado estado = VACIO;
+
+    // Serializa a los que escriben; los lectores solo leen la referencia
+    private final Object escritura = new Object();
+
+    // Generación de la última actualización puntual de cada insumo y número de
+    // la última recarga aplicada (bajo escritura)
+    private long generacion;
+    private final Map<Long, Long> escritos = new HashMap<>();
+    private long recargasIniciadas;
+    private long ultimaRecargaAplicada;
+
+    @Autowired
+    private IArticuloInsumoRepository insumoRepository;
+
+    @Autowired
+    private IDetalleManufacturadoRepository detalleManufacturadoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter recalculados;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("disponibilidad.agotados", this, s -> s.contarAgotados())
+                .description("Productos con receta que no se pueden preparar con el stock actual")
+                .register(meterRegistry);
+        recalculados = Counter.builder("disponibilidad.recalculados")
+                .description("Productos recalculados por cambios de stock de sus insumos")
+                .register(meterRegistry);
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Cantidad máxima preparable del producto con el stock actual.
+     * Integer.MAX_VALUE si no tiene receta (no depende del stock).
+     */
+    public int maximoPreparable(Long idManufacturado) {
+        Estado actual = estado;
+        Integer p = idManufacturado != null ? actual.recetas().posicionProducto().get(idManufacturado) : null;
+        return p != null ? actual.maximoPreparable()[p] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Stock actual del insumo, o 0 si no se conoce
+     */
+    public double stock(Long idInsumo) {
+        Estado actual = estado;
+        Integer i = idInsumo != null ? actual.recetas().posicionInsumo().get(idInsumo) : null;
+        return i != null ? actual.stock()[i] : 0.0;
+    }
+
+    /**
+     * true si se puede vender al menos una unidad: un producto con al menos
+     * una unidad preparable o un insumo con stock > 0
+     */
+    public boolean disponible(Long idArticulo) {
+        Estado actual = estado;
+        Integer i = idArticulo != null ? actual.recetas().posicionInsumo().get(idArticulo) : null;
+        if (i != null) {
+            return actual.stock()[i] > 0;
+        }
+        return maximoPreparable(idArticulo) >= 1;
+    }
+
+    /**
+     * true si el artículo está en el motor: un producto con receta o un insumo
+     */
+    public boolean conoce(Long idArticulo) {
+        Recetas recetas = estado.recetas();
+        return idArticulo != null && (recetas.posicionProducto().containsKey(idArticulo)
+                || recetas.posicionInsumo().containsKey(idArticulo));
+    }
+
+    /**
+     * Explota unidades por artículo en cantidades totales por insumo (ordenadas
+     * por ID): los productos por su receta, los insumos de venta directa por
+     * unidad. Un producto sin receta no consume stock.
+     */
+    public Map<Long, Double> consumoPorInsumo(Map<Long, Integer> unidadesPorArticulo) {
+        Estado actual = estado;
+        Recetas recetas = actual.recetas();
+        Map<Long, Double> consumo = new TreeMap<>();
+
+        unidadesPorArticulo.forEach((idArticulo, unidades) -> {
+            Integer p = recetas.posicionProducto().get(idArticulo);
+            if (p != null) {
+                for (int k = recetas.inicioFila()[p]; k < recetas.inicioFila()[p + 1]; k++) {
+                    consumo.merge(recetas.idsInsumo()[recetas.columnas()[k]], recetas.cantidades()[k] * unidades,
+                            Double::sum);
+                }
+            } else if (recetas.posicionInsumo().containsKey(idArticulo)) {
+                consumo.merge(idArticulo, unidades.doubleValue(), Double::sum);
+            }
+        });
+        return consumo;
+    }
+
+    /**
+     * Productos cuya receta usa alguno de los insumos dados (índice inverso)
+     */
+    public Set<Long> productosQueUsan(Collection<Long> idsInsumos) {
+        Recetas recetas = estado.recetas();
+        Set<Long> productos = new HashSet<>();
+        for (Long idInsumo : idsInsumos) {
+            Integer i = idInsumo != null ? recetas.posicionInsumo().get(idInsumo) : null;
+            if (i == null) {
+                continue;
+            }
+            for (int k = recetas.inicioUso()[i]; k < recetas.inicioUso()[i + 1]; k++) {
+                productos.add(recetas.idsProducto()[recetas.usos()[k]]);
+            }
+        }
+        return productos;
+    }
+
+    /**
+     * Primer insumo cuyo stock no alcanza para el consumo dado, o null
+     */
+    public Long primerFaltante(Map<Long, Double> consumoPorInsumo) {
+        for (Map.Entry<Long, Double> entrada : consumoPorInsumo.entrySet()) {
+            if (stock(entrada.getKey()) < entrada.getValue()) {
+                return entrada.getKey();
+            }
+        }
+        return null;
+    }
+
+    private long contarAgotados() {
+        int[] maximos = estado.maximoPreparable();
+        long agotados = 0;
+        for (int maximo : maximos) {
+            if (maximo < 1) {
+                agotados++;
+            }
+        }
+        return agotados;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Relee el stock de los insumos cuando confirma la transacción actual (o
+     * en el momento, si no hay una) y recalcula los productos que los usan
+     */
+    public void actualizarStockAlConfirmar(Collection<Long> idsInsumos) {
+        Set<Long> ids = new HashSet<>(idsInsumos);
+        ids.remove(null);
+        if (!ids.isEmpty()) {
+            alConfirmar(() -> actualizarStock(ids));
+        }
+    }
+
+    /**
+     * Recarga recetas y stock al confirmar (cambios de recetas, altas y bajas
+     * de insumos)
+     */
+    public void recargarAlConfirmar() {
+        alConfirmar(this::recargar);
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private void actualizarStock(Set<Long> ids) {
+        List<Object[]> filas;
+        try {
+            filas = insumoRepository.findStockByIdIn(ids);
+        } catch (RuntimeException e) {
+            // La recarga periódica corrige el valor
+            log.error("❌ Error leyendo stock de {} para disponibilidad: {}", ids, e.getMessage());
+            return;
+        }
+
+        Set<Long> cambiados = new HashSet<>();
+        boolean desconocidos = false;
+
+        synchronized (escritura) {
+            Estado actual = estado;
+            Recetas recetas = actual.recetas();
+            double[] stock = actual.stock().clone();
+            BitSet afectados = new BitSet(recetas.idsProducto().length);
+
+            for (Object[] fila : filas) {
+                Long idInsumo = (Long) fila[0];
+                Integer i = recetas.posicionInsumo().get(idInsumo);
+                if (i == null) {
+                    desconocidos = true;
+                    continue;
+                }
+                double nuevo = fila[1] != null ? (Double) fila[1] : 0.0;
+                if ((stock[i] > 0) != (nuevo > 0)) {
+                    cambiados.add(idInsumo);
+                }
+                stock[i] = nuevo;
+                escritos.put(idInsumo, generacion + 1);
+                for (int k = recetas.inicioUso()[i]; k < recetas.inicioUso()[i + 1]; k++) {
+                    afectados.set(recetas.usos()[k]);
+                }
+            }
+
+            int[] maximos = actual.maximoPreparable().clone();
+            for (int p = afectados.nextSetBit(0); p >= 0; p = afectados.nextSetBit(p + 1)) {
+                int antes = maximos[p];
+                maximos[p] = calcularMaximo(recetas, stock, p);
+                if ((antes >= 1) != (maximos[p] >= 1)) {
+                    cambiados.add(recetas.idsProducto()[p]);
+                }
+            }
+            estado = new Estado(recetas, stock, maximos);
+            generacion++;
+            recalculados.increment(afectados.cardinality());
+        }
+
+        if (desconocidos) {
+            recargar();
+        } else if (!cambiados.isEmpty()) {
+            log.info("📦 Cambió la disponibilidad de {} artículos", cambiados.size());
+            eventPublisher.publishEvent(new DisponibilidadCambiadaEvent(Set.copyOf(cambiados)));
+        }
+    }
+
+    /**
+     * Recarga recetas y stock, calculando todos los productos en una pasada
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Scheduled(initialDelayString = "${app.disponibilidad.recarga-ms:60000}",
+            fixedDelayString = "${app.disponibilidad.recarga-ms:60000}")
+    public void recargar() {
+        long desde;
+        long numero;
+        synchronized (escritura) {
+            desde = generacion;
+            numero = ++recargasIniciadas;
+        }
+
+        Estado leido = armar(insumoRepository.findStock(), detalleManufacturadoRepository.findRecetas());
+
+        Set<Long> cambiados;
+        Estado nuevo;
+        synchronized (escritura) {
+            if (numero < ultimaRecargaAplicada) {
+                log.debug("Disponibilidad: recarga {} descartada, ya se aplicó la {}", numero, ultimaRecargaAplicada);
+                return;
+            }
+            Estado anterior = estado;
+            nuevo = conservarEscritos(anterior, leido, desde);
+            escritos.values().removeIf(g -> g <= desde);
+            cambiados = anterior == VACIO ? Set.of() : diferencias(anterior, nuevo);
+            estado = nuevo;
+            ultimaRecargaAplicada = numero;
+        }
+
+        log.info("✅ Disponibilidad cargada: {} productos con receta, {} insumos",
+                nuevo.recetas().idsProducto().length, nuevo.recetas().idsInsumo().length);
+        if (!cambiados.isEmpty()) {
+            eventPublisher.publishEvent(new DisponibilidadCambiadaEvent(cambiados));
+        }
+    }
+
+    /**
+     * Estado leído con el stock de memoria para los insumos actualizados
+     * después de empezar la lectura (su valor es más nuevo que el leído),
+     * recalculando los productos que los usan
+     */
+    private Estado conservarEscritos(Estado anterior, Estado leido, long desde) {
+        Recetas recetas = leido.recetas();
+        double[] stock = null;
+        BitSet afectados = new BitSet(recetas.idsProducto().length);
+
+        for (Map.Entry<Long, Long> escrito : escritos.entrySet()) {
+            if (escrito.getValue() <= desde) {
+                continue;
+            }
+            Integer i = recetas.posicionInsumo().get(escrito.getKey());
+            Integer previo = anterior.recetas().posicionInsumo().get(escrito.getKey());
+            if (i == null || previo == null) {
+                continue;
+            }
+            if (stock == null) {
+                stock = leido.stock().clone();
+            }
+            stock[i] = anterior.stock()[previo];
+            for (int k = recetas.inicioUso()[i]; k < recetas.inicioUso()[i + 1]; k++) {
+                afectados.set(recetas.usos()[k]);
+            }
+        }
+        if (stock == null) {
+            return leido;
+        }
+
+        int[] maximos = leido.maximoPreparable().clone();
+        for (int p = afectados.nextSetBit(0); p >= 0; p = afectados.nextSetBit(p + 1)) {
+            maximos[p] = calcularMaximo(recetas, stock, p);
+        }
+        return new Estado(recetas, stock, maximos);
+    }
+
+    private Estado armar(List<Object[]> filasStock, List<Object[]> filasRecetas) {
+        // Insumos
+        long[] idsInsumo = new long[filasStock.size()];
+        double[] stock = new double[filasStock.size()];
+        Map<Long, Integer> posicionInsumo = new HashMap<>();
+        for (int i = 0; i < filasStock.size(); i++) {
+            Object[] fila = filasStock.get(i);
+            idsInsumo[i] = (Long) fila[0];
+            stock[i] = fila[1] != null ? (Double) fila[1] : 0.0;
+            posicionInsumo.put(idsInsumo[i], i);
+        }
+
+        // Recetas agrupadas por producto (ordenadas por ID)
+        Map<Long, List<Object[]>> porProducto = new TreeMap<>();
+        for (Object[] fila : filasRecetas) {
+            if (posicionInsumo.containsKey((Long) fila[1])) {
+                porProducto.computeIfAbsent((Long) fila[0], id -> new ArrayList<>()).add(fila);
+            }
+        }
+
+        long[] idsProducto = new long[porProducto.size()];
+        int[] inicioFila = new int[porProducto.size() + 1];
+        int[] columnas = new int[filasRecetas.size()];
+        double[] cantidades = new double[filasRecetas.size()];
+        int[] usosPorInsumo = new int[idsInsumo.length];
+        Map<Long, Integer> posicionProducto = new HashMap<>();
+
+        int p = 0;
+        int k = 0;
+        for (Map.Entry<Long, List<Object[]>> entrada : porProducto.entrySet()) {
+            idsProducto[p] = entrada.getKey();
+            posicionProducto.put(entrada.getKey(), p);
+            inicioFila[p] = k;
+            for (Object[] fila : entrada.getValue()) {
+                int i = posicionInsumo.get((Long) fila[1]);
+                columnas[k] = i;
+                cantidades[k] = fila[2] != null ? (Double) fila[2] : 0.0;
+                usosPorInsumo[i]++;
+                k++;
+            }
+            p++;
+        }
+        inicioFila[p] = k;
+
+        // Índice inverso insumo → productos
+        int[] inicioUso = new int[idsInsumo.length + 1];
+        for (int i = 0; i < idsInsumo.length; i++) {
+            inicioUso[i + 1] = inicioUso[i] + usosPorInsumo[i];
+        }
+        int[] usos = new int[k];
+        int[] siguiente = inicioUso.clone();
+        for (int producto = 0; producto < idsProducto.length; producto++) {
+            for (int j = inicioFila[producto]; j < inicioFila[producto + 1]; j++) {
+                usos[siguiente[columnas[j]]++] = producto;
+            }
+        }
+
+        Recetas recetas = new Recetas(Map.copyOf(posicionProducto), idsProducto, inicioFila, columnas, cantidades,
+                Map.copyOf(posicionInsumo), idsInsumo, inicioUso, usos);
+
+        int[] maximos = new int[idsProducto.length];
+        for (int producto = 0; producto < idsProducto.length; producto++) {
+            maximos[producto] = calcularMaximo(recetas, stock, producto);
+        }
+        return new Estado(recetas, stock, maximos);
+    }
+
+    /**
+     * Mínimo de floor(stock / cantidad) sobre la receta, como
+     * ArticuloManufacturado.calcularCantidadMaximaPreparable
+     */
+    private static int calcularMaximo(Recetas recetas, double[] stock, int producto) {
+        long minimo = Integer.MAX_VALUE;
+        for (int k = recetas.inicioFila()[producto]; k < recetas.inicioFila()[producto + 1]; k++) {
+            double cantidad = recetas.cantidades()[k];
+            if (cantidad > 0) {
+                minimo = Math.min(minimo, (long) Math.floor(stock[recetas.columnas()[k]] / cantidad));
+            }
+        }
+        return (int) Math.max(0, minimo);
+    }
+
+    private static Set<Long> diferencias(Estado anterior, Estado nuevo) {
+        Set<Long> cambiados = new HashSet<>();
+        Recetas recetas = nuevo.recetas();
+        for (int p = 0; p < recetas.idsProducto().length; p++) {
+            Integer antes = anterior.recetas().posicionProducto().get(recetas.idsProducto()[p]);
+            boolean disponibleAntes = antes == null || anterior.maximoPreparable()[antes] >= 1;
+            if (disponibleAntes != (nuevo.maximoPreparable()[p] >= 1)) {
+                cambiados.add(recetas.idsProducto()[p]);
+            }
+        }
+        for (int i = 0; i < recetas.idsInsumo().length; i++) {
+            Integer antes = anterior.recetas().posicionInsumo().get(recetas.idsInsumo()[i]);
+            boolean disponibleAntes = antes != null && anterior.stock()[antes] > 0;
+            if (disponibleAntes != (nuevo.stock()[i] > 0)) {
+                cambiados.add(recetas.idsInsumo()[i]);
+            }
+        }
+        return cambiados;
+    }
+}
@@ -0,0 +1,255 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.DetallePedido;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.PromocionDetalle;
+import com.elbuensabor.events.PedidoEvent;
+import com.elbuensabor.events.TipoEventoPedido;
+import com.elbuensabor.repository.IPedidoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Estimador de tiempos de cocina.
+ *
+ * Modela la cocina como una cola atendida por N cocineros: cada pedido activo
+ * (PENDIENTE o PREPARACION) aporta su trabajo, la suma de
+ * tiempoEstimadoEnMinutos de sus manufacturados por cantidad. La espera de un
+ * pedido nuevo es trabajoEnCola / cocineros, más su propio tiempo, que nunca
+ * baja del plato más lento. El total en cola se mantiene incrementalmente con
+ * los PedidoEvent, así que estimar es O(1) respecto del tamaño de la cola.
+ *
+ * Al pasar a LISTO se compara la hora real con la estimada originalmente y el
+ * error queda en la métrica cocina.eta.error.
+ */
+@Service
+public class EstimadorTiempoCocinaService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstimadorTiempoCocinaService.class);
+
+    // Pedidos sin elaborados (solo bebidas): tiempo de armado
+    private static final int MINUTOS_SIN_COCINA = 5;
+
+    public record Estimacion(LocalDateTime horaEstimada, double trabajoMinutos) {
+    }
+
+    private record Carga(double trabajoMinutos, int platoMasLento) {
+    }
+
+    private static final class EnCola {
+        private final double trabajoMinutos;
+        private final LocalDateTime horaEstimadaOriginal;
+        private volatile LocalDateTime inicioPreparacion;
+
+        private EnCola(double trabajoMinutos, LocalDateTime horaEstimadaOriginal) {
+            this.trabajoMinutos = trabajoMinutos;
+            this.horaEstimadaOriginal = horaEstimadaOriginal;
+        }
+    }
+
+    private final Map<Long, EnCola> enCola = new ConcurrentHashMap<>();
+    private final DoubleAdder trabajoEnCola = new DoubleAdder();
+
+    @Value("${app.cocina.cocineros:2}")
+    private int cocineros;
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private DistributionSummary errorEstimacion;
+    private Timer duracionPreparacion;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("cocina.cola.minutos", trabajoEnCola, DoubleAdder::sum)
+                .description("Minutos de trabajo de cocina pendientes")
+                .register(meterRegistry);
+        Gauge.builder("cocina.cola.pedidos", enCola, Map::size)
+                .description("Pedidos en la cola de cocina")
+                .register(meterRegistry);
+        errorEstimacion = DistributionSummary.builder("cocina.eta.error")
+                .description("Diferencia absoluta entre la hora estimada y la real al pasar a LISTO")
+                .baseUnit("minutes")
+                .publishPercentiles(0.5, 0.9)
+                .register(meterRegistry);
+        duracionPreparacion = Timer.builder("cocina.preparacion.duracion")
+                .description("Tiempo real entre inicio de preparación y LISTO")
+                .register(meterRegistry);
+    }
+
+    // ==================== ESTIMACIÓN ====================
+
+    /**
+     * Estima la hora de finalización de un pedido nuevo según la cola actual.
+     * El pedido debe tener sus detalles (con artículos) ya armados.
+     */
+    public Estimacion estimar(Pedido pedido) {
+        Carga carga = calcularCarga(pedido);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        if (carga.trabajoMinutos() == 0) {
+            return new Estimacion(ahora.plusMinutes(MINUTOS_SIN_COCINA), 0);
+        }
+
+        int n = Math.max(1, cocineros);
+        double espera = trabajoEnCola.sum() / n;
+        double propio = Math.max(carga.platoMasLento(), carga.trabajoMinutos() / n);
+        long minutos = (long) Math.ceil(espera + propio);
+
+        return new Estimacion(ahora.plusMinutes(minutos), carga.trabajoMinutos());
+    }
+
+    /**
+     * Suma el pedido a la cola cuando la transacción que lo crea confirma
+     */
+    public void encolar(Long idPedido, Estimacion estimacion) {
+        if (estimacion.trabajoMinutos() == 0) {
+            return;
+        }
+        Runnable alta = () -> agregar(idPedido, estimacion.trabajoMinutos(), estimacion.horaEstimada());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    alta.run();
+                }
+            });
+        } else {
+            alta.run();
+        }
+    }
+
+    // ==================== MANTENIMIENTO DE LA COLA ====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoEvent(PedidoEvent evento) {
+        if (evento.tipo() == TipoEventoPedido.PREPARACION_INICIADA) {
+            EnCola pedido = enCola.get(evento.idPedido());
+            if (pedido != null) {
+                pedido.inicioPreparacion = evento.fechaEvento();
+            }
+            return;
+        }
+
+        if (evento.estado() == Estado.PENDIENTE || evento.estado() == Estado.PREPARACION) {
+            return;
+        }
+
+        EnCola pedido = enCola.remove(evento.idPedido());
+        if (pedido == null) {
+            return;
+        }
+        trabajoEnCola.add(-pedido.trabajoMinutos);
+
+        if (evento.estado() == Estado.LISTO) {
+            registrarPrecision(evento.idPedido(), pedido, evento.fechaEvento());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        tx.executeWithoutResult(status -> {
+            List<Pedido> activos = pedidoRepository.findByEstadoInOrderByFechaAsc(
+                    List.of(Estado.PENDIENTE, Estado.PREPARACION));
+            for (Pedido pedido : activos) {
+                double trabajo = calcularCarga(pedido).trabajoMinutos();
+                if (trabajo > 0) {
+                    agregar(pedido.getIdPedido(), trabajo, pedido.calcularFechaHoraEstimada());
+                    enCola.get(pedido.getIdPedido()).inicioPreparacion = pedido.getFechaInicioPreparacion();
+                }
+            }
+        });
+
+        log.info("✅ Cola de cocina reconstruida: {} pedidos, {} minutos de trabajo",
+                enCola.size(), Math.round(trabajoEnCola.sum()));
+    }
+
+    private void agregar(Long idPedido, double trabajo, LocalDateTime horaEstimada) {
+        EnCola anterior = enCola.putIfAbsent(idPedido, new EnCola(trabajo, horaEstimada));
+        if (anterior == null) {
+            trabajoEnCola.add(trabajo);
+        }
+    }
+
+    private void registrarPrecision(Long idPedido, EnCola pedido, LocalDateTime fechaListo) {
+        if (pedido.horaEstimadaOriginal != null) {
+            long errorMinutos = Duration.between(pedido.horaEstimadaOriginal, fechaListo).toMinutes();
+            errorEstimacion.record(Math.abs(errorMinutos));
+            log.debug("⏱️ Pedido {}: listo {} min {} de lo estimado", idPedido, Math.abs(errorMinutos),
+                    errorMinutos > 0 ? "después" : "antes");
+        }
+        if (pedido.inicioPreparacion != null) {
+            duracionPreparacion.record(Duration.between(pedido.inicioPreparacion, fechaListo));
+        }
+    }
+
+    // ==================== CARGA POR PEDIDO ====================
+
+    /**
+     * Minutos de cocina del pedido (combos desglosados) y el plato más lento
+     */
+    private Carga calcularCarga(Pedido pedido) {
+        double trabajo = 0;
+        int platoMasLento = 0;
+
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            if (detalle.getPromocionAplicada() != null) {
+                for (PromocionDetalle pd : detalle.getPromocionAplicada().getDetalles()) {
+                    int tiempo = tiempoPreparacion(pd.getArticulo());
+                    trabajo += (double) tiempo * pd.getCantidad() * detalle.getCantidad();
+                    platoMasLento = Math.max(platoMasLento, tiempo);
+                }
+            } else {
+                int tiempo = tiempoPreparacion(detalle.getArticulo());
+                trabajo += (double) tiempo * detalle.getCantidad();
+                platoMasLento = Math.max(platoMasLento, tiempo);
+            }
+        }
+
+        return new Carga(trabajo, platoMasLento);
+    }
+
+    private int tiempoPreparacion(Articulo articulo) {
+        if (Hibernate.unproxy(articulo) instanceof ArticuloManufacturado manufacturado
+                && manufacturado.getTiempoEstimadoEnMinutos() != null) {
+            return Math.max(0, manufacturado.getTiempoEstimadoEnMinutos());
+        }
+        return 0;
+    }
+}
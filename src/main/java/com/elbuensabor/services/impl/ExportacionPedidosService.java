@@ -0,0 +1,251 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.repository.IPedidoRepository;
+import com.elbuensabor.repository.IPedidoRepository.FilaExportacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de pedidos con sus renglones para un rango de días.
+ *
+ * Recorre filas escalares (un renglón por fila, ordenadas por pedido) del
+ * archivo y de las tablas operativas, y escribe cada fila o pedido apenas se
+ * completa: en memoria hay como máximo un pedido por vez, sin importar el
+ * tamaño del rango. Al no cargar entidades, el contexto de persistencia no
+ * crece y no hace falta limpiarlo.
+ */
+@Service
+public class ExportacionPedidosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionPedidosService.class);
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String[] COLUMNAS_CSV = {
+            "id_pedido", "fecha", "estado", "tipo_envio", "forma_pago", "pago_confirmado", "total",
+            "total_costo", "nombre_cliente", "apellido_cliente", "email_cliente", "id_detalle_pedido",
+            "id_articulo", "articulo", "cantidad", "precio_unitario_original", "descuento_promocion",
+            "subtotal", "promocion"
+    };
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private ArchivoPedidosService archivoPedidosService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escribe los pedidos entre dos días (ambos inclusive) en la salida:
+     * primero los archivados y luego los de las tablas operativas. Se llama
+     * desde el StreamingResponseBody: la transacción vive lo que dura la
+     * escritura.
+     */
+    @Transactional(readOnly = true)
+    public void exportar(LocalDate desde, LocalDate hasta, Formato formato, OutputStream salida) {
+        validarRango(desde, hasta);
+
+        LocalDateTime inicio = desde.atStartOfDay();
+        LocalDateTime fin = hasta.plusDays(1).atStartOfDay();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+
+        try {
+            Escritor escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer);
+
+            // Cada lectura se cierra antes de la siguiente (misma conexión)
+            archivoPedidosService.recorrerParaExportacion(inicio, fin, escritor::escribirSinChequeo);
+            try (Stream<FilaExportacion> stream = pedidoRepository.streamParaExportacion(inicio, fin)) {
+                stream.forEach(escritor::escribirSinChequeo);
+            }
+
+            escritor.terminar();
+            writer.flush();
+            log.info("📤 Exportación {} del {} al {}: {} registros", formato, desde, hasta, escritor.cantidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+    }
+
+    /** Recibe las filas de a una, en orden de pedido */
+    private abstract static class Escritor {
+        protected final Writer writer;
+        protected long cantidad;
+
+        protected Escritor(Writer writer) {
+            this.writer = writer;
+        }
+
+        abstract void escribir(FilaExportacion fila) throws IOException;
+
+        void terminar() throws IOException {
+        }
+
+        void escribirSinChequeo(FilaExportacion fila) {
+            try {
+                escribir(fila);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // ==================== CSV ====================
+
+    /**
+     * Un renglón por línea, con los datos del pedido repetidos
+     */
+    private static final class EscritorCsv extends Escritor {
+
+        private EscritorCsv(Writer writer) throws IOException {
+            super(writer);
+            writer.write(String.join(",", COLUMNAS_CSV));
+            writer.write("\n");
+        }
+
+        @Override
+        void escribir(FilaExportacion f) throws IOException {
+            Object[] valores = {
+                    f.getIdPedido(), f.getFecha(), f.getEstado(), f.getTipoEnvio(), f.getFormaPago(),
+                    f.getPagoConfirmado(), f.getTotal(), f.getTotalCosto(), f.getNombreCliente(),
+                    f.getApellidoCliente(), f.getEmailCliente(), f.getIdDetallePedido(), f.getIdArticulo(),
+                    f.getArticulo(), f.getCantidad(), f.getPrecioUnitarioOriginal(), f.getDescuentoPromocion(),
+                    f.getSubtotal(), f.getPromocion()
+            };
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(campoCsv(valores[i]));
+            }
+            writer.write("\n");
+            cantidad++;
+        }
+
+        private String campoCsv(Object valor) {
+            if (valor == null) {
+                return "";
+            }
+            String texto = valor.toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0
+                    || texto.indexOf('\r') >= 0) {
+                return '"' + texto.replace("\"", "\"\"") + '"';
+            }
+            return texto;
+        }
+    }
+
+    // ==================== NDJSON ====================
+
+    /**
+     * Un pedido por línea con sus renglones en "detalles". Las filas llegan
+     * ordenadas por pedido: se escribe cada pedido al aparecer el siguiente.
+     */
+    private final class EscritorNdjson extends Escritor {
+        private Map<String, Object> actual;
+        private List<Map<String, Object>> detalles;
+        private Long idActual;
+
+        private EscritorNdjson(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void escribir(FilaExportacion f) throws IOException {
+            if (!f.getIdPedido().equals(idActual)) {
+                terminar();
+                idActual = f.getIdPedido();
+                detalles = new ArrayList<>();
+                actual = pedido(f, detalles);
+            }
+            if (f.getIdDetallePedido() != null) {
+                detalles.add(detalle(f));
+            }
+        }
+
+        @Override
+        void terminar() throws IOException {
+            if (actual != null) {
+                writer.write(objectMapper.writeValueAsString(actual));
+                writer.write("\n");
+                cantidad++;
+                actual = null;
+            }
+        }
+    }
+
+    private Map<String, Object> pedido(FilaExportacion f, List<Map<String, Object>> detalles) {
+        Map<String, Object> pedido = new LinkedHashMap<>();
+        pedido.put("idPedido", f.getIdPedido());
+        pedido.put("fecha", f.getFecha());
+        pedido.put("estado", f.getEstado());
+        pedido.put("tipoEnvio", f.getTipoEnvio());
+        pedido.put("formaPago", f.getFormaPago());
+        pedido.put("pagoConfirmado", f.getPagoConfirmado());
+        pedido.put("total", f.getTotal());
+        pedido.put("totalCosto", f.getTotalCosto());
+        pedido.put("nombreCliente", f.getNombreCliente());
+        pedido.put("apellidoCliente", f.getApellidoCliente());
+        pedido.put("emailCliente", f.getEmailCliente());
+        pedido.put("detalles", detalles);
+        return pedido;
+    }
+
+    private Map<String, Object> detalle(FilaExportacion f) {
+        Map<String, Object> detalle = new LinkedHashMap<>();
+        detalle.put("idDetallePedido", f.getIdDetallePedido());
+        detalle.put("idArticulo", f.getIdArticulo());
+        detalle.put("articulo", f.getArticulo());
+        detalle.put("cantidad", f.getCantidad());
+        detalle.put("precioUnitarioOriginal", f.getPrecioUnitarioOriginal());
+        detalle.put("descuentoPromocion", f.getDescuentoPromocion());
+        detalle.put("subtotal", f.getSubtotal());
+        detalle.put("promocion", f.getPromocion());
+        return detalle;
+    }
+}
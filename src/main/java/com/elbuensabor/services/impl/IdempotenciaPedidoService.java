@@ -0,0 +1,136 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.pedido.CrearPedidoRequest;
+import com.elbuensabor.dto.response.pedido.PedidoClienteResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotencia de POST /api/pedidos a partir del header Idempotency-Key.
+ *
+ * Guarda en memoria, por usuario + clave, el resultado de la creación. Un
+ * reintento con la misma clave devuelve la respuesta original sin volver a
+ * calcular precios ni persistir; si la primera petición todavía está en curso,
+ * el duplicado espera su resultado. Si la creación falla la clave se libera
+ * para que el cliente pueda reintentar.
+ *
+ * El almacén está acotado (entradas más viejas primero) y cada entrada vence
+ * a las app.pedidos.idempotencia.ttl-minutos.
+ */
+@Service
+public class IdempotenciaPedidoService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaPedidoService.class);
+
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 30;
+    private static final int LARGO_MAXIMO_CLAVE = 100;
+
+    public record Resultado(PedidoClienteResponse pedido, boolean repetido) {
+    }
+
+    private record Entrada(CrearPedidoRequest request, CompletableFuture<PedidoClienteResponse> resultado,
+            long venceEnMs) {
+    }
+
+    // Orden de inserción = orden de vencimiento (TTL fijo)
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+
+    private final int maximoEntradas;
+    private final long ttlMs;
+
+    public IdempotenciaPedidoService(
+            @Value("${app.pedidos.idempotencia.max-claves:10000}") int maximoEntradas,
+            @Value("${app.pedidos.idempotencia.ttl-minutos:1440}") long ttlMinutos) {
+        this.maximoEntradas = maximoEntradas;
+        this.ttlMs = Duration.ofMinutes(ttlMinutos).toMillis();
+    }
+
+    /**
+     * Ejecuta la creación una sola vez por (usuario, clave). Lanza
+     * IllegalArgumentException si la clave ya se usó con otro pedido.
+     */
+    public Resultado ejecutar(Long idUsuario, String clave, CrearPedidoRequest request,
+            Supplier<PedidoClienteResponse> creacion) {
+        if (clave.isBlank() || clave.length() > LARGO_MAXIMO_CLAVE) {
+            throw new IllegalArgumentException("Idempotency-Key inválida");
+        }
+
+        String id = idUsuario + ":" + clave;
+        CompletableFuture<PedidoClienteResponse> propio = new CompletableFuture<>();
+        Entrada existente;
+
+        synchronized (entradas) {
+            long ahora = System.currentTimeMillis();
+            purgar(ahora);
+            existente = entradas.get(id);
+            if (existente == null) {
+                entradas.put(id, new Entrada(request, propio, ahora + ttlMs));
+            }
+        }
+
+        if (existente != null) {
+            if (!existente.request().equals(request)) {
+                log.warn("❌ Idempotency-Key {} reutilizada con un pedido distinto (usuario {})", clave, idUsuario);
+                throw new IllegalArgumentException("La Idempotency-Key ya fue usada con otro pedido");
+            }
+            log.info("🔁 Pedido repetido con Idempotency-Key {} (usuario {})", clave, idUsuario);
+            return new Resultado(esperar(existente.resultado()), true);
+        }
+
+        try {
+            PedidoClienteResponse response = creacion.get();
+            propio.complete(response);
+            return new Resultado(response, false);
+        } catch (RuntimeException e) {
+            synchronized (entradas) {
+                entradas.remove(id);
+            }
+            propio.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private PedidoClienteResponse esperar(CompletableFuture<PedidoClienteResponse> resultado) {
+        try {
+            return resultado.get(ESPERA_MAXIMA_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("El pedido original todavía se está procesando");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera del pedido original interrumpida");
+        }
+    }
+
+    /**
+     * Elimina entradas vencidas y, si se supera el máximo, las más antiguas
+     * ya resueltas. Debe llamarse con el lock tomado.
+     */
+    private void purgar(long ahora) {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            boolean vencida = entrada.venceEnMs() <= ahora;
+            boolean excedida = entradas.size() >= maximoEntradas && entrada.resultado().isDone();
+            if (!vencida && !excedida) {
+                break;
+            }
+            it.remove();
+        }
+    }
+}
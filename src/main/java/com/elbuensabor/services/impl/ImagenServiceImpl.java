@@ -40,6 +40,9 @@ public class ImagenServiceImpl implements IImagenService {
     @Autowired
     private IPromocionRepository promocionRepository;
 
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
     @Value("${app.upload.dir:src/main/resources/static/img/}")
     private String uploadDir;
 
@@ -67,6 +70,7 @@ public class ImagenServiceImpl implements IImagenService {
     @Override
     @Transactional
     public Imagen save(Imagen imagen) {
+        catalogoCache.invalidarAlConfirmar();
         return imagenRepository.save(imagen);
     }
 
@@ -74,6 +78,7 @@ public class ImagenServiceImpl implements IImagenService {
     @Transactional
     public void delete(Long id) {
         imagenRepository.deleteById(id);
+        catalogoCache.invalidarAlConfirmar();
     }
 
     // ==================== OPERACIONES CON ARCHIVOS ====================
@@ -187,6 +192,7 @@ public class ImagenServiceImpl implements IImagenService {
 
         // 4. Eliminar el registro de la base de datos.
         imagenRepository.delete(imagen);
+        catalogoCache.invalidarAlConfirmar();
         logger.info("🗑️ Registro de imagen eliminado de la BD (ID: {})", id);
 
         // 5. Si se obtuvo un nombre de archivo, intentar eliminar el archivo físico.
@@ -278,6 +284,7 @@ public class ImagenServiceImpl implements IImagenService {
         if (promocion != null) {
             imagen.setPromocion(promocion);
         }
+        catalogoCache.invalidarAlConfirmar();
         return imagenRepository.save(imagen);
     }
 
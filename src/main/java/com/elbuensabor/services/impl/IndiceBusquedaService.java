@@ -0,0 +1,485 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.repository.IArticuloRepository;
+import com.elbuensabor.repository.IPromocionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para la búsqueda del catálogo.
+ *
+ * Indexa denominación, descripción, categoría y nombres de promociones
+ * activas de cada artículo del catálogo. Los textos se normalizan (minúsculas,
+ * sin acentos, solo letras y números) y se parten en términos; cada término
+ * apunta a los artículos que lo contienen con el peso del campo donde aparece.
+ * Un índice de bigramas sobre el vocabulario resuelve las coincidencias
+ * parciales y los errores de tipeo sin recorrer todos los términos.
+ *
+ * Cada término de la consulta tiene que coincidir con el artículo (exacto,
+ * prefijo, contenido o con hasta 1-2 letras de diferencia según su largo); el
+ * puntaje suma el peso del campo por la calidad de la coincidencia.
+ *
+ * Los cambios de artículos releen solo esos artículos (después del commit) y
+ * rearman las estructuras en memoria; los de promociones y categorías
+ * recargan el índice completo. La latencia de búsqueda se mide en
+ * catalogo.busqueda.
+ */
+@Service
+public class IndiceBusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusquedaService.class);
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "los", "para", "por", "un", "una", "y");
+
+    // Peso de cada campo
+    private static final float PESO_DENOMINACION = 3f;
+    private static final float PESO_CATEGORIA = 1.5f;
+    private static final float PESO_PROMOCION = 1.5f;
+    private static final float PESO_DESCRIPCION = 1f;
+
+    // Calidad de la coincidencia
+    private static final float EXACTA = 3f;
+    private static final float PREFIJO = 2f;
+    private static final float CONTENIDA = 1.5f;
+    private static final float APROXIMADA = 1f;
+
+    /**
+     * Textos de un artículo tal como se indexan
+     */
+    private record Documento(Long idArticulo, String denominacion, String descripcion, String categoria,
+            List<String> promociones) {
+    }
+
+    private volatile Indice indice = new Indice(Map.of());
+
+    // Serializa a los que escriben; las búsquedas solo leen la referencia
+    private final Object escritura = new Object();
+
+    @Autowired
+    private IArticuloRepository articuloRepository;
+
+    @Autowired
+    private IPromocionRepository promocionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer tiempoBusqueda;
+
+    @PostConstruct
+    void registrarMetricas() {
+        tiempoBusqueda = Timer.builder("catalogo.busqueda")
+                .description("Latencia de búsqueda en el índice del catálogo")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("catalogo.busqueda.terminos", this, s -> s.indice.terminos.length)
+                .description("Términos distintos en el índice de búsqueda")
+                .register(meterRegistry);
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * IDs de los artículos que coinciden con la consulta, del más relevante
+     * al menos relevante. Una consulta sin términos devuelve una lista vacía.
+     */
+    public List<Long> buscar(String consulta) {
+        long inicio = System.nanoTime();
+        try {
+            return indice.buscar(tokenizar(consulta));
+        } finally {
+            tiempoBusqueda.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Relee los artículos cuando confirma la transacción actual (o en el
+     * momento, si no hay una). Los que ya no están en el catálogo se quitan.
+     */
+    public void actualizarAlConfirmar(Collection<Long> idsArticulos) {
+        Set<Long> ids = new HashSet<>(idsArticulos);
+        ids.remove(null);
+        if (!ids.isEmpty()) {
+            alConfirmar(() -> actualizar(ids));
+        }
+    }
+
+    /**
+     * Recarga el índice completo al confirmar (cambios de promociones o
+     * categorías, que afectan a varios artículos)
+     */
+    public void recargarAlConfirmar() {
+        alConfirmar(this::recargar);
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private void actualizar(Set<Long> ids) {
+        try {
+            Map<Long, Documento> cargados = cargar(articuloRepository.findTextosParaBusquedaByIdIn(ids),
+                    promocionRepository.findNombresActivosPorArticuloByIdIn(ids));
+            synchronized (escritura) {
+                Map<Long, Documento> documentos = new HashMap<>(indice.documentos);
+                documentos.keySet().removeAll(ids);
+                documentos.putAll(cargados);
+                indice = new Indice(documentos);
+            }
+            log.debug("🔍 Índice de búsqueda: {} artículos actualizados", ids.size());
+        } catch (RuntimeException e) {
+            log.error("❌ Error actualizando el índice de búsqueda para {}: {}", ids, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void recargar() {
+        Map<Long, Documento> documentos = cargar(articuloRepository.findTextosParaBusqueda(),
+                promocionRepository.findNombresActivosPorArticulo());
+        Indice nuevo = new Indice(documentos);
+        synchronized (escritura) {
+            indice = nuevo;
+        }
+        log.info("✅ Índice de búsqueda: {} artículos, {} términos", documentos.size(), nuevo.terminos.length);
+    }
+
+    private Map<Long, Documento> cargar(List<Object[]> textos, List<Object[]> promociones) {
+        Map<Long, List<String>> promocionesPorArticulo = new HashMap<>();
+        for (Object[] fila : promociones) {
+            promocionesPorArticulo.computeIfAbsent((Long) fila[0], id -> new ArrayList<>()).add((String) fila[1]);
+        }
+
+        Map<Long, Documento> documentos = new HashMap<>();
+        for (Object[] fila : textos) {
+            Long id = (Long) fila[0];
+            documentos.put(id, new Documento(id, (String) fila[1], (String) fila[2], (String) fila[3],
+                    promocionesPorArticulo.getOrDefault(id, List.of())));
+        }
+        return documentos;
+    }
+
+    // ==================== NORMALIZACIÓN ====================
+
+    /**
+     * Minúsculas, sin acentos (Hamburguésa → hamburguesa) y partido en
+     * términos alfanuméricos, sin palabras vacías
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String plano = MARCAS.matcher(Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : NO_ALFANUMERICO.split(plano)) {
+            if (!token.isEmpty() && !PALABRAS_VACIAS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Errores de tipeo tolerados según el largo del término buscado
+     */
+    private static int erroresPermitidos(int largo) {
+        if (largo < 4) {
+            return 0;
+        }
+        return largo < 8 ? 1 : 2;
+    }
+
+    /**
+     * Distancia de edición con transposiciones (Damerau restringida), o
+     * maximo + 1 si la supera
+     */
+    private static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) {
+            return maximo + 1;
+        }
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] libre = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return anterior[b.length()];
+    }
+
+    // ==================== ÍNDICE ====================
+
+    /**
+     * Estructuras inmutables armadas a partir de los documentos: vocabulario
+     * ordenado (para prefijos), postings por término y bigramas → términos.
+     * Los artículos se numeran de 0 a n-1 y los puntajes de una búsqueda son
+     * un float[] por posición, sin mapas ni boxing.
+     */
+    private static final class Indice {
+        private final Map<Long, Documento> documentos;
+        private final long[] ids;
+        // Posición de cada artículo en orden alfabético (desempate del ranking) y su inversa
+        private final int[] ordenAlfabetico;
+        private final int[] articuloEnPosicion;
+        private final String[] terminos;
+        private final Map<String, Integer> posicionTermino;
+        private final int[][] articulosPorTermino;
+        private final float[][] pesosPorTermino;
+        private final Map<String, int[]> terminosPorBigrama;
+
+        private Indice(Map<Long, Documento> documentos) {
+            this.documentos = Map.copyOf(documentos);
+
+            List<Documento> ordenados = new ArrayList<>(documentos.values());
+            ordenados.sort(Comparator.comparing(Documento::idArticulo));
+            ids = new long[ordenados.size()];
+            ordenAlfabetico = new int[ordenados.size()];
+            articuloEnPosicion = new int[ordenados.size()];
+
+            Map<String, Map<Integer, Float>> postings = new TreeMap<>();
+            for (int n = 0; n < ordenados.size(); n++) {
+                Documento documento = ordenados.get(n);
+                ids[n] = documento.idArticulo();
+                indexar(postings, n, documento.denominacion(), PESO_DENOMINACION);
+                indexar(postings, n, documento.descripcion(), PESO_DESCRIPCION);
+                indexar(postings, n, documento.categoria(), PESO_CATEGORIA);
+                for (String promocion : documento.promociones()) {
+                    indexar(postings, n, promocion, PESO_PROMOCION);
+                }
+            }
+
+            Integer[] alfabetico = new Integer[ordenados.size()];
+            for (int n = 0; n < alfabetico.length; n++) {
+                alfabetico[n] = n;
+            }
+            Arrays.sort(alfabetico, Comparator.comparing(
+                    n -> ordenados.get(n).denominacion() != null ? ordenados.get(n).denominacion() : "",
+                    String.CASE_INSENSITIVE_ORDER));
+            for (int posicion = 0; posicion < alfabetico.length; posicion++) {
+                ordenAlfabetico[alfabetico[posicion]] = posicion;
+                articuloEnPosicion[posicion] = alfabetico[posicion];
+            }
+
+            terminos = postings.keySet().toArray(new String[0]);
+            posicionTermino = new HashMap<>();
+            articulosPorTermino = new int[terminos.length][];
+            pesosPorTermino = new float[terminos.length][];
+            Map<String, List<Integer>> bigramas = new HashMap<>();
+
+            for (int t = 0; t < terminos.length; t++) {
+                posicionTermino.put(terminos[t], t);
+                Map<Integer, Float> articulos = postings.get(terminos[t]);
+                articulosPorTermino[t] = new int[articulos.size()];
+                pesosPorTermino[t] = new float[articulos.size()];
+                int i = 0;
+                for (Map.Entry<Integer, Float> entrada : articulos.entrySet()) {
+                    articulosPorTermino[t][i] = entrada.getKey();
+                    pesosPorTermino[t][i] = entrada.getValue();
+                    i++;
+                }
+                for (String bigrama : bigramas(terminos[t])) {
+                    bigramas.computeIfAbsent(bigrama, b -> new ArrayList<>()).add(t);
+                }
+            }
+
+            terminosPorBigrama = new HashMap<>();
+            bigramas.forEach((bigrama, lista) ->
+                    terminosPorBigrama.put(bigrama, lista.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        private static void indexar(Map<String, Map<Integer, Float>> postings, int articulo, String texto,
+                float peso) {
+            for (String token : tokenizar(texto)) {
+                postings.computeIfAbsent(token, t -> new HashMap<>()).merge(articulo, peso, Math::max);
+            }
+        }
+
+        private static Set<String> bigramas(String termino) {
+            Set<String> resultado = new HashSet<>();
+            for (int i = 0; i + 2 <= termino.length(); i++) {
+                resultado.add(termino.substring(i, i + 2));
+            }
+            return resultado;
+        }
+
+        private List<Long> buscar(List<String> consulta) {
+            if (consulta.isEmpty() || terminos.length == 0) {
+                return List.of();
+            }
+
+            // Todos los términos de la consulta tienen que coincidir (0 = sin coincidencia)
+            float[] puntajes = null;
+            for (String token : consulta) {
+                float[] coincidencias = coincidencias(token);
+                if (puntajes == null) {
+                    puntajes = coincidencias;
+                } else {
+                    for (int n = 0; n < puntajes.length; n++) {
+                        puntajes[n] = puntajes[n] > 0 && coincidencias[n] > 0 ? puntajes[n] + coincidencias[n] : 0;
+                    }
+                }
+            }
+
+            // Clave de orden: puntaje descendente (bits del float, positivo) y
+            // luego orden alfabético; se ordena un long[] sin comparadores
+            long[] claves = new long[puntajes.length];
+            int encontrados = 0;
+            for (int n = 0; n < puntajes.length; n++) {
+                if (puntajes[n] > 0) {
+                    long puntaje = Integer.MAX_VALUE - Float.floatToIntBits(puntajes[n]);
+                    claves[encontrados++] = (puntaje << 32) | ordenAlfabetico[n];
+                }
+            }
+            Arrays.sort(claves, 0, encontrados);
+
+            List<Long> resultado = new ArrayList<>(encontrados);
+            for (int i = 0; i < encontrados; i++) {
+                resultado.add(ids[articuloEnPosicion[(int) claves[i]]]);
+            }
+            return resultado;
+        }
+
+        /**
+         * Mejor puntaje de cada artículo para un término de la consulta
+         */
+        private float[] coincidencias(String token) {
+            float[] resultado = new float[ids.length];
+
+            // Exacto
+            Integer exacto = posicionTermino.get(token);
+            if (exacto != null) {
+                sumar(resultado, exacto, EXACTA);
+            }
+
+            // Prefijo: rango del vocabulario ordenado
+            int desde = Arrays.binarySearch(terminos, token);
+            desde = desde >= 0 ? desde + 1 : -desde - 1;
+            for (int t = desde; t < terminos.length && terminos[t].startsWith(token); t++) {
+                sumar(resultado, t, PREFIJO);
+            }
+
+            // Contenido o aproximado: candidatos que comparten bigramas. Los
+            // números no se aproximan (1999 no es 1099).
+            if (token.length() >= 3) {
+                int errores = esNumerico(token) ? 0 : erroresPermitidos(token.length());
+                Set<String> bigramasConsulta = bigramas(token);
+                int minimoCompartidos = Math.max(1, bigramasConsulta.size() - 2 * errores);
+
+                Map<Integer, Integer> compartidos = new HashMap<>();
+                for (String bigrama : bigramasConsulta) {
+                    int[] candidatos = terminosPorBigrama.get(bigrama);
+                    if (candidatos != null) {
+                        for (int t : candidatos) {
+                            compartidos.merge(t, 1, Integer::sum);
+                        }
+                    }
+                }
+
+                for (Map.Entry<Integer, Integer> entrada : compartidos.entrySet()) {
+                    int t = entrada.getKey();
+                    String termino = terminos[t];
+                    if (entrada.getValue() < minimoCompartidos || termino.startsWith(token)) {
+                        continue;
+                    }
+                    if (termino.contains(token)) {
+                        sumar(resultado, t, CONTENIDA);
+                    } else if (errores > 0 && aproximado(token, termino, errores)) {
+                        sumar(resultado, t, APROXIMADA);
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * El término completo o su comienzo (lo que se lleva tipeado) está a
+         * lo sumo a "errores" ediciones
+         */
+        private static boolean aproximado(String token, String termino, int errores) {
+            if (distancia(token, termino, errores) <= errores) {
+                return true;
+            }
+            return termino.length() > token.length()
+                    && distancia(token, termino.substring(0, token.length()), errores) <= errores;
+        }
+
+        private static boolean esNumerico(String token) {
+            for (int i = 0; i < token.length(); i++) {
+                if (Character.isDigit(token.charAt(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void sumar(float[] resultado, int termino, float calidad) {
+            int[] articulos = articulosPorTermino[termino];
+            float[] pesos = pesosPorTermino[termino];
+            for (int i = 0; i < articulos.length; i++) {
+                resultado[articulos[i]] = Math.max(resultado[articulos[i]], pesos[i] * calidad);
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.entities.PromocionDetalle;
+import com.elbuensabor.entities.TipoDescuento;
+import com.elbuensabor.repository.IPromocionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de promociones por artículo para el catálogo.
+ *
+ * Se arma con las promociones activas (findAllVigentesConDetalles): cada
+ * artículo apunta a las promociones que lo incluyen. Cada promoción guarda su
+ * rango de fechas en segundos y un mapa de bits con los minutos del día en
+ * que aplica (1440 bits, los horarios que cruzan la medianoche marcan ambos
+ * tramos). Buscar la mejor promoción de un artículo en un instante recorre
+ * solo sus candidatas con aritmética sobre primitivos, sin crear objetos ni
+ * consultar la base.
+ *
+ * El índice es inmutable y se reemplaza completo al confirmar el alta,
+ * modificación, baja o activación de una promoción.
+ */
+@Service
+public class IndicePromocionesService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicePromocionesService.class);
+
+    private static final int MINUTOS_DIA = 24 * 60;
+
+    /**
+     * Promoción precompilada. desde y hasta son segundos (LocalDateTime en
+     * UTC, solo para comparar); minutos tiene un bit por minuto del día.
+     */
+    public record PromocionIndexada(Long idPromocion, String denominacion, TipoDescuento tipoDescuento,
+            double valorDescuento, long desde, long hasta, long[] minutos) {
+
+        boolean aplica(long segundo, int minutoDelDia) {
+            return segundo >= desde && segundo <= hasta
+                    && (minutos[minutoDelDia >>> 6] & (1L << minutoDelDia)) != 0;
+        }
+
+        /**
+         * Descuento en pesos sobre un artículo del precio dado
+         */
+        public double descuentoSobre(double precioVenta) {
+            return switch (tipoDescuento) {
+                case PORCENTUAL -> precioVenta * (valorDescuento / 100);
+                case MONTO_FIJO -> valorDescuento;
+            };
+        }
+
+        /**
+         * Precio final de un artículo del precio dado con esta promoción
+         */
+        public double precioConDescuento(double precioVenta) {
+            return switch (tipoDescuento) {
+                case PORCENTUAL -> precioVenta * (1 - valorDescuento / 100);
+                case MONTO_FIJO -> Math.max(precioVenta - valorDescuento, 0.0);
+            };
+        }
+    }
+
+    private volatile Indice indice = new Indice(Map.of());
+
+    @Autowired
+    private IPromocionRepository promocionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Promoción con mayor descuento en pesos que aplica al artículo en el
+     * instante dado, o null. No crea objetos.
+     */
+    public PromocionIndexada mejorPromocion(long idArticulo, double precioVenta, LocalDateTime instante) {
+        PromocionIndexada[] candidatas = indice.candidatas(idArticulo);
+        if (candidatas == null) {
+            return null;
+        }
+
+        long segundo = instante.toEpochSecond(ZoneOffset.UTC);
+        int minutoDelDia = instante.getHour() * 60 + instante.getMinute();
+
+        PromocionIndexada mejor = null;
+        double mejorDescuento = Double.NEGATIVE_INFINITY;
+        for (PromocionIndexada candidata : candidatas) {
+            if (candidata.aplica(segundo, minutoDelDia)) {
+                double descuento = candidata.descuentoSobre(precioVenta);
+                // A igual descuento queda la primera, como getPromocionVigente
+                if (descuento > mejorDescuento) {
+                    mejor = candidata;
+                    mejorDescuento = descuento;
+                }
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Primer instante posterior al dado en que alguna promoción empieza o
+     * deja de aplicar (borde del rango de fechas o del horario), o null si no
+     * hay promociones. Lo usan los resultados que dependen de la hora.
+     */
+    public LocalDateTime proximoCambio(LocalDateTime instante) {
+        long segundo = instante.toEpochSecond(ZoneOffset.UTC);
+        int minutoDelDia = instante.getHour() * 60 + instante.getMinute();
+        long inicioMinuto = segundo - instante.getSecond();
+
+        long proximo = Long.MAX_VALUE;
+        for (PromocionIndexada promocion : indice.todas) {
+            if (promocion.desde() > segundo) {
+                proximo = Math.min(proximo, promocion.desde());
+            }
+            if (promocion.hasta() >= segundo) {
+                proximo = Math.min(proximo, promocion.hasta() + 1);
+            }
+            int minutos = minutosHastaCambio(promocion.minutos(), minutoDelDia);
+            if (minutos > 0) {
+                proximo = Math.min(proximo, inicioMinuto + minutos * 60L);
+            }
+        }
+        return proximo == Long.MAX_VALUE ? null : LocalDateTime.ofEpochSecond(proximo, 0, ZoneOffset.UTC);
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    /**
+     * Reconstruye el índice cuando confirma la transacción actual (o en el
+     * momento, si no hay una)
+     */
+    public void reconstruirAlConfirmar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reconstruir();
+                }
+            });
+        } else {
+            reconstruir();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void reconstruir() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        Map<Long, Set<PromocionIndexada>> porArticulo = new HashMap<>();
+        int promociones = tx.execute(status -> {
+            List<Promocion> activas = promocionRepository.findAllVigentesConDetalles();
+            for (Promocion promocion : activas) {
+                PromocionIndexada indexada = compilar(promocion);
+                for (PromocionDetalle pd : promocion.getDetalles()) {
+                    porArticulo.computeIfAbsent(pd.getArticulo().getIdArticulo(), id -> new LinkedHashSet<>())
+                            .add(indexada);
+                }
+            }
+            return activas.size();
+        });
+
+        Map<Long, PromocionIndexada[]> tabla = new HashMap<>();
+        porArticulo.forEach((id, candidatas) -> tabla.put(id, candidatas.toArray(new PromocionIndexada[0])));
+        indice = new Indice(tabla);
+
+        log.info("✅ Índice de promociones: {} promociones activas sobre {} artículos", promociones, tabla.size());
+    }
+
+    private PromocionIndexada compilar(Promocion promocion) {
+        return new PromocionIndexada(
+                promocion.getIdPromocion(),
+                promocion.getDenominacion(),
+                promocion.getTipoDescuento(),
+                promocion.getValorDescuento() != null ? promocion.getValorDescuento() : 0.0,
+                promocion.getFechaDesde().toEpochSecond(ZoneOffset.UTC),
+                promocion.getFechaHasta().toEpochSecond(ZoneOffset.UTC),
+                minutosValidos(promocion.getHoraDesde(), promocion.getHoraHasta()));
+    }
+
+    /**
+     * Bits de los minutos entre desde y hasta, ambos inclusive. Si desde es
+     * posterior a hasta el horario cruza la medianoche (ej: 22:00 a 02:00).
+     */
+    private static long[] minutosValidos(LocalTime desde, LocalTime hasta) {
+        long[] bits = new long[(MINUTOS_DIA + 63) / 64];
+        int inicio = desde.getHour() * 60 + desde.getMinute();
+        int fin = hasta.getHour() * 60 + hasta.getMinute();
+
+        if (inicio <= fin) {
+            marcar(bits, inicio, fin);
+        } else {
+            marcar(bits, inicio, MINUTOS_DIA - 1);
+            marcar(bits, 0, fin);
+        }
+        return bits;
+    }
+
+    private static void marcar(long[] bits, int desde, int hasta) {
+        for (int minuto = desde; minuto <= hasta; minuto++) {
+            bits[minuto >>> 6] |= 1L << minuto;
+        }
+    }
+
+    private static boolean marcado(long[] bits, int minuto) {
+        return (bits[minuto >>> 6] & (1L << minuto)) != 0;
+    }
+
+    /**
+     * Minutos desde el actual hasta el primero con otro valor en el mapa, o 0
+     * si todo el día tiene el mismo valor
+     */
+    private static int minutosHastaCambio(long[] bits, int minutoDelDia) {
+        boolean actual = marcado(bits, minutoDelDia);
+        for (int i = 1; i < MINUTOS_DIA; i++) {
+            if (marcado(bits, (minutoDelDia + i) % MINUTOS_DIA) != actual) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Tabla artículo → candidatas con direccionamiento abierto sobre claves
+     * long, para buscar sin convertir el ID a Long
+     */
+    private static final class Indice {
+        private final long[] claves;
+        private final PromocionIndexada[][] valores;
+        private final int mascara;
+        private final List<PromocionIndexada> todas;
+
+        private Indice(Map<Long, PromocionIndexada[]> tabla) {
+            Set<PromocionIndexada> distintas = new LinkedHashSet<>();
+            tabla.values().forEach(candidatas -> distintas.addAll(List.of(candidatas)));
+            todas = List.copyOf(distintas);
+
+            int capacidad = Integer.highestOneBit(Math.max(2, tabla.size() * 2 - 1)) << 1;
+            claves = new long[capacidad];
+            valores = new PromocionIndexada[capacidad][];
+            mascara = capacidad - 1;
+
+            for (Map.Entry<Long, PromocionIndexada[]> entrada : tabla.entrySet()) {
+                int i = posicion(entrada.getKey());
+                while (valores[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = entrada.getKey();
+                valores[i] = entrada.getValue();
+            }
+        }
+
+        private PromocionIndexada[] candidatas(long idArticulo) {
+            int i = posicion(idArticulo);
+            while (valores[i] != null) {
+                if (claves[i] == idArticulo) {
+                    return valores[i];
+                }
+                i = (i + 1) & mascara;
+            }
+            return null;
+        }
+
+        private int posicion(long clave) {
+            int h = (int) (clave ^ (clave >>> 32)) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mascara;
+        }
+    }
+}
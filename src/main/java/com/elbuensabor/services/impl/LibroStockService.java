@@ -0,0 +1,216 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.CorteStock;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.ICorteStockRepository;
+import com.elbuensabor.repository.IMovimientoStockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Libro de movimientos de stock de insumos.
+ *
+ * Cada cambio de stock_actual (compras, consumos de pedidos y preparación,
+ * ajustes y reversiones) se registra en movimiento_stock, que solo recibe
+ * INSERT en lotes JDBC. stock_actual queda como saldo materializado y se
+ * modifica únicamente con UPDATE de delta atómicos (stock_actual + :delta),
+ * nunca leyendo y reescribiendo el valor: dos escrituras concurrentes no se
+ * pisan.
+ *
+ * Los movimientos se insertan antes de tocar las filas de los insumos y no
+ * tienen clave foránea hacia ellas, así que el libro no agrega locks. Los
+ * UPDATE van en orden de ID de insumo y al final de la operación, para tener
+ * la fila bloqueada lo menos posible.
+ *
+ * Cada app.stock.cortes.intervalo-ms se guarda un corte con el saldo de los
+ * insumos que tuvieron movimientos: el saldo en un instante pasado es el
+ * último corte anterior más los movimientos posteriores a él. Los movimientos
+ * de los últimos app.stock.cortes.margen-segundos no se cortan todavía, para
+ * no dejar afuera transacciones que aún no confirmaron.
+ */
+@Service
+public class LibroStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(LibroStockService.class);
+
+    private static final String INSERTAR_MOVIMIENTO =
+            "INSERT INTO movimiento_stock (id_articulo_insumo, tipo, cantidad, fecha, referencia) " +
+                    "VALUES (:idInsumo, :tipo, :cantidad, :fecha, :referencia)";
+
+    /**
+     * Movimiento a registrar. cantidad es el delta sobre stock_actual.
+     */
+    public record Movimiento(Long idInsumo, TipoMovimientoStock tipo, double cantidad, String referencia) {
+    }
+
+    @Value("${app.stock.cortes.margen-segundos:60}")
+    private long margenSegundos;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private IArticuloInsumoRepository articuloInsumoRepository;
+
+    @Autowired
+    private IMovimientoStockRepository movimientoRepository;
+
+    @Autowired
+    private ICorteStockRepository corteRepository;
+
+    @Autowired
+    private AlertasStockService alertasStock;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter movimientos;
+    private Counter cortes;
+
+    @PostConstruct
+    void registrarMetricas() {
+        movimientos = Counter.builder("stock.movimientos")
+                .description("Movimientos registrados en el libro de stock")
+                .register(meterRegistry);
+        cortes = Counter.builder("stock.cortes")
+                .description("Saldos de insumos guardados en cortes del libro de stock")
+                .register(meterRegistry);
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Registra los movimientos y aplica sus deltas a stock_actual. Los egresos
+     * se descuentan solo si el stock alcanza: si alguno no alcanza lanza
+     * IllegalArgumentException ("Stock insuficiente para el insumo con ID: ")
+     * y la transacción se revierte, movimientos incluidos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicar(List<Movimiento> movimientos) {
+        aplicar(movimientos, idInsumo -> new IllegalArgumentException(
+                "Stock insuficiente para el insumo con ID: " + idInsumo));
+    }
+
+    /**
+     * Igual que aplicar(movimientos), con la excepción que corresponde a quien
+     * llama cuando el stock de un insumo no alcanza
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicar(List<Movimiento> movimientos, Function<Long, ? extends RuntimeException> sinStock) {
+        registrar(movimientos);
+
+        List<Movimiento> ordenados = movimientos.stream()
+                .sorted(Comparator.comparing(Movimiento::idInsumo))
+                .toList();
+        alertasStock.verificarAlConfirmar(ordenados.stream().map(Movimiento::idInsumo).toList());
+        for (Movimiento movimiento : ordenados) {
+            if (movimiento.cantidad() < 0) {
+                if (articuloInsumoRepository.descontarStockSiDisponible(
+                        movimiento.idInsumo(), movimiento.cantidad()) == 0) {
+                    log.warn("❌ Stock insuficiente del insumo {} (requiere {})",
+                            movimiento.idInsumo(), -movimiento.cantidad());
+                    throw sinStock.apply(movimiento.idInsumo());
+                }
+            } else if (movimiento.cantidad() > 0) {
+                articuloInsumoRepository.incrementarStock(movimiento.idInsumo(), movimiento.cantidad());
+            }
+        }
+    }
+
+    /**
+     * Registra movimientos cuyo delta ya está en stock_actual (ej: el stock
+     * inicial que se inserta con el alta del insumo). Un solo lote JDBC.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(List<Movimiento> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        SqlParameterSource[] lote = movimientos.stream()
+                .map(m -> new MapSqlParameterSource("idInsumo", m.idInsumo())
+                        .addValue("tipo", m.tipo().name())
+                        .addValue("cantidad", m.cantidad())
+                        .addValue("fecha", ahora)
+                        .addValue("referencia", m.referencia()))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate(INSERTAR_MOVIMIENTO, lote);
+        this.movimientos.increment(movimientos.size());
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Saldo del insumo según el libro en el instante dado: último corte
+     * anterior más los movimientos posteriores hasta ese instante
+     */
+    @Transactional(readOnly = true)
+    public double stockAl(Long idInsumo, LocalDateTime instante) {
+        List<CorteStock> corte = corteRepository.findUltimoAl(idInsumo, instante);
+        double base = corte.isEmpty() ? 0.0 : corte.get(0).getStock();
+        long desde = corte.isEmpty() ? 0L : corte.get(0).getIdMovimientoHasta();
+        return base + movimientoRepository.sumarDesde(idInsumo, desde, instante);
+    }
+
+    // ==================== CORTES ====================
+
+    /**
+     * Saldo de apertura para los insumos que todavía no tienen movimientos
+     * (los que existían antes del libro)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void abrirSaldos() {
+        Integer abiertos = new TransactionTemplate(transactionManager)
+                .execute(status -> movimientoRepository.abrirSaldos(LocalDateTime.now()));
+        if (abiertos != null && abiertos > 0) {
+            log.info("📦 Libro de stock: saldo de apertura para {} insumos", abiertos);
+        }
+    }
+
+    /**
+     * Corta los movimientos desde el último corte hasta hace
+     * app.stock.cortes.margen-segundos
+     */
+    @Scheduled(initialDelayString = "${app.stock.cortes.intervalo-ms:3600000}",
+            fixedDelayString = "${app.stock.cortes.intervalo-ms:3600000}")
+    public void cortar() {
+        Integer insumos = new TransactionTemplate(transactionManager).execute(status -> {
+            Long hasta = movimientoRepository.findUltimoIdHasta(LocalDateTime.now().minusSeconds(margenSegundos));
+            Long desde = corteRepository.findUltimoMovimientoCortado();
+            if (hasta == null || hasta <= desde) {
+                return 0;
+            }
+            return corteRepository.cortar(desde, hasta);
+        });
+
+        if (insumos != null && insumos > 0) {
+            cortes.increment(insumos);
+            log.info("✅ Libro de stock: corte de {} insumos", insumos);
+        }
+    }
+}
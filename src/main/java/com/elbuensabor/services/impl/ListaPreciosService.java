@@ -0,0 +1,275 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.IArticuloManufacturadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lista de precios en memoria: precio de venta y costo de cada artículo,
+ * con su tipo concreto.
+ *
+ * El mapa es inmutable y se reemplaza completo en cada cambio (copy-on-write),
+ * así que leer no toma locks ni consulta la base. Los servicios que modifican
+ * precios o costos llaman a actualizarAlConfirmar: los artículos se releen
+ * después del commit. Un artículo que no está en el mapa se carga al pedirlo.
+ *
+ * Como resguardo ante cambios que no pasan por esos servicios, la lista se
+ * recarga completa cada app.precios.recarga-ms: esa es la antigüedad máxima
+ * de un precio. La recarga lee la base sin bloquear a los que escriben; cada
+ * escritura puntual lleva un número de generación, y los artículos escritos
+ * después de empezar la lectura conservan el valor de memoria, que es más
+ * nuevo que el leído. La métrica precios.antiguedad informa el tiempo desde la
+ * última recarga y precios.desvios cuántos precios la recarga encontró
+ * distintos a los de memoria.
+ */
+@Service
+public class ListaPreciosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ListaPreciosService.class);
+
+    public enum TipoArticulo {
+        MANUFACTURADO,
+        INSUMO
+    }
+
+    /**
+     * Precio vigente de un artículo. costo es costoProduccion (manufacturado)
+     * o precioCompra (insumo); costoInformado es false si ese campo es null.
+     */
+    public record PrecioArticulo(Long idArticulo, TipoArticulo tipo, String denominacion, double precioVenta,
+            double costo, boolean costoInformado) {
+    }
+
+    private volatile Map<Long, PrecioArticulo> precios = Map.of();
+    private volatile long ultimaRecargaMs = System.currentTimeMillis();
+
+    // Serializa a los que escriben; los lectores solo leen la referencia
+    private final Object escritura = new Object();
+
+    // Generación de la última escritura puntual de cada artículo (bajo escritura)
+    private long generacion;
+    private final Map<Long, Long> escritos = new HashMap<>();
+
+    @Autowired
+    private IArticuloManufacturadoRepository manufacturadoRepository;
+
+    @Autowired
+    private IArticuloInsumoRepository insumoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter actualizaciones;
+    private Counter desvios;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("precios.articulos", this, s -> s.precios.size())
+                .description("Artículos en la lista de precios en memoria")
+                .register(meterRegistry);
+        Gauge.builder("precios.antiguedad", this, s -> System.currentTimeMillis() - s.ultimaRecargaMs)
+                .description("Tiempo desde la última recarga completa de la lista de precios")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        actualizaciones = Counter.builder("precios.actualizaciones")
+                .description("Artículos releídos tras un cambio confirmado")
+                .register(meterRegistry);
+        desvios = Counter.builder("precios.desvios")
+                .description("Precios distintos a los de memoria encontrados en la recarga completa")
+                .register(meterRegistry);
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Precio del artículo, o null si no existe
+     */
+    public PrecioArticulo obtener(Long idArticulo) {
+        PrecioArticulo precio = precios.get(idArticulo);
+        if (precio != null || idArticulo == null) {
+            return precio;
+        }
+        return obtener(List.of(idArticulo)).get(idArticulo);
+    }
+
+    /**
+     * Precios de varios artículos; los que faltan en memoria se cargan en una
+     * consulta por tipo. Los IDs inexistentes no aparecen en el resultado.
+     */
+    public Map<Long, PrecioArticulo> obtener(Collection<Long> idsArticulos) {
+        Map<Long, PrecioArticulo> actuales = precios;
+        Map<Long, PrecioArticulo> resultado = new HashMap<>();
+        Set<Long> faltantes = new HashSet<>();
+
+        for (Long id : idsArticulos) {
+            PrecioArticulo precio = actuales.get(id);
+            if (precio != null) {
+                resultado.put(id, precio);
+            } else if (id != null) {
+                faltantes.add(id);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            Map<Long, PrecioArticulo> cargados = cargar(faltantes);
+            reemplazar(cargados, Set.of());
+            resultado.putAll(cargados);
+        }
+        return resultado;
+    }
+
+    /**
+     * Precio de venta del artículo según la lista, o el valor dado si no está
+     */
+    public Double precioVenta(Long idArticulo, Double porDefecto) {
+        PrecioArticulo precio = idArticulo != null ? precios.get(idArticulo) : null;
+        return precio != null ? precio.precioVenta() : porDefecto;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Relee los artículos cuando confirma la transacción actual (o en el
+     * momento, si no hay una). Los que ya no existen se quitan.
+     */
+    public void actualizarAlConfirmar(Collection<Long> idsArticulos) {
+        Set<Long> ids = new HashSet<>(idsArticulos);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    actualizar(ids);
+                }
+            });
+        } else {
+            actualizar(ids);
+        }
+    }
+
+    private void actualizar(Set<Long> ids) {
+        try {
+            Map<Long, PrecioArticulo> cargados = cargar(ids);
+            Set<Long> eliminados = new HashSet<>(ids);
+            eliminados.removeAll(cargados.keySet());
+            reemplazar(cargados, eliminados);
+            actualizaciones.increment(ids.size());
+            log.debug("💲 Lista de precios: {} artículos actualizados", ids.size());
+        } catch (RuntimeException e) {
+            // La recarga periódica corrige el valor
+            log.error("❌ Error actualizando la lista de precios para {}: {}", ids, e.getMessage());
+        }
+    }
+
+    /**
+     * Recarga la lista completa
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Scheduled(initialDelayString = "${app.precios.recarga-ms:300000}", fixedDelayString = "${app.precios.recarga-ms:300000}")
+    public void recargar() {
+        int diferencias = recargarCompleta();
+        if (diferencias > 0) {
+            desvios.increment(diferencias);
+            log.warn("⚠️ Lista de precios: {} precios desactualizados corregidos en la recarga", diferencias);
+        }
+    }
+
+    /**
+     * Devuelve la cantidad de precios que diferían de los de memoria
+     */
+    private int recargarCompleta() {
+        long desde;
+        synchronized (escritura) {
+            desde = generacion;
+        }
+
+        Map<Long, PrecioArticulo> nuevos = new HashMap<>();
+        agregar(nuevos, manufacturadoRepository.findPrecios(), TipoArticulo.MANUFACTURADO);
+        agregar(nuevos, insumoRepository.findPrecios(), TipoArticulo.INSUMO);
+
+        int diferencias;
+        synchronized (escritura) {
+            Map<Long, PrecioArticulo> anteriores = precios;
+            // Escritos durante la lectura: el valor de memoria es más nuevo
+            escritos.forEach((id, g) -> {
+                if (g > desde) {
+                    PrecioArticulo actual = anteriores.get(id);
+                    if (actual != null) {
+                        nuevos.put(id, actual);
+                    } else {
+                        nuevos.remove(id);
+                    }
+                }
+            });
+            escritos.values().removeIf(g -> g <= desde);
+
+            diferencias = (int) nuevos.entrySet().stream()
+                    .filter(e -> anteriores.containsKey(e.getKey())
+                            && !anteriores.get(e.getKey()).equals(e.getValue()))
+                    .count();
+            precios = Map.copyOf(nuevos);
+            ultimaRecargaMs = System.currentTimeMillis();
+        }
+
+        log.info("✅ Lista de precios cargada: {} artículos", nuevos.size());
+        return diferencias;
+    }
+
+    private void reemplazar(Map<Long, PrecioArticulo> cambios, Set<Long> eliminados) {
+        synchronized (escritura) {
+            Map<Long, PrecioArticulo> copia = new HashMap<>(precios);
+            copia.putAll(cambios);
+            copia.keySet().removeAll(eliminados);
+            precios = Map.copyOf(copia);
+
+            generacion++;
+            cambios.keySet().forEach(id -> escritos.put(id, generacion));
+            eliminados.forEach(id -> escritos.put(id, generacion));
+        }
+    }
+
+    private Map<Long, PrecioArticulo> cargar(Collection<Long> ids) {
+        Map<Long, PrecioArticulo> cargados = new HashMap<>();
+        agregar(cargados, manufacturadoRepository.findPreciosByIdIn(ids), TipoArticulo.MANUFACTURADO);
+        agregar(cargados, insumoRepository.findPreciosByIdIn(ids), TipoArticulo.INSUMO);
+        return cargados;
+    }
+
+    private void agregar(Map<Long, PrecioArticulo> destino, List<Object[]> filas, TipoArticulo tipo) {
+        for (Object[] fila : filas) {
+            Long id = (Long) fila[0];
+            Double precioVenta = (Double) fila[2];
+            Double costo = (Double) fila[3];
+            destino.put(id, new PrecioArticulo(id, tipo, (String) fila[1],
+                    precioVenta != null ? precioVenta : 0.0,
+                    costo != null ? costo : 0.0,
+                    costo != null));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.exceptions.ConflictoEstadoPedidoException;
+import com.elbuensabor.repository.IPedidoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Motor de transiciones de estado de pedidos.
+ *
+ * La tabla TRANSICIONES define qué cambios de estado existen y qué regla de
+ * Pedido debe cumplirse para cada uno. La escritura es un único UPDATE
+ * condicionado al estado leído (WHERE estado = :desde): si otro usuario cambió
+ * el pedido en el medio, no se pisa su cambio y se informa el conflicto.
+ *
+ * Si el UPDATE aplica, la entidad ya cargada se refresca desde la base
+ * (estado, fechas y versión), así Hibernate no la ve modificada al hacer
+ * flush. La extensión del tiempo de preparación sigue el mismo esquema,
+ * condicionada a la versión leída.
+ */
+@Service
+public class MotorTransicionesPedido {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorTransicionesPedido.class);
+
+    private record Transicion(Set<Estado> destinos, Map<Estado, Predicate<Pedido>> reglas) {
+    }
+
+    private static final Map<Estado, Transicion> TRANSICIONES = new EnumMap<>(Estado.class);
+
+    static {
+        TRANSICIONES.put(Estado.PENDIENTE, new Transicion(
+                Set.of(Estado.PREPARACION, Estado.LISTO, Estado.CANCELADO),
+                Map.of(Estado.PREPARACION, Pedido::puedeIniciarPreparacion)));
+        TRANSICIONES.put(Estado.PREPARACION, new Transicion(
+                Set.of(Estado.LISTO, Estado.CANCELADO),
+                Map.of(Estado.LISTO, Pedido::puedeMarcarListo)));
+        TRANSICIONES.put(Estado.LISTO, new Transicion(
+                Set.of(Estado.ENTREGADO, Estado.CANCELADO),
+                Map.of(Estado.ENTREGADO, Pedido::puedeEntregarse)));
+        TRANSICIONES.put(Estado.ENTREGADO, new Transicion(Set.of(), Map.of()));
+        TRANSICIONES.put(Estado.CANCELADO, new Transicion(Set.of(), Map.of()));
+    }
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Indica si la tabla permite pasar del estado actual del pedido a destino
+     */
+    public boolean esPermitida(Pedido pedido, Estado destino) {
+        Transicion transicion = TRANSICIONES.get(pedido.getEstado());
+        if (transicion == null || !transicion.destinos().contains(destino)) {
+            return false;
+        }
+        return transicion.reglas().getOrDefault(destino, p -> true).test(pedido);
+    }
+
+    /**
+     * Aplica la transición desde el estado con el que se leyó el pedido.
+     * Devuelve el mismo pedido con estado, fechas y versión actualizados.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Pedido transicionar(Pedido pedido, Estado destino) {
+        validar(pedido, destino);
+        if (destino == Estado.CANCELADO) {
+            throw new IllegalArgumentException("Las cancelaciones deben registrar motivo y usuario");
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        int actualizados = pedidoRepository.transicionarSiEstado(
+                pedido.getIdPedido(),
+                pedido.getEstado(),
+                destino,
+                destino == Estado.PREPARACION ? ahora : null,
+                destino == Estado.LISTO ? ahora : null,
+                destino == Estado.ENTREGADO ? ahora : null);
+        verificar(pedido, destino, actualizados);
+
+        entityManager.refresh(pedido);
+        return pedido;
+    }
+
+    /**
+     * Cancela el pedido desde el estado con el que se leyó
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Pedido cancelar(Pedido pedido, String motivo, Usuario usuario) {
+        validar(pedido, Estado.CANCELADO);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        int actualizados = pedidoRepository.cancelarSiEstado(
+                pedido.getIdPedido(), pedido.getEstado(), ahora, motivo, usuario);
+        verificar(pedido, Estado.CANCELADO, actualizados);
+
+        entityManager.refresh(pedido);
+        return pedido;
+    }
+
+    /**
+     * Extiende el tiempo de preparación si el pedido sigue en PREPARACION y
+     * con la versión con la que se leyó
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Pedido extenderTiempo(Pedido pedido, int minutos) {
+        if (pedido.getEstado() != Estado.PREPARACION) {
+            log.error("Solo se puede extender tiempo de pedidos en preparación. Estado actual: {}",
+                    pedido.getEstado());
+            throw new IllegalArgumentException("Solo se puede extender tiempo de pedidos en preparación");
+        }
+
+        int extension = pedido.getTiempoExtensionMinutos() != null ? pedido.getTiempoExtensionMinutos() : 0;
+        LocalTime horaEstimada = pedido.getHoraEstimadaFinalizacion().plusMinutes(minutos);
+        int actualizados = pedidoRepository.extenderTiempoSiVersion(
+                pedido.getIdPedido(), pedido.getVersion(), extension + minutos, horaEstimada);
+        if (actualizados == 0) {
+            log.warn("⚠️ Conflicto en pedido {}: cambió mientras se extendía el tiempo", pedido.getIdPedido());
+            throw new ConflictoEstadoPedidoException(
+                    "El pedido " + pedido.getIdPedido() + " cambió mientras se extendía el tiempo");
+        }
+
+        entityManager.refresh(pedido);
+        return pedido;
+    }
+
+    private void validar(Pedido pedido, Estado destino) {
+        if (!esPermitida(pedido, destino)) {
+            log.error("Transición no permitida para pedido {}: {} → {}",
+                    pedido.getIdPedido(), pedido.getEstado(), destino);
+            throw new IllegalArgumentException(
+                    "No se puede pasar un pedido de " + pedido.getEstado() + " a " + destino);
+        }
+    }
+
+    private void verificar(Pedido pedido, Estado destino, int actualizados) {
+        if (actualizados == 0) {
+            log.warn("⚠️ Conflicto en pedido {}: ya no está en {} (destino {})",
+                    pedido.getIdPedido(), pedido.getEstado(), destino);
+            throw new ConflictoEstadoPedidoException(
+                    "El pedido " + pedido.getIdPedido() + " ya no está en estado " + pedido.getEstado());
+        }
+    }
+}
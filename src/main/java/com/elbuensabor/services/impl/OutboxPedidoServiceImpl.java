@@ -0,0 +1,168 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.OutboxPedido;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.events.TipoEventoPedido;
+import com.elbuensabor.repository.IOutboxPedidoRepository;
+import com.elbuensabor.services.IOutboxPedidoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox transaccional de notificaciones de pedidos.
+ *
+ * PedidoServiceImpl registra cada evento en outbox_pedido dentro de la misma
+ * transacción del cambio de estado: si la transacción se revierte, la
+ * notificación desaparece con ella. El despacho corre en segundo plano, toma
+ * lotes con SKIP LOCKED y los marca como enviados en la misma transacción.
+ * Ante una caída entre el envío y el commit el lote se reenvía (al menos una
+ * vez); los clientes identifican el mensaje por pedidoId + tipo.
+ */
+@Service
+public class OutboxPedidoServiceImpl implements IOutboxPedidoService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPedidoServiceImpl.class);
+
+    private static final int TAMANIO_LOTE = 100;
+    private static final int DIAS_RETENCION = 7;
+
+    @Autowired
+    private IOutboxPedidoRepository outboxRepository;
+
+    @Autowired
+    private WebSocketNotificationService notificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Métricas: backlog y antigüedad se actualizan en cada ciclo del despacho
+    private final AtomicLong pendientes = new AtomicLong();
+    private final AtomicLong antiguedadPendienteMs = new AtomicLong();
+    private Timer demoraDespacho;
+    private Counter despachados;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("pedidos.outbox.pendientes", pendientes, AtomicLong::get)
+                .description("Notificaciones de pedidos pendientes de despacho")
+                .register(meterRegistry);
+        Gauge.builder("pedidos.outbox.antiguedad", antiguedadPendienteMs, AtomicLong::get)
+                .description("Antigüedad de la notificación pendiente más vieja")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        demoraDespacho = Timer.builder("pedidos.outbox.demora")
+                .description("Tiempo entre el commit del pedido y el envío por WebSocket")
+                .register(meterRegistry);
+        despachados = Counter.builder("pedidos.outbox.despachados")
+                .description("Notificaciones de pedidos enviadas")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoPedido tipo, Pedido pedido, Integer minutosExtension) {
+        OutboxPedido outbox = new OutboxPedido();
+        outbox.setTipo(tipo);
+        outbox.setIdPedido(pedido.getIdPedido());
+        outbox.setEstado(pedido.getEstado());
+        outbox.setTipoEnvio(pedido.getTipoEnvio());
+        outbox.setFormaPago(pedido.getFormaPago());
+        outbox.setMinutosExtension(minutosExtension);
+        if (pedido.getUsuarioDelivery() != null) {
+            outbox.setIdUsuarioDelivery(pedido.getUsuarioDelivery().getIdUsuario());
+        }
+
+        Usuario usuarioCliente = pedido.getCliente() != null ? pedido.getCliente().getUsuario() : null;
+        if (usuarioCliente != null) {
+            outbox.setNombreCliente(usuarioCliente.getNombre() + " " + usuarioCliente.getApellido());
+            outbox.setEmailCliente(usuarioCliente.getEmail());
+        }
+
+        outboxRepository.save(outbox);
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:500}")
+    public int despacharPendientes() {
+        List<OutboxPedido> lote = outboxRepository.tomarPendientes(TAMANIO_LOTE);
+
+        if (!lote.isEmpty()) {
+            LocalDateTime ahora = LocalDateTime.now();
+            for (OutboxPedido outbox : lote) {
+                enviar(outbox);
+                demoraDespacho.record(Duration.between(outbox.getFechaCreacion(), ahora));
+            }
+            outboxRepository.marcarDespachados(lote.stream().map(OutboxPedido::getIdOutboxPedido).toList(), ahora);
+            despachados.increment(lote.size());
+            log.debug("📤 Outbox: {} notificaciones de pedidos despachadas", lote.size());
+        }
+
+        actualizarBacklog();
+        return lote.size();
+    }
+
+    /**
+     * Elimina las notificaciones despachadas hace más de DIAS_RETENCION días
+     */
+    @Transactional
+    @Scheduled(cron = "0 30 4 * * *")
+    public void purgarDespachados() {
+        int eliminados = outboxRepository.eliminarDespachadosAntesDe(LocalDateTime.now().minusDays(DIAS_RETENCION));
+        log.info("🧹 Outbox: {} notificaciones despachadas eliminadas", eliminados);
+    }
+
+    private void enviar(OutboxPedido outbox) {
+        Long idPedido = outbox.getIdPedido();
+        switch (outbox.getTipo()) {
+            case CREADO -> notificationService.notificarNuevoPedido(idPedido, outbox.getNombreCliente());
+            case PAGO_CONFIRMADO -> notificationService.notificarPagoConfirmado(idPedido,
+                    outbox.getFormaPago().name());
+            case CANCELADO -> notificationService.notificarCancelacionPedido(idPedido, outbox.getNombreCliente(),
+                    outbox.getEmailCliente());
+            case TIEMPO_EXTENDIDO -> notificationService.notificarTiempoExtendido(idPedido,
+                    outbox.getMinutosExtension());
+            case LISTO -> {
+                notificationService.notificarCambioEstado(idPedido, outbox.getEstado().name(),
+                        outbox.getEmailCliente());
+                if (outbox.getTipoEnvio() == TipoEnvio.DELIVERY) {
+                    notificationService.notificarPedidoListoParaDelivery(idPedido, outbox.getNombreCliente());
+                }
+            }
+            case DELIVERY_ASIGNADO -> {
+                notificationService.notificarCambioEstado(idPedido, outbox.getEstado().name(),
+                        outbox.getEmailCliente());
+                if (outbox.getIdUsuarioDelivery() != null) {
+                    notificationService.notificarDeliveryAsignado(idPedido, outbox.getIdUsuarioDelivery(),
+                            outbox.getNombreCliente());
+                }
+            }
+            default -> notificationService.notificarCambioEstado(idPedido, outbox.getEstado().name(),
+                    outbox.getEmailCliente());
+        }
+    }
+
+    private void actualizarBacklog() {
+        pendientes.set(outboxRepository.countByFechaDespachoIsNull());
+        LocalDateTime masAntigua = outboxRepository.findFechaPendienteMasAntigua();
+        antiguedadPendienteMs.set(masAntigua == null ? 0
+                : Duration.between(masAntigua, LocalDateTime.now()).toMillis());
+    }
+}
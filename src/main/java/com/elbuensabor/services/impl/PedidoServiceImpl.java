@@ -3,8 +3,15 @@ package com.elbuensabor.services.impl;
 import com.elbuensabor.dto.request.pedido.*;
 import com.elbuensabor.dto.response.pedido.*;
 import com.elbuensabor.entities.*;
+import com.elbuensabor.events.PedidoEvent;
+import com.elbuensabor.events.TipoEventoPedido;
 import com.elbuensabor.repository.*;
+import com.elbuensabor.services.IAnaliticaVentasService;
+import com.elbuensabor.services.IOutboxPedidoService;
 import com.elbuensabor.services.IPedidoService;
+import com.elbuensabor.services.IStockReservaService;
+import com.elbuensabor.services.IVentaDiariaService;
+import com.elbuensabor.services.impl.ListaPreciosService.PrecioArticulo;
 import com.elbuensabor.services.mapper.PedidoMapper;
 import com.elbuensabor.services.mapper.DetallePedidoMapper;
 
@@ -12,13 +19,25 @@ import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +45,10 @@ public class PedidoServiceImpl implements IPedidoService {
 
     private static final Logger log = LoggerFactory.getLogger(PedidoServiceImpl.class);
 
+    private static final int TAMANIO_MAXIMO_PAGINA = 200;
+
+    private static final int LOTE_VISTAS = 500;
+
     @Autowired
     private IPedidoRepository pedidoRepository;
 
@@ -50,12 +73,42 @@ public class PedidoServiceImpl implements IPedidoService {
     @Autowired
     private IUsuarioRepository usuarioRepository;
 
+    @Autowired
+    private IStockReservaService stockReservaService;
+
+    @Autowired
+    private IOutboxPedidoService outboxPedidoService;
+
+    @Autowired
+    private IVentaDiariaService ventaDiariaService;
+
+    @Autowired
+    private IAnaliticaVentasService analiticaVentasService;
+
+    @Autowired
+    private ArchivoPedidosService archivoPedidosService;
+
+    @Autowired
+    private MotorTransicionesPedido motorTransiciones;
+
+    @Autowired
+    private EstimadorTiempoCocinaService estimadorTiempoCocina;
+
     @Autowired
     private PedidoMapper pedidoMapper;
 
     @Autowired
     private DetallePedidoMapper detallePedidoMapper;
 
+    @Autowired
+    private TableroCocinaService tableroCocinaService;
+
+    @Autowired
+    private ListaPreciosService listaPreciosService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // ==================== CREACIÓN DE PEDIDOS ====================
 
     @Override
@@ -99,19 +152,26 @@ public class PedidoServiceImpl implements IPedidoService {
             pedido.setDomicilio(domicilio);
         }
 
+        // Cargar en lote artículos y promociones referenciados por el pedido
+        SnapshotPrecios snapshot = cargarSnapshotPrecios(request.getDetalles());
+
         // Procesar detalles del pedido
-        procesarDetallesPedido(pedido, request.getDetalles());
+        procesarDetallesPedido(pedido, request.getDetalles(), snapshot);
 
         // Calcular totales
-        calcularTotales(pedido);
+        calcularTotales(pedido, snapshot);
 
-        // Calcular hora estimada de finalización (ejemplo: 30 min base + 5 min por
-        // producto)
-        int minutosEstimados = 30 + (pedido.getDetalles().size() * 5);
-        pedido.setHoraEstimadaFinalizacion(LocalTime.now().plusMinutes(minutosEstimados));
+        // Estimar hora de finalización según tiempos de preparación y cola de cocina
+        EstimadorTiempoCocinaService.Estimacion estimacion = estimadorTiempoCocina.estimar(pedido);
+        pedido.setHoraEstimadaFinalizacion(estimacion.horaEstimada().toLocalTime());
 
         // Guardar pedido
         Pedido pedidoGuardado = pedidoRepository.save(pedido);
+
+        // Reservar insumos (si no alcanza el stock se revierte todo el pedido)
+        stockReservaService.reservarStock(pedidoGuardado);
+        estimadorTiempoCocina.encolar(pedidoGuardado.getIdPedido(), estimacion);
+        publicarEvento(TipoEventoPedido.CREADO, pedidoGuardado);
         log.info("Pedido {} creado exitosamente", pedidoGuardado.getIdPedido());
 
         return pedidoMapper.toClienteResponse(pedidoGuardado);
@@ -123,7 +183,7 @@ public class PedidoServiceImpl implements IPedidoService {
     @Transactional(readOnly = true)
     public List<PedidoResponse> listarTodosPedidos() {
         log.info("Listando todos los pedidos (ADMIN)");
-        return pedidoRepository.findAllByOrderByFechaDesc()
+        return cargarVistas(pedidoRepository.findIdsOrderByFechaDesc())
                 .stream()
                 .map(pedidoMapper::toAdminResponse)
                 .collect(Collectors.toList());
@@ -134,7 +194,7 @@ public class PedidoServiceImpl implements IPedidoService {
     public List<PedidoResponse> listarPedidosPorEstado(String estado) {
         log.info("Listando pedidos por estado: {}", estado);
         Estado estadoEnum = Estado.valueOf(estado.toUpperCase());
-        return pedidoRepository.findByEstadoOrderByFechaDesc(estadoEnum)
+        return cargarVistas(pedidoRepository.findIdsByEstado(estadoEnum))
                 .stream()
                 .map(pedidoMapper::toAdminResponse)
                 .collect(Collectors.toList());
@@ -145,9 +205,9 @@ public class PedidoServiceImpl implements IPedidoService {
     public List<PedidoCajeroResponse> listarPedidosDelDia() {
         log.info("Listando pedidos del día actual (CAJERO)");
         LocalDateTime inicioDia = LocalDate.now().atStartOfDay();
-        LocalDateTime finDia = LocalDate.now().atTime(23, 59, 59);
+        LocalDateTime finDia = LocalDate.now().plusDays(1).atStartOfDay();
 
-        return pedidoRepository.findByFechaBetweenOrderByFechaDesc(inicioDia, finDia)
+        return cargarVistas(pedidoRepository.findIdsEntreFechas(inicioDia, finDia))
                 .stream()
                 .map(pedidoMapper::toCajeroResponse)
                 .collect(Collectors.toList());
@@ -158,41 +218,174 @@ public class PedidoServiceImpl implements IPedidoService {
     public List<PedidoResponse> listarPedidosPorFecha(LocalDate fecha) {
         log.info("Listando pedidos para la fecha: {}", fecha);
         LocalDateTime inicio = fecha.atStartOfDay();
-        LocalDateTime fin = fecha.atTime(23, 59, 59);
+        LocalDateTime fin = fecha.plusDays(1).atStartOfDay();
 
-        return pedidoRepository.findByFechaBetweenOrderByFechaDesc(inicio, fin)
+        return cargarVistas(pedidoRepository.findIdsEntreFechas(inicio, fin))
                 .stream()
                 .map(pedidoMapper::toAdminResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Carga los pedidos indicados con todo lo que leen los mappers de cada rol,
+     * en una cantidad fija de consultas (pedidos + imágenes + combos),
+     * respetando el orden de los IDs recibidos.
+     */
+    private List<Pedido> cargarVistas(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Listados completos (sin paginar) se cargan por lotes para acotar el IN
+        Map<Long, Pedido> pedidosPorId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += LOTE_VISTAS) {
+            List<Long> lote = ids.subList(i, Math.min(i + LOTE_VISTAS, ids.size()));
+            for (Pedido pedido : pedidoRepository.findVistasByIdIn(lote)) {
+                pedidosPorId.put(pedido.getIdPedido(), pedido);
+            }
+        }
+
+        Set<Long> idsArticulos = new HashSet<>();
+        Set<Long> idsPromociones = new HashSet<>();
+        for (Pedido pedido : pedidosPorId.values()) {
+            for (DetallePedido detalle : pedido.getDetalles()) {
+                idsArticulos.add(detalle.getArticulo().getIdArticulo());
+                if (detalle.getPromocionAplicada() != null) {
+                    idsPromociones.add(detalle.getPromocionAplicada().getIdPromocion());
+                }
+            }
+        }
+
+        // Inicializan colecciones de entidades ya presentes en el contexto de persistencia
+        if (!idsArticulos.isEmpty()) {
+            articuloRepository.fetchImagenesByIdIn(idsArticulos);
+        }
+        if (!idsPromociones.isEmpty()) {
+            promocionRepository.findAllConDetallesYArticulosByIdIn(idsPromociones);
+        }
+
+        return ids.stream()
+                .map(pedidosPorId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // ==================== CONSULTAS PAGINADAS ====================
+
     @Override
     @Transactional(readOnly = true)
-    public List<PedidoCocineroResponse> listarPedidosCocina() {
-        log.info("Listando pedidos para cocina (solo manufacturados)");
+    public PaginaPedidosResponse<PedidoResponse> listarTodosPedidosPaginado(String cursor, int tamanio) {
+        log.info("Listando página de pedidos (ADMIN) desde cursor {}", cursor);
+        CursorPedido desde = CursorPedido.decodificar(cursor);
+        Pageable limite = limitePagina(tamanio);
 
-        return pedidoRepository.findPedidosParaCocina()
-                .stream()
-                .map(pedido -> {
-                    PedidoCocineroResponse response = pedidoMapper.toCocineroResponse(pedido);
+        List<Long> ids = desde == null
+                ? pedidoRepository.findIdsPrimeraPagina(limite)
+                : pedidoRepository.findIdsPaginaDespuesDe(desde.fecha(), desde.idPedido(), limite);
 
-                    // Sobreescribir detalles filtrando solo artículos manufacturados
-                    List<DetallePedidoResponse> soloManufacturados = pedido.getDetalles().stream()
-                            .filter(d -> d.getArticulo() instanceof ArticuloManufacturado)
-                            .map(detallePedidoMapper::toDTO)
-                            .collect(Collectors.toList());
-                    response.setDetalles(soloManufacturados);
+        return armarPagina(ids, tamanio);
+    }
 
-                    return response;
-                })
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaPedidosResponse<PedidoResponse> listarPedidosPorEstadoPaginado(String estado, String cursor,
+            int tamanio) {
+        log.info("Listando página de pedidos por estado {} desde cursor {}", estado, cursor);
+        Estado estadoEnum = Estado.valueOf(estado.toUpperCase());
+        CursorPedido desde = CursorPedido.decodificar(cursor);
+        Pageable limite = limitePagina(tamanio);
+
+        List<Long> ids = desde == null
+                ? pedidoRepository.findIdsPrimeraPaginaPorEstado(estadoEnum, limite)
+                : pedidoRepository.findIdsPaginaPorEstadoDespuesDe(estadoEnum, desde.fecha(), desde.idPedido(), limite);
+
+        return armarPagina(ids, tamanio);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaPedidosResponse<PedidoResponse> listarPedidosPorFechaPaginado(LocalDate fecha, String cursor,
+            int tamanio) {
+        log.info("Listando página de pedidos para la fecha {} desde cursor {}", fecha, cursor);
+        LocalDateTime inicio = fecha.atStartOfDay();
+        LocalDateTime fin = fecha.plusDays(1).atStartOfDay();
+        CursorPedido desde = CursorPedido.decodificar(cursor);
+        Pageable limite = limitePagina(tamanio);
+
+        List<Long> ids = desde == null
+                ? pedidoRepository.findIdsPrimeraPaginaEntreFechas(inicio, fin, limite)
+                : pedidoRepository.findIdsPaginaEntreFechasDespuesDe(inicio, desde.fecha(), desde.idPedido(), limite);
+
+        return armarPagina(ids, tamanio);
+    }
+
+    /**
+     * Se pide un registro extra para saber si existe una página siguiente
+     * sin ejecutar un COUNT.
+     */
+    private Pageable limitePagina(int tamanio) {
+        if (tamanio < 1 || tamanio > TAMANIO_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException(
+                    "El tamaño de página debe estar entre 1 y " + TAMANIO_MAXIMO_PAGINA);
+        }
+        return PageRequest.of(0, tamanio + 1);
+    }
+
+    private PaginaPedidosResponse<PedidoResponse> armarPagina(List<Long> ids, int tamanio) {
+        boolean hayMas = ids.size() > tamanio;
+        List<Pedido> pagina = cargarVistas(hayMas ? ids.subList(0, tamanio) : ids);
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            Pedido ultimo = pagina.get(pagina.size() - 1);
+            siguienteCursor = new CursorPedido(ultimo.getFecha(), ultimo.getIdPedido()).codificar();
+        }
+
+        List<PedidoResponse> responses = pagina.stream()
+                .map(pedidoMapper::toAdminResponse)
                 .collect(Collectors.toList());
+
+        return new PaginaPedidosResponse<>(responses, siguienteCursor, hayMas);
+    }
+
+    /**
+     * Posición (fecha, idPedido) del último pedido entregado. Viaja al cliente
+     * como token opaco en Base64 URL-safe.
+     */
+    private record CursorPedido(LocalDateTime fecha, Long idPedido) {
+
+        String codificar() {
+            String valor = fecha + "|" + idPedido;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static CursorPedido decodificar(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] partes = valor.split("\\|");
+                return new CursorPedido(LocalDateTime.parse(partes[0]), Long.parseLong(partes[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+        }
+    }
+
+    @Override
+    public List<PedidoCocineroResponse> listarPedidosCocina() {
+        log.info("Listando pedidos para cocina (solo manufacturados)");
+
+        // Se sirve desde el tablero en memoria, mantenido por eventos de pedido
+        return tableroCocinaService.listar();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PedidoDeliveryResponse> listarPedidosDelivery(Usuario usuario) {
         log.info("Listando pedidos asignados al delivery {}", usuario.getEmail());
-        return pedidoRepository.findByUsuarioDelivery_IdUsuarioOrderByFechaDesc(usuario.getIdUsuario())
+        return cargarVistas(pedidoRepository.findIdsListosByDelivery(usuario.getIdUsuario()))
                 .stream()
                 .map(pedidoMapper::toDeliveryResponse)
                 .collect(Collectors.toList());
@@ -202,10 +395,19 @@ public class PedidoServiceImpl implements IPedidoService {
     @Transactional(readOnly = true)
     public List<PedidoClienteResponse> listarPedidosCliente(Long idCliente) {
         log.info("Listando pedidos del cliente: {}", idCliente);
-        return pedidoRepository.findByCliente_IdClienteOrderByFechaDesc(idCliente)
+        List<PedidoClienteResponse> pedidos = cargarVistas(pedidoRepository.findIdsByCliente(idCliente))
                 .stream()
                 .map(pedidoMapper::toClienteResponse)
                 .collect(Collectors.toList());
+
+        // Historial completo: se suman los pedidos ya archivados
+        List<PedidoClienteResponse> archivados = archivoPedidosService.listarPedidosCliente(idCliente);
+        if (!archivados.isEmpty()) {
+            pedidos.addAll(archivados);
+            pedidos.sort(Comparator.comparing(PedidoClienteResponse::getFecha)
+                    .thenComparing(PedidoClienteResponse::getIdPedido).reversed());
+        }
+        return pedidos;
     }
 
     @Override
@@ -260,7 +462,8 @@ public class PedidoServiceImpl implements IPedidoService {
         pedido.setFechaConfirmacionPago(LocalDateTime.now());
         pedido.setUsuarioConfirmaPago(usuarioAutenticado);
 
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        Pedido pedidoActualizado = pedidoRepository.saveAndFlush(pedido);
+        publicarEvento(TipoEventoPedido.PAGO_CONFIRMADO, pedidoActualizado);
         log.info("Pago confirmado para pedido {}", pedidoActualizado.getIdPedido());
 
         return pedidoMapper.toAdminResponse(pedidoActualizado);
@@ -275,13 +478,18 @@ public class PedidoServiceImpl implements IPedidoService {
         Pedido pedido = pedidoRepository.findById(request.getIdPedido())
                 .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado"));
 
-        // Validar transición de estado
+        // Validar permisos del rol (la tabla de transiciones valida el resto)
         validarTransicionEstado(pedido, request.getNuevoEstado(), usuarioAutenticado.getRol());
 
-        // Actualizar estado y timestamps
-        actualizarEstado(pedido, request.getNuevoEstado());
+        Pedido pedidoActualizado;
+        if (request.getNuevoEstado() == Estado.CANCELADO) {
+            pedidoActualizado = motorTransiciones.cancelar(pedido, null, usuarioAutenticado);
+            stockReservaService.liberarReservas(pedidoActualizado);
+        } else {
+            pedidoActualizado = motorTransiciones.transicionar(pedido, request.getNuevoEstado());
+        }
 
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        publicarEvento(TipoEventoPedido.desdeEstado(request.getNuevoEstado()), pedidoActualizado);
         log.info("Estado del pedido {} actualizado a {}", pedidoActualizado.getIdPedido(), request.getNuevoEstado());
 
         // Retornar según el rol
@@ -316,13 +524,13 @@ public class PedidoServiceImpl implements IPedidoService {
             }
         }
 
-        // Cancelar pedido
-        pedido.setEstado(Estado.CANCELADO);
-        pedido.setFechaCancelado(LocalDateTime.now());
-        pedido.setMotivoCancelacion(request.getMotivo());
-        pedido.setUsuarioCancela(usuarioAutenticado);
+        // Cancelar pedido (solo si nadie lo cambió desde la lectura)
+        Pedido pedidoCancelado = motorTransiciones.cancelar(pedido, request.getMotivo(), usuarioAutenticado);
+
+        // Devolver al stock los insumos reservados
+        stockReservaService.liberarReservas(pedidoCancelado);
 
-        Pedido pedidoCancelado = pedidoRepository.save(pedido);
+        publicarEvento(TipoEventoPedido.CANCELADO, pedidoCancelado);
         log.info("Pedido {} cancelado exitosamente", pedidoCancelado.getIdPedido());
 
         // Retornar según el rol
@@ -349,10 +557,8 @@ public class PedidoServiceImpl implements IPedidoService {
             throw new IllegalArgumentException("El pedido no puede iniciar preparación");
         }
 
-        pedido.setEstado(Estado.PREPARACION);
-        pedido.setFechaInicioPreparacion(LocalDateTime.now());
-
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        Pedido pedidoActualizado = motorTransiciones.transicionar(pedido, Estado.PREPARACION);
+        publicarEvento(TipoEventoPedido.PREPARACION_INICIADA, pedidoActualizado);
         log.info("Pedido {} en preparación", pedidoActualizado.getIdPedido());
 
         return pedidoMapper.toCocineroResponse(pedidoActualizado);
@@ -371,10 +577,8 @@ public class PedidoServiceImpl implements IPedidoService {
             throw new IllegalArgumentException("El pedido no está en preparación");
         }
 
-        pedido.setEstado(Estado.LISTO);
-        pedido.setFechaListo(LocalDateTime.now());
-
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        Pedido pedidoActualizado = motorTransiciones.transicionar(pedido, Estado.LISTO);
+        publicarEvento(TipoEventoPedido.LISTO, pedidoActualizado);
         log.info("Pedido {} marcado como listo", pedidoActualizado.getIdPedido());
 
         return pedidoMapper.toCocineroResponse(pedidoActualizado);
@@ -401,10 +605,8 @@ public class PedidoServiceImpl implements IPedidoService {
             throw new IllegalArgumentException("Este pedido está asignado a otro delivery");
         }
 
-        pedido.setEstado(Estado.ENTREGADO);
-        pedido.setFechaEntregado(LocalDateTime.now());
-
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        Pedido pedidoActualizado = motorTransiciones.transicionar(pedido, Estado.ENTREGADO);
+        publicarEvento(TipoEventoPedido.ENTREGADO, pedidoActualizado);
         log.info("Pedido {} entregado exitosamente", pedidoActualizado.getIdPedido());
 
         return pedidoMapper.toDeliveryResponse(pedidoActualizado);
@@ -421,22 +623,11 @@ public class PedidoServiceImpl implements IPedidoService {
         Pedido pedido = pedidoRepository.findById(request.getIdPedido())
                 .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado"));
 
-        if (pedido.getEstado() != Estado.PREPARACION) {
-            log.error("Solo se puede extender tiempo de pedidos en preparación. Estado actual: {}", pedido.getEstado());
-            throw new IllegalArgumentException("Solo se puede extender tiempo de pedidos en preparación");
-        }
-
-        // Actualizar tiempo de extensión y hora estimada
-        int extensionActual = pedido.getTiempoExtensionMinutos() != null ? pedido.getTiempoExtensionMinutos() : 0;
-        pedido.setTiempoExtensionMinutos(extensionActual + request.getMinutosExtension());
-
-        LocalTime nuevaHoraEstimada = pedido.getHoraEstimadaFinalizacion()
-                .plusMinutes(request.getMinutosExtension());
-        pedido.setHoraEstimadaFinalizacion(nuevaHoraEstimada);
-
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        // UPDATE condicionado al estado y la versión leídos
+        Pedido pedidoActualizado = motorTransiciones.extenderTiempo(pedido, request.getMinutosExtension());
+        publicarEvento(TipoEventoPedido.TIEMPO_EXTENDIDO, pedidoActualizado, request.getMinutosExtension());
         log.info("Tiempo del pedido {} extendido. Nueva hora estimada: {}",
-                pedidoActualizado.getIdPedido(), nuevaHoraEstimada);
+                pedidoActualizado.getIdPedido(), pedidoActualizado.getHoraEstimadaFinalizacion());
 
         return pedidoMapper.toCocineroResponse(pedidoActualizado);
     }
@@ -469,12 +660,69 @@ public class PedidoServiceImpl implements IPedidoService {
 
         pedido.setUsuarioDelivery(delivery);
 
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        Pedido pedidoActualizado = pedidoRepository.saveAndFlush(pedido);
+        publicarEvento(TipoEventoPedido.DELIVERY_ASIGNADO, pedidoActualizado);
         log.info("Delivery {} asignado al pedido {}", delivery.getEmail(), pedidoActualizado.getIdPedido());
 
         return pedidoMapper.toAdminResponse(pedidoActualizado);
     }
 
+    @Override
+    @Transactional
+    public List<Long> asignarDeliverySiLibre(List<Long> idsPedidos, Long idUsuarioDelivery) {
+        Usuario delivery = usuarioRepository.getReferenceById(idUsuarioDelivery);
+
+        List<Long> asignados = new ArrayList<>();
+        for (Long idPedido : idsPedidos) {
+            if (pedidoRepository.asignarDeliverySiLibre(idPedido, delivery) > 0) {
+                asignados.add(idPedido);
+            } else {
+                log.debug("Pedido {} ya no está disponible para asignar", idPedido);
+            }
+        }
+
+        // Los UPDATE limpiaron el contexto de persistencia: se lee el estado confirmado
+        for (Pedido pedido : pedidoRepository.findAllById(asignados)) {
+            publicarEvento(TipoEventoPedido.DELIVERY_ASIGNADO, pedido);
+        }
+        if (!asignados.isEmpty()) {
+            log.info("Delivery {} asignado automáticamente a los pedidos {}", idUsuarioDelivery, asignados);
+        }
+        return asignados;
+    }
+
+    // ==================== EVENTOS ====================
+
+    private void publicarEvento(TipoEventoPedido tipo, Pedido pedido) {
+        publicarEvento(tipo, pedido, null);
+    }
+
+    /**
+     * Publica el evento del pedido dentro de la transacción actual, registra su
+     * notificación en el outbox y lo aplica a los acumulados de ventas. Los
+     * listeners lo reciben tras el commit; la versión debe estar ya
+     * sincronizada (flush).
+     */
+    private void publicarEvento(TipoEventoPedido tipo, Pedido pedido, Integer minutosExtension) {
+        outboxPedidoService.registrar(tipo, pedido, minutosExtension);
+        ventaDiariaService.registrar(tipo, pedido);
+        analiticaVentasService.registrar(tipo, pedido);
+
+        PedidoCocineroResponse vistaCocina = tableroCocinaService.perteneceACocina(pedido)
+                ? tableroCocinaService.construirVista(pedido)
+                : null;
+
+        eventPublisher.publishEvent(new PedidoEvent(
+                tipo,
+                pedido.getIdPedido(),
+                pedido.getVersion(),
+                pedido.getEstado(),
+                pedido.getTipoEnvio(),
+                vistaCocina,
+                pedido.calcularFechaHoraEstimada(),
+                LocalDateTime.now()));
+    }
+
     // ==================== VALIDACIONES ====================
 
     @Override
@@ -485,7 +733,81 @@ public class PedidoServiceImpl implements IPedidoService {
 
     // ==================== MÉTODOS PRIVADOS ====================
 
-    private void procesarDetallesPedido(Pedido pedido, List<DetallePedidoRequest> detallesRequest) {
+    /**
+     * ✅ Snapshot del pedido: artículos (subclases concretas, para las relaciones,
+     * el stock y la cocina) y promociones, cargados una única vez, más sus
+     * precios y costos tomados de la lista de precios.
+     */
+    private record SnapshotPrecios(Map<Long, Articulo> articulos, Map<Long, PrecioArticulo> precios,
+            Map<Long, Promocion> promociones) {
+
+        Articulo articulo(Long idArticulo) {
+            Articulo articulo = articulos.get(idArticulo);
+            if (articulo == null) {
+                throw new IllegalArgumentException("Artículo no encontrado: " + idArticulo);
+            }
+            return articulo;
+        }
+
+        PrecioArticulo precio(Long idArticulo) {
+            PrecioArticulo precio = precios.get(idArticulo);
+            if (precio == null) {
+                throw new IllegalArgumentException("Artículo no encontrado: " + idArticulo);
+            }
+            return precio;
+        }
+
+        Promocion promocion(Long idPromocion) {
+            Promocion promocion = promociones.get(idPromocion);
+            if (promocion == null) {
+                throw new IllegalArgumentException("Promoción no encontrada: " + idPromocion);
+            }
+            return promocion;
+        }
+    }
+
+    /**
+     * ✅ Recolecta los IDs de artículos y promociones del request y los resuelve en
+     * dos consultas (promociones con detalles + artículos polimórficos), sin
+     * importar la cantidad de líneas del pedido.
+     */
+    private SnapshotPrecios cargarSnapshotPrecios(List<DetallePedidoRequest> detallesRequest) {
+        Set<Long> idsPromociones = detallesRequest.stream()
+                .map(DetallePedidoRequest::getIdPromocion)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, Promocion> promociones = idsPromociones.isEmpty()
+                ? Map.of()
+                : promocionRepository.findAllConDetallesByIdIn(idsPromociones).stream()
+                        .collect(Collectors.toMap(Promocion::getIdPromocion, Function.identity()));
+
+        Set<Long> idsArticulos = new HashSet<>();
+        for (DetallePedidoRequest detalleRequest : detallesRequest) {
+            if (detalleRequest.getIdPromocion() == null && detalleRequest.getIdArticulo() != null) {
+                idsArticulos.add(detalleRequest.getIdArticulo());
+            }
+        }
+        for (Promocion promocion : promociones.values()) {
+            for (PromocionDetalle pd : promocion.getDetalles()) {
+                idsArticulos.add(pd.getArticulo().getIdArticulo());
+            }
+        }
+
+        Map<Long, Articulo> articulos = idsArticulos.isEmpty()
+                ? Map.of()
+                : articuloRepository.findAllByIdArticuloIn(idsArticulos).stream()
+                        .map(a -> (Articulo) Hibernate.unproxy(a))
+                        .collect(Collectors.toMap(Articulo::getIdArticulo, Function.identity()));
+
+        Map<Long, PrecioArticulo> precios = listaPreciosService.obtener(idsArticulos);
+
+        log.debug("📦 Snapshot de precios: {} artículos, {} promociones", articulos.size(), promociones.size());
+        return new SnapshotPrecios(articulos, precios, promociones);
+    }
+
+    private void procesarDetallesPedido(Pedido pedido, List<DetallePedidoRequest> detallesRequest,
+            SnapshotPrecios snapshot) {
         log.debug("Procesando {} detalles del pedido", detallesRequest.size());
 
         for (DetallePedidoRequest detalleRequest : detallesRequest) {
@@ -494,9 +816,7 @@ public class PedidoServiceImpl implements IPedidoService {
             detalle.setPedido(pedido);
 
             if (detalleRequest.getIdPromocion() != null) {
-                Promocion promocion = promocionRepository.findById(detalleRequest.getIdPromocion())
-                        .orElseThrow(() -> new IllegalArgumentException(
-                                "Promoción no encontrada: " + detalleRequest.getIdPromocion()));
+                Promocion promocion = snapshot.promocion(detalleRequest.getIdPromocion());
 
                 if (!promocion.estaVigente()) {
                     throw new IllegalArgumentException("La promoción no está vigente");
@@ -508,25 +828,26 @@ public class PedidoServiceImpl implements IPedidoService {
                 }
 
                 // ✅ Precio original = suma de TODOS los artículos del combo
-                // Usamos cargarArticuloReal() para obtener la subclase concreta
+                // El snapshot ya contiene la subclase concreta de cada artículo
                 double precioOriginalCombo = 0.0;
                 Articulo articuloPrincipal = null;
 
                 for (PromocionDetalle pd : promocion.getDetalles()) {
-                    Articulo art = cargarArticuloReal(pd.getArticulo().getIdArticulo());
+                    Long idArticulo = pd.getArticulo().getIdArticulo();
+                    PrecioArticulo precio = snapshot.precio(idArticulo);
 
-                    double precioArticulo = art.getPrecioVenta() * pd.getCantidad();
+                    double precioArticulo = precio.precioVenta() * pd.getCantidad();
                     precioOriginalCombo += precioArticulo;
 
                     log.debug("   📦 '{}' ({}): precioVenta=${} x{} = ${}",
-                            art.getDenominacion(),
-                            art.getClass().getSimpleName(),
-                            art.getPrecioVenta(),
+                            precio.denominacion(),
+                            precio.tipo(),
+                            precio.precioVenta(),
                             pd.getCantidad(),
                             precioArticulo);
 
                     if (articuloPrincipal == null) {
-                        articuloPrincipal = art;
+                        articuloPrincipal = snapshot.articulo(idArticulo);
                     }
                 }
 
@@ -562,19 +883,20 @@ public class PedidoServiceImpl implements IPedidoService {
                     throw new IllegalArgumentException("idArticulo es requerido para artículos individuales");
                 }
 
-                // ✅ Cargar artículo real (subclase concreta)
-                Articulo articulo = cargarArticuloReal(detalleRequest.getIdArticulo());
+                // ✅ Artículo real (subclase concreta) y su precio desde el snapshot
+                Articulo articulo = snapshot.articulo(detalleRequest.getIdArticulo());
+                PrecioArticulo precio = snapshot.precio(detalleRequest.getIdArticulo());
 
                 detalle.setArticulo(articulo);
-                detalle.setPrecioUnitarioOriginal(articulo.getPrecioVenta());
+                detalle.setPrecioUnitarioOriginal(precio.precioVenta());
                 detalle.setDescuentoPromocion(0.0);
 
-                double subtotal = articulo.getPrecioVenta() * detalleRequest.getCantidad();
+                double subtotal = precio.precioVenta() * detalleRequest.getCantidad();
                 detalle.setSubtotal(subtotal);
 
                 log.debug("✅ Artículo '{}' | Precio: ${} | Subtotal(x{}): ${}",
-                        articulo.getDenominacion(),
-                        articulo.getPrecioVenta(),
+                        precio.denominacion(),
+                        precio.precioVenta(),
                         detalleRequest.getCantidad(),
                         subtotal);
             }
@@ -583,7 +905,7 @@ public class PedidoServiceImpl implements IPedidoService {
         }
     }
 
-    private void calcularTotales(Pedido pedido) {
+    private void calcularTotales(Pedido pedido, SnapshotPrecios snapshot) {
         Double total = pedido.getDetalles().stream()
                 .mapToDouble(DetallePedido::getSubtotal)
                 .sum();
@@ -595,16 +917,16 @@ public class PedidoServiceImpl implements IPedidoService {
 
                         double costoCombo = detalle.getPromocionAplicada().getDetalles().stream()
                                 .mapToDouble(pd -> {
-                                    Articulo art = cargarArticuloReal(pd.getArticulo().getIdArticulo());
-                                    double costo = getCostoArticulo(art);
+                                    PrecioArticulo precio = snapshot.precio(pd.getArticulo().getIdArticulo());
+                                    double costo = getCostoArticulo(precio);
 
                                     // ✅ LOG DETALLADO para comparar con admin
                                     log.info("   💰 Artículo: '{}' ({})",
-                                            art.getDenominacion(),
-                                            art.getClass().getSimpleName());
+                                            precio.denominacion(),
+                                            precio.tipo());
                                     log.info(
                                             "      precioVenta=${}  |  costo(costoProduccion/precioCompra)=${}  |  cantidad={}",
-                                            art.getPrecioVenta(), costo, pd.getCantidad());
+                                            precio.precioVenta(), costo, pd.getCantidad());
                                     log.info("      subtotalCosto=${}", costo * pd.getCantidad());
 
                                     return costo * pd.getCantidad();
@@ -613,19 +935,21 @@ public class PedidoServiceImpl implements IPedidoService {
 
                         double costoTotal = costoCombo * detalle.getCantidad();
                         log.info("   ✅ Costo total combo x{}: ${}", detalle.getCantidad(), costoTotal);
+                        detalle.setCosto(costoTotal);
                         return costoTotal;
                     }
 
-                    Articulo art = cargarArticuloReal(detalle.getArticulo().getIdArticulo());
-                    double costo = getCostoArticulo(art) * detalle.getCantidad();
+                    PrecioArticulo precio = snapshot.precio(detalle.getArticulo().getIdArticulo());
+                    double costo = getCostoArticulo(precio) * detalle.getCantidad();
 
                     log.info("   💰 Artículo individual: '{}' ({}) | precioVenta=${} | costo=${} | x{}",
-                            art.getDenominacion(),
-                            art.getClass().getSimpleName(),
-                            art.getPrecioVenta(),
-                            getCostoArticulo(art),
+                            precio.denominacion(),
+                            precio.tipo(),
+                            precio.precioVenta(),
+                            precio.costo(),
                             detalle.getCantidad());
 
+                    detalle.setCosto(costo);
                     return costo;
                 })
                 .sum();
@@ -640,38 +964,17 @@ public class PedidoServiceImpl implements IPedidoService {
         log.info("📊 ═══════════════════════════════════════");
     }
 
-    // ✅ Helper para obtener costo — recibe artículo ya cargado como subclase
-    // concreta
-    private double getCostoArticulo(Articulo articulo) {
-        if (articulo == null)
-            return 0.0;
-
-        if (articulo instanceof ArticuloManufacturado am) {
-            Double costo = am.getCostoProduccion();
-            if (costo == null || costo == 0.0) {
-                log.warn("⚠️ ArticuloManufacturado '{}' (id={}) costoProduccion={}",
-                        am.getDenominacion(), am.getIdArticulo(), costo);
-            }
-            return costo != null ? costo : 0.0;
+    // ✅ Helper para obtener costo desde la lista de precios
+    // (costoProduccion o precioCompra según el tipo)
+    private double getCostoArticulo(PrecioArticulo precio) {
+        if (!precio.costoInformado() || precio.costo() == 0.0) {
+            log.warn("⚠️ Artículo {} '{}' (id={}) sin costo informado",
+                    precio.tipo(), precio.denominacion(), precio.idArticulo());
         }
-
-        if (articulo instanceof ArticuloInsumo ai) {
-            Double costo = ai.getPrecioCompra();
-            if (costo == null || costo == 0.0) {
-                log.warn("⚠️ ArticuloInsumo '{}' (id={}) precioCompra={}",
-                        ai.getDenominacion(), ai.getIdArticulo(), costo);
-            }
-            return costo != null ? costo : 0.0;
-        }
-
-        log.warn("⚠️ Tipo desconocido: {} ({})",
-                articulo.getDenominacion(), articulo.getClass().getSimpleName());
-        return 0.0;
+        return precio.costo();
     }
 
     private void validarTransicionEstado(Pedido pedido, Estado nuevoEstado, Rol rolUsuario) {
-        Estado estadoActual = pedido.getEstado();
-
         // Validar según el rol
         switch (rolUsuario) {
             case COCINERO:
@@ -691,68 +994,5 @@ public class PedidoServiceImpl implements IPedidoService {
             default:
                 throw new IllegalArgumentException("Rol no autorizado para cambiar estados");
         }
-
-        // Validaciones lógicas de transición
-        if (estadoActual == Estado.ENTREGADO || estadoActual == Estado.CANCELADO) {
-            throw new IllegalArgumentException("No se puede cambiar el estado de un pedido " + estadoActual);
-        }
-    }
-
-    private void actualizarEstado(Pedido pedido, Estado nuevoEstado) {
-        pedido.setEstado(nuevoEstado);
-
-        switch (nuevoEstado) {
-            case PREPARACION:
-                if (pedido.getFechaInicioPreparacion() == null) {
-                    pedido.setFechaInicioPreparacion(LocalDateTime.now());
-                }
-                break;
-            case LISTO:
-                if (pedido.getFechaListo() == null) {
-                    pedido.setFechaListo(LocalDateTime.now());
-                }
-                break;
-            case ENTREGADO:
-                if (pedido.getFechaEntregado() == null) {
-                    pedido.setFechaEntregado(LocalDateTime.now());
-                }
-                break;
-            case CANCELADO:
-                if (pedido.getFechaCancelado() == null) {
-                    pedido.setFechaCancelado(LocalDateTime.now());
-                }
-                break;
-        }
     }
-
-    /**
-     * ✅ Carga el artículo real (subclase concreta) desde el repository específico.
-     * Esto garantiza que los campos propios de la subclase (costoProduccion,
-     * precioCompra)
-     * estén correctamente inicializados — igual que en
-     * PromocionClienteMapper/CatalogoService.
-     */
-    private Articulo cargarArticuloReal(Long idArticulo) {
-        // Intentar primero como ArticuloManufacturado
-        var manufacturado = articuloManufacturadoRepository.findById(idArticulo);
-        if (manufacturado.isPresent()) {
-            ArticuloManufacturado am = manufacturado.get();
-            log.debug("   📦 Cargado como ArticuloManufacturado: '{}' | precioVenta=${} | costoProduccion=${}",
-                    am.getDenominacion(), am.getPrecioVenta(), am.getCostoProduccion());
-            return am;
-        }
-
-        // Intentar como ArticuloInsumo
-        var insumo = articuloInsumoRepository.findById(idArticulo);
-        if (insumo.isPresent()) {
-            ArticuloInsumo ai = insumo.get();
-            log.debug("   📦 Cargado como ArticuloInsumo: '{}' | precioVenta=${} | precioCompra=${}",
-                    ai.getDenominacion(), ai.getPrecioVenta(), ai.getPrecioCompra());
-            return ai;
-        }
-
-        // Fallback: cargar como Articulo base
-        return articuloRepository.findById(idArticulo)
-                .orElseThrow(() -> new IllegalArgumentException("Artículo no encontrado: " + idArticulo));
-    }
-}
\ No newline at end of file
+}
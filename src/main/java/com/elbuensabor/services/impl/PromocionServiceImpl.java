@@ -5,20 +5,17 @@ import com.elbuensabor.dto.request.PromocionRequestDTO;
 import com.elbuensabor.dto.request.PromocionDetalleDTO;
 import com.elbuensabor.dto.response.PromocionResponseDTO;
 import com.elbuensabor.entities.Articulo;
-import com.elbuensabor.entities.ArticuloInsumo;
-import com.elbuensabor.entities.ArticuloManufacturado;
 import com.elbuensabor.entities.Imagen;
 import com.elbuensabor.entities.Promocion;
 import com.elbuensabor.entities.PromocionDetalle;
 import com.elbuensabor.exceptions.DuplicateResourceException;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
-import com.elbuensabor.repository.IArticuloManufacturadoRepository;
-import com.elbuensabor.repository.IArticuloInsumoRepository;
 import com.elbuensabor.repository.IArticuloRepository;
 import com.elbuensabor.repository.IImagenRepository;
 import com.elbuensabor.repository.IPromocionRepository;
 import com.elbuensabor.services.IImagenService;
 import com.elbuensabor.services.IPromocionService;
+import com.elbuensabor.services.impl.ListaPreciosService.PrecioArticulo;
 import com.elbuensabor.services.mapper.PromocionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -44,9 +42,13 @@ public class PromocionServiceImpl implements IPromocionService {
     @Autowired
     private IImagenService imagenService;
     @Autowired
-    private IArticuloManufacturadoRepository articuloManufacturadoRepository;
+    private ListaPreciosService listaPreciosService;
     @Autowired
-    private IArticuloInsumoRepository articuloInsumoRepository;
+    private IndicePromocionesService indicePromociones;
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+    @Autowired
+    private IndiceBusquedaService indiceBusqueda;
     @Autowired
     private IImagenRepository imagenRepository;
 
@@ -93,6 +95,9 @@ public class PromocionServiceImpl implements IPromocionService {
 
         // ✅ Guardar de nuevo para persistir las relaciones
         Promocion finalPromocion = repository.save(savedPromocion);
+        indicePromociones.reconstruirAlConfirmar();
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.recargarAlConfirmar();
         log.info("Promoción {} creada con ID {}", finalPromocion.getDenominacion(), finalPromocion.getIdPromocion());
         return toDTOConResumen(finalPromocion); // ✅
     }
@@ -119,6 +124,9 @@ public class PromocionServiceImpl implements IPromocionService {
         manejarImagenes(promocion, requestDTO.getImagenes());
 
         Promocion finalPromocion = repository.save(promocion);
+        indicePromociones.reconstruirAlConfirmar();
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.recargarAlConfirmar();
         return toDTOConResumen(finalPromocion); // ✅
     }
 
@@ -137,6 +145,9 @@ public class PromocionServiceImpl implements IPromocionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Promoción no encontrada con ID: " + id));
         promocion.setEliminado(true);
         repository.save(promocion);
+        indicePromociones.reconstruirAlConfirmar();
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.recargarAlConfirmar();
     }
 
     @Override
@@ -147,6 +158,9 @@ public class PromocionServiceImpl implements IPromocionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Promoción no encontrada con ID: " + id));
         promocion.setEliminado(false);
         repository.save(promocion);
+        indicePromociones.reconstruirAlConfirmar();
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.recargarAlConfirmar();
     }
 
     @Override
@@ -157,6 +171,9 @@ public class PromocionServiceImpl implements IPromocionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Promoción no encontrada con ID: " + id));
         promocion.setActivo(!promocion.getActivo());
         Promocion updated = repository.save(promocion);
+        indicePromociones.reconstruirAlConfirmar();
+        catalogoCache.invalidarAlConfirmar();
+        indiceBusqueda.recargarAlConfirmar();
         return toDTOConResumen(updated); // ✅
     }
 
@@ -187,23 +204,29 @@ public class PromocionServiceImpl implements IPromocionService {
             return dto;
         }
 
-        // ✅ Igual que PedidoServiceImpl: cargar subclase concreta para tener los campos
-        // de costo
+        // ✅ Igual que PedidoServiceImpl: precios y costos desde la lista de precios
+        Map<Long, PrecioArticulo> precios = listaPreciosService.obtener(promocion.getDetalles().stream()
+                .map(pd -> pd.getArticulo().getIdArticulo())
+                .toList());
         double precioOriginal = 0.0;
         double totalCosto = 0.0;
 
         for (PromocionDetalle pd : promocion.getDetalles()) {
-            Articulo art = cargarArticuloReal(pd.getArticulo().getIdArticulo());
+            Long idArticulo = pd.getArticulo().getIdArticulo();
+            PrecioArticulo precio = precios.get(idArticulo);
+            if (precio == null) {
+                throw new ResourceNotFoundException("Artículo no encontrado: " + idArticulo);
+            }
             double cantidad = pd.getCantidad();
 
-            precioOriginal += art.getPrecioVenta() * cantidad;
-            totalCosto += getCostoArticulo(art) * cantidad;
+            precioOriginal += precio.precioVenta() * cantidad;
+            totalCosto += precio.costo() * cantidad;
 
             log.debug("   📊 '{}' ({}): precioVenta=${} | costo=${} | x{}",
-                    art.getDenominacion(),
-                    art.getClass().getSimpleName(),
-                    art.getPrecioVenta(),
-                    getCostoArticulo(art),
+                    precio.denominacion(),
+                    precio.tipo(),
+                    precio.precioVenta(),
+                    precio.costo(),
                     cantidad);
         }
 
@@ -237,28 +260,6 @@ public class PromocionServiceImpl implements IPromocionService {
         return dto;
     }
 
-    // ✅ Igual que PedidoServiceImpl — fuente única de verdad
-    private Articulo cargarArticuloReal(Long idArticulo) {
-        var manufacturado = articuloManufacturadoRepository.findById(idArticulo);
-        if (manufacturado.isPresent())
-            return manufacturado.get();
-
-        var insumo = articuloInsumoRepository.findById(idArticulo);
-        if (insumo.isPresent())
-            return insumo.get();
-
-        return articuloRepository.findById(idArticulo)
-                .orElseThrow(() -> new ResourceNotFoundException("Artículo no encontrado: " + idArticulo));
-    }
-
-    private double getCostoArticulo(Articulo articulo) {
-        if (articulo instanceof ArticuloManufacturado am)
-            return am.getCostoProduccion() != null ? am.getCostoProduccion() : 0.0;
-        if (articulo instanceof ArticuloInsumo ai)
-            return ai.getPrecioCompra() != null ? ai.getPrecioCompra() : 0.0;
-        return 0.0;
-    }
-
     /**
      * ✅ Asigna los detalles (artículos + cantidades) a la promoción.
      * Reemplaza la lista existente para soportar updates correctamente.
@@ -0,0 +1,182 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.*;
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.IDetalleManufacturadoRepository;
+import com.elbuensabor.repository.IReservaStockRepository;
+import com.elbuensabor.services.IStockReservaService;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Reserva de insumos al crear un pedido.
+ *
+ * Cada línea se descompone en cantidades por insumo con las recetas de
+ * DisponibilidadStockService, se agregan por insumo y se descuentan con un
+ * UPDATE condicional (stock_actual >= cantidad), que es el que decide: dos
+ * pedidos concurrentes nunca pueden consumir el mismo remanente. Antes se
+ * compara con el stock en memoria para rechazar sin bloquear filas los pedidos
+ * que no alcanzan. Reservas y liberaciones quedan en el libro de stock como
+ * CONSUMO y REVERSION.
+ */
+@Service
+public class StockReservaServiceImpl implements IStockReservaService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservaServiceImpl.class);
+
+    @Autowired
+    private IArticuloInsumoRepository articuloInsumoRepository;
+
+    @Autowired
+    private IDetalleManufacturadoRepository detalleManufacturadoRepository;
+
+    @Autowired
+    private IReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private DisponibilidadStockService disponibilidadStock;
+
+    @Autowired
+    private LibroStockService libroStock;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservarStock(Pedido pedido) {
+        Map<Long, Double> consumoPorInsumo = calcularConsumoPorInsumo(pedido);
+        verificarFaltantes(consumoPorInsumo);
+
+        // Las filas se bloquean siempre en el mismo orden (por ID) para que dos
+        // pedidos con los mismos insumos no generen deadlocks.
+        String referencia = "pedido:" + pedido.getIdPedido();
+        // Si un insumo no alcanza lanza "Stock insuficiente para el insumo con ID: "
+        libroStock.aplicar(consumoPorInsumo.entrySet().stream()
+                .map(e -> new LibroStockService.Movimiento(e.getKey(), TipoMovimientoStock.CONSUMO,
+                        -e.getValue(), referencia))
+                .toList());
+
+        for (Map.Entry<Long, Double> entry : consumoPorInsumo.entrySet()) {
+            Long idInsumo = entry.getKey();
+            double cantidad = entry.getValue();
+
+            ReservaStock reserva = new ReservaStock();
+            reserva.setPedido(pedido);
+            reserva.setArticuloInsumo(articuloInsumoRepository.getReferenceById(idInsumo));
+            reserva.setCantidad(cantidad);
+            reservaStockRepository.save(reserva);
+        }
+
+        disponibilidadStock.actualizarStockAlConfirmar(consumoPorInsumo.keySet());
+        log.info("✅ Pedido {}: reservados {} insumos", pedido.getIdPedido(), consumoPorInsumo.size());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberarReservas(Pedido pedido) {
+        List<ReservaStock> reservas = reservaStockRepository.findVigentesByPedido(pedido.getIdPedido());
+        reservas.sort(Comparator.comparing(r -> r.getArticuloInsumo().getIdArticulo()));
+
+        LocalDateTime ahora = LocalDateTime.now();
+        String referencia = "pedido:" + pedido.getIdPedido();
+        List<LibroStockService.Movimiento> devoluciones = new ArrayList<>();
+        for (ReservaStock reserva : reservas) {
+            // Solo quien gana el UPDATE sobre la reserva devuelve el stock
+            if (reservaStockRepository.marcarLiberada(reserva.getIdReservaStock(), ahora) == 1) {
+                devoluciones.add(new LibroStockService.Movimiento(reserva.getArticuloInsumo().getIdArticulo(),
+                        TipoMovimientoStock.REVERSION, reserva.getCantidad(), referencia));
+            }
+        }
+        libroStock.aplicar(devoluciones);
+        List<Long> liberadas = devoluciones.stream().map(LibroStockService.Movimiento::idInsumo).toList();
+        disponibilidadStock.actualizarStockAlConfirmar(liberadas);
+
+        log.info("✅ Pedido {}: liberadas {} reservas de stock", pedido.getIdPedido(), liberadas.size());
+    }
+
+    /**
+     * Rechaza el pedido si el stock en memoria no alcanza para algún insumo.
+     * La memoria puede estar atrasada, así que el faltante se confirma con la
+     * base antes de rechazar.
+     */
+    private void verificarFaltantes(Map<Long, Double> consumoPorInsumo) {
+        Long faltante = disponibilidadStock.primerFaltante(consumoPorInsumo);
+        if (faltante == null) {
+            return;
+        }
+        double enBase = articuloInsumoRepository.findStockByIdIn(List.of(faltante)).stream()
+                .map(fila -> fila[1] != null ? (Double) fila[1] : 0.0)
+                .findFirst()
+                .orElse(0.0);
+        if (enBase < consumoPorInsumo.get(faltante)) {
+            log.warn("❌ Stock insuficiente del insumo {} para el pedido (requiere {}, hay {})",
+                    faltante, consumoPorInsumo.get(faltante), enBase);
+            throw new IllegalArgumentException("Stock insuficiente para el insumo con ID: " + faltante);
+        }
+    }
+
+    /**
+     * Explota las líneas del pedido (artículos sueltos y combos) en cantidades
+     * totales por insumo. Las recetas salen del motor de disponibilidad; los
+     * artículos que todavía no conoce (recién creados o sin receta) se
+     * resuelven con una consulta.
+     */
+    private Map<Long, Double> calcularConsumoPorInsumo(Pedido pedido) {
+        Map<Long, Integer> unidadesPorArticulo = new HashMap<>();
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            Promocion promocion = detalle.getPromocionAplicada();
+            if (promocion != null) {
+                for (PromocionDetalle pd : promocion.getDetalles()) {
+                    unidadesPorArticulo.merge(pd.getArticulo().getIdArticulo(),
+                            pd.getCantidad() * detalle.getCantidad(), Integer::sum);
+                }
+            } else {
+                unidadesPorArticulo.merge(detalle.getArticulo().getIdArticulo(), detalle.getCantidad(),
+                        Integer::sum);
+            }
+        }
+
+        Map<Long, Integer> conocidos = new HashMap<>(unidadesPorArticulo);
+        conocidos.keySet().removeIf(id -> !disponibilidadStock.conoce(id));
+        Map<Long, Double> consumo = new TreeMap<>(disponibilidadStock.consumoPorInsumo(conocidos));
+
+        Set<Long> sinReceta = new HashSet<>(unidadesPorArticulo.keySet());
+        sinReceta.removeAll(conocidos.keySet());
+        if (sinReceta.isEmpty()) {
+            return consumo;
+        }
+
+        Set<Long> conReceta = new HashSet<>();
+        for (Object[] fila : detalleManufacturadoRepository.findRecetasByManufacturadoIds(sinReceta)) {
+            Long idManufacturado = (Long) fila[0];
+            Long idInsumo = (Long) fila[1];
+            Double cantidadPorUnidad = (Double) fila[2];
+
+            consumo.merge(idInsumo, cantidadPorUnidad * unidadesPorArticulo.get(idManufacturado), Double::sum);
+            conReceta.add(idManufacturado);
+        }
+        sinReceta.removeAll(conReceta);
+
+        // Artículos sin receta: los insumos de venta directa (bebidas) se descuentan
+        // por unidad; un manufacturado sin ingredientes no consume stock.
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            List<Articulo> articulos = detalle.getPromocionAplicada() != null
+                    ? detalle.getPromocionAplicada().getDetalles().stream().map(PromocionDetalle::getArticulo).toList()
+                    : List.of(detalle.getArticulo());
+            for (Articulo articulo : articulos) {
+                Long idArticulo = articulo.getIdArticulo();
+                if (sinReceta.remove(idArticulo) && Hibernate.unproxy(articulo) instanceof ArticuloInsumo) {
+                    consumo.merge(idArticulo, unidadesPorArticulo.get(idArticulo).doubleValue(), Double::sum);
+                }
+            }
+        }
+
+        return consumo;
+    }
+}
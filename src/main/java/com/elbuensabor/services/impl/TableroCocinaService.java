@@ -0,0 +1,203 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.pedido.DetallePedidoResponse;
+import com.elbuensabor.dto.response.pedido.PedidoCocineroResponse;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.FormaPago;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.events.PedidoEvent;
+import com.elbuensabor.repository.IPedidoRepository;
+import com.elbuensabor.services.mapper.DetallePedidoMapper;
+import com.elbuensabor.services.mapper.PedidoMapper;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tablero de cocina en memoria.
+ *
+ * Se reconstruye desde la base una sola vez al iniciar la aplicación y luego se
+ * mantiene con los PedidoEvent publicados tras cada commit. Las lecturas
+ * recorren solo los pedidos activos, sin pasar por JPA.
+ *
+ * Cada entrada guarda la @Version del pedido: un evento con versión menor o
+ * igual a la conocida llegó fuera de orden y se descarta. Los pedidos que salen
+ * del tablero dejan una marca (tombstone) con su versión durante un tiempo, para
+ * que un evento atrasado no los vuelva a agregar.
+ */
+@Service
+public class TableroCocinaService {
+
+    private static final Logger log = LoggerFactory.getLogger(TableroCocinaService.class);
+
+    private static final long RETENCION_TOMBSTONES_MINUTOS = 60;
+
+    private record Clave(LocalDateTime fecha, Long idPedido) {
+    }
+
+    private record Entrada(long version, Clave clave, LocalDateTime fechaBaja) {
+    }
+
+    /**
+     * Vista del pedido con su fecha y hora estimada completa: la vista solo
+     * tiene la hora, que no alcanza para comparar cuando el pedido cruza la
+     * medianoche.
+     */
+    private record Visible(PedidoCocineroResponse vista, LocalDateTime horaEstimada) {
+    }
+
+    private static final Comparator<Clave> ORDEN_COCINA = Comparator
+            .comparing(Clave::fecha)
+            .thenComparing(Clave::idPedido);
+
+    // Pedidos visibles, ordenados por fecha ASC (mismo orden que findPedidosParaCocina)
+    private final ConcurrentSkipListMap<Clave, Visible> tablero = new ConcurrentSkipListMap<>(
+            ORDEN_COCINA);
+
+    // Última versión conocida de cada pedido (visibles y dados de baja recientemente)
+    private final Map<Long, Entrada> versiones = new ConcurrentHashMap<>();
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private PedidoMapper pedidoMapper;
+
+    @Autowired
+    private DetallePedidoMapper detallePedidoMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Pedidos en cocina ordenados por fecha. Recalcula estaRetrasado al momento
+     * de la lectura.
+     */
+    public List<PedidoCocineroResponse> listar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<PedidoCocineroResponse> resultado = new ArrayList<>(tablero.size());
+        for (Visible visible : tablero.values()) {
+            PedidoCocineroResponse vista = visible.vista();
+            PedidoCocineroResponse copia = new PedidoCocineroResponse(
+                    vista.getIdPedido(),
+                    vista.getFecha(),
+                    vista.getEstado(),
+                    vista.getDetalles(),
+                    vista.getHoraEstimadaFinalizacion(),
+                    vista.getTiempoExtensionMinutos(),
+                    vista.getEstado() == Estado.PREPARACION
+                            && visible.horaEstimada() != null
+                            && ahora.isAfter(visible.horaEstimada()),
+                    vista.getObservaciones());
+            resultado.add(copia);
+        }
+        return resultado;
+    }
+
+    // ==================== CONSTRUCCIÓN DE VISTAS ====================
+
+    /**
+     * Indica si el pedido debe mostrarse en cocina: pendiente o en preparación,
+     * con pago habilitado y al menos un artículo manufacturado.
+     */
+    public boolean perteneceACocina(Pedido pedido) {
+        boolean estadoActivo = pedido.getEstado() == Estado.PENDIENTE || pedido.getEstado() == Estado.PREPARACION;
+        boolean pagoHabilitado = pedido.getFormaPago() == FormaPago.MERCADO_PAGO
+                || Boolean.TRUE.equals(pedido.getPagoConfirmado());
+        return estadoActivo && pagoHabilitado && pedido.getDetalles().stream()
+                .anyMatch(d -> Hibernate.unproxy(d.getArticulo()) instanceof ArticuloManufacturado);
+    }
+
+    /**
+     * Vista de cocina del pedido (solo artículos manufacturados). Debe llamarse
+     * dentro de la transacción que tiene cargado el pedido.
+     */
+    public PedidoCocineroResponse construirVista(Pedido pedido) {
+        PedidoCocineroResponse response = pedidoMapper.toCocineroResponse(pedido);
+
+        List<DetallePedidoResponse> soloManufacturados = pedido.getDetalles().stream()
+                .filter(d -> Hibernate.unproxy(d.getArticulo()) instanceof ArticuloManufacturado)
+                .map(detallePedidoMapper::toDTO)
+                .collect(Collectors.toList());
+        response.setDetalles(List.copyOf(soloManufacturados));
+
+        return response;
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoEvent(PedidoEvent evento) {
+        aplicar(evento.idPedido(), evento.version(), evento.vistaCocina(), evento.horaEstimadaFinalizacion());
+        log.debug("🍳 Tablero cocina: evento {} del pedido {} (v{})",
+                evento.tipo(), evento.idPedido(), evento.version());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        int cargados = tx.execute(status -> {
+            List<Pedido> pedidos = pedidoRepository.findPedidosParaCocina();
+            for (Pedido pedido : pedidos) {
+                aplicar(pedido.getIdPedido(), pedido.getVersion(), construirVista(pedido),
+                        pedido.calcularFechaHoraEstimada());
+            }
+            return pedidos.size();
+        });
+
+        log.info("✅ Tablero de cocina reconstruido con {} pedidos", cargados);
+    }
+
+    /**
+     * Aplica el estado de un pedido si su versión es más nueva que la conocida.
+     * Las escrituras se serializan; las lecturas no se bloquean.
+     */
+    private synchronized void aplicar(Long idPedido, Long version, PedidoCocineroResponse vista,
+                                      LocalDateTime horaEstimada) {
+        long v = version != null ? version : 0L;
+        Entrada actual = versiones.get(idPedido);
+        if (actual != null && actual.version() >= v) {
+            return;
+        }
+
+        if (actual != null && actual.clave() != null) {
+            tablero.remove(actual.clave());
+        }
+
+        if (vista != null) {
+            Clave clave = new Clave(vista.getFecha(), idPedido);
+            tablero.put(clave, new Visible(vista, horaEstimada));
+            versiones.put(idPedido, new Entrada(v, clave, null));
+        } else {
+            versiones.put(idPedido, new Entrada(v, null, LocalDateTime.now()));
+        }
+
+        purgarTombstones();
+    }
+
+    private void purgarTombstones() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(RETENCION_TOMBSTONES_MINUTOS);
+        versiones.values().removeIf(e -> e.fechaBaja() != null && e.fechaBaja().isBefore(limite));
+    }
+}
@@ -0,0 +1,142 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.reporte.VentaDiariaResponse;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.VentaDiaria;
+import com.elbuensabor.events.TipoEventoPedido;
+import com.elbuensabor.repository.IPedidoRepository;
+import com.elbuensabor.repository.IVentaDiariaRepository;
+import com.elbuensabor.services.IVentaDiariaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acumulado diario de ventas (venta_diaria).
+ *
+ * PedidoServiceImpl llama a registrar en la misma transacción que crea, cancela
+ * o entrega el pedido, así el acumulado nunca queda con un cambio revertido.
+ * Cada evento es un único upsert con deltas sobre la fila del día del pedido.
+ *
+ * reconstruir recalcula un rango desde pedido; al iniciar, si venta_diaria está
+ * vacía y hay pedidos, se rellena toda la historia.
+ */
+@Service
+public class VentaDiariaServiceImpl implements IVentaDiariaService {
+
+    private static final Logger log = LoggerFactory.getLogger(VentaDiariaServiceImpl.class);
+
+    @Autowired
+    private IVentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoPedido tipo, Pedido pedido) {
+        switch (tipo) {
+            case CREADO -> acumular(pedido, 1, 0, 0, 1);
+            case CANCELADO -> acumular(pedido, 0, 1, 0, -1);
+            case ENTREGADO -> acumular(pedido, 0, 0, 1, 0);
+            default -> {
+                // Los demás eventos no cambian las ventas
+            }
+        }
+    }
+
+    /**
+     * signoMontos: 1 suma los montos del pedido, -1 los descuenta, 0 no los toca
+     */
+    private void acumular(Pedido pedido, long pedidos, long cancelados, long entregados, int signoMontos) {
+        double total = signoMontos == 0 ? 0 : signoMontos * valor(pedido.getTotal());
+        double costo = signoMontos == 0 ? 0 : signoMontos * valor(pedido.getTotalCosto());
+        double descuentos = signoMontos == 0 ? 0 : signoMontos * pedido.getTotalDescuentos();
+
+        ventaDiariaRepository.acumular(
+                pedido.getFecha().toLocalDate(),
+                pedido.getFormaPago().name(),
+                pedido.getTipoEnvio().name(),
+                pedidos, cancelados, entregados,
+                total, costo, descuentos);
+    }
+
+    private double valor(Double monto) {
+        return monto != null ? monto : 0.0;
+    }
+
+    @Override
+    @Transactional
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+
+        LocalDate hastaExclusivo = hasta.plusDays(1);
+        int eliminadas = ventaDiariaRepository.eliminarEntre(desde, hastaExclusivo);
+        int generadas = ventaDiariaRepository.reconstruirEntre(desde.atStartOfDay(), hastaExclusivo.atStartOfDay());
+
+        log.info("✅ venta_diaria reconstruida del {} al {}: {} filas eliminadas, {} generadas",
+                desde, hasta, eliminadas, generadas);
+        return generadas;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VentaDiariaResponse> listarVentasDiarias(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+
+        return ventaDiariaRepository.findEntreFechas(desde, hasta.plusDays(1)).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /**
+     * Relleno inicial: solo si venta_diaria está vacía (primer arranque con
+     * pedidos existentes)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarSiVacia() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            if (ventaDiariaRepository.count() > 0) {
+                return;
+            }
+            LocalDateTime primerPedido = pedidoRepository.findFechaPrimerPedido();
+            if (primerPedido != null) {
+                log.info("🔁 venta_diaria vacía: rellenando desde {}", primerPedido.toLocalDate());
+                reconstruir(primerPedido.toLocalDate(), LocalDate.now());
+            }
+        });
+    }
+
+    private VentaDiariaResponse toResponse(VentaDiaria venta) {
+        return new VentaDiariaResponse(
+                venta.getFecha(),
+                venta.getFormaPago(),
+                venta.getTipoEnvio(),
+                venta.getCantidadPedidos(),
+                venta.getCantidadCancelados(),
+                venta.getCantidadEntregados(),
+                venta.getTotal(),
+                venta.getTotalCosto(),
+                venta.getDescuentos(),
+                venta.getTotal() - venta.getTotalCosto());
+    }
+}
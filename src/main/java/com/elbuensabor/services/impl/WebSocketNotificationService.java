@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -129,6 +130,57 @@ public class WebSocketNotificationService {
         }
     }
 
+    /**
+     * Notifica la asignación de un pedido a un delivery. Se publica en el mismo
+     * tópico que los pedidos disponibles: cada delivery filtra por su id.
+     */
+    public void notificarDeliveryAsignado(Long pedidoId, Long idUsuarioDelivery, String clienteNombre) {
+        Map<String, Object> notificacion = Map.of(
+                "tipo", "DELIVERY_ASIGNADO",
+                "pedidoId", pedidoId,
+                "idUsuarioDelivery", idUsuarioDelivery,
+                "cliente", clienteNombre != null ? clienteNombre : "",
+                "timestamp", LocalDateTime.now(),
+                "mensaje", "Pedido asignado para entregar"
+        );
+
+        try {
+            messagingTemplate.convertAndSend("/topic/delivery/disponibles", notificacion);
+
+            // Notificar al cajero para que deje de mostrarlo como pendiente de asignar
+            messagingTemplate.convertAndSend("/topic/cajero/pedidos", notificacion);
+
+            logger.info("✅ Asignación notificada - Pedido #{} al delivery {}", pedidoId, idUsuarioDelivery);
+
+        } catch (Exception e) {
+            logger.error("❌ Error notificando asignación de delivery #{}: {}", pedidoId, e.getMessage());
+        }
+    }
+
+    /**
+     * Notifica al delivery un recorrido con varios pedidos de la misma zona,
+     * en el orden en que conviene retirarlos
+     */
+    public void notificarRecorridoAsignado(Long idUsuarioDelivery, List<Long> pedidosIds, String zona) {
+        Map<String, Object> notificacion = Map.of(
+                "tipo", "RECORRIDO_ASIGNADO",
+                "idUsuarioDelivery", idUsuarioDelivery,
+                "pedidos", pedidosIds,
+                "zona", zona,
+                "timestamp", LocalDateTime.now(),
+                "mensaje", "Recorrido asignado con " + pedidosIds.size() + " pedidos"
+        );
+
+        try {
+            messagingTemplate.convertAndSend("/topic/delivery/disponibles", notificacion);
+
+            logger.info("✅ Recorrido notificado - Delivery {}: pedidos {}", idUsuarioDelivery, pedidosIds);
+
+        } catch (Exception e) {
+            logger.error("❌ Error notificando recorrido al delivery {}: {}", idUsuarioDelivery, e.getMessage());
+        }
+    }
+
     /**
      * Notifica cuando se confirma un pago
      */
@@ -178,6 +230,63 @@ public class WebSocketNotificationService {
         }
     }
 
+    /**
+     * Notifica cuando un pedido en preparación superó su hora estimada
+     */
+    public void notificarPedidoRetrasado(Long pedidoId, LocalDateTime horaEstimada) {
+        Map<String, Object> notificacion = Map.of(
+                "tipo", "PEDIDO_RETRASADO",
+                "pedidoId", pedidoId,
+                "horaEstimada", horaEstimada,
+                "timestamp", LocalDateTime.now(),
+                "mensaje", "Pedido retrasado - superó la hora estimada"
+        );
+
+        try {
+            // Notificar a cocina
+            messagingTemplate.convertAndSend("/topic/cocina/retrasados", notificacion);
+
+            // Notificar al cajero
+            messagingTemplate.convertAndSend("/topic/cajero/pedidos", notificacion);
+
+            logger.info("✅ Retraso notificado - Pedido #{}", pedidoId);
+
+        } catch (Exception e) {
+            logger.error("❌ Error notificando retraso #{}: {}", pedidoId, e.getMessage());
+        }
+    }
+
+    /**
+     * Notifica cuando un insumo cambia de estado de stock (CRITICO, BAJO, NORMAL, ALTO)
+     */
+    public void notificarAlertaStock(Long idInsumo, String denominacion, String estadoAnterior,
+                                     String estadoNuevo, double stockActual, double stockMaximo,
+                                     boolean empeoro) {
+        Map<String, Object> notificacion = Map.of(
+                "tipo", "ALERTA_STOCK",
+                "idInsumo", idInsumo,
+                "denominacion", denominacion,
+                "estadoAnterior", estadoAnterior,
+                "estadoNuevo", estadoNuevo,
+                "stockActual", stockActual,
+                "stockMaximo", stockMaximo,
+                "timestamp", LocalDateTime.now(),
+                "mensaje", empeoro
+                        ? "Stock de " + denominacion + " bajó a " + estadoNuevo
+                        : "Stock de " + denominacion + " subió a " + estadoNuevo
+        );
+
+        try {
+            // Notificar a admin
+            messagingTemplate.convertAndSend("/topic/stock/alertas", notificacion);
+
+            logger.info("✅ Alerta de stock notificada - Insumo #{}: {} -> {}", idInsumo, estadoAnterior, estadoNuevo);
+
+        } catch (Exception e) {
+            logger.error("❌ Error notificando alerta de stock #{}: {}", idInsumo, e.getMessage());
+        }
+    }
+
     /**
      * Genera mensaje amigable según el estado
      */
@@ -6,20 +6,43 @@ import com.elbuensabor.entities.Articulo;
 import com.elbuensabor.entities.ArticuloInsumo;
 import com.elbuensabor.entities.ArticuloManufacturado;
 import com.elbuensabor.entities.Imagen;
-import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.services.impl.DisponibilidadStockService;
+import com.elbuensabor.services.impl.IndicePromocionesService;
+import com.elbuensabor.services.impl.IndicePromocionesService.PromocionIndexada;
+import com.elbuensabor.services.impl.ListaPreciosService;
 import org.mapstruct.Mapper;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring")
-public interface CatalogoArticuloMapper {
+public abstract class CatalogoArticuloMapper {
 
-    // ✅ MapStruct no soporta polimorfismo directo → usamos default methods
+    // ✅ MapStruct no soporta polimorfismo directo → usamos métodos propios.
+    // Los precios se leen de la lista de precios en memoria y la
+    // disponibilidad del motor de recetas (sin cargar detalles ni insumos).
 
-    default CatalogoArticuloDTO toDTO(Articulo entity) {
+    @Autowired
+    protected ListaPreciosService listaPreciosService;
+
+    @Autowired
+    protected IndicePromocionesService indicePromociones;
+
+    @Autowired
+    protected DisponibilidadStockService disponibilidadStock;
+
+    public CatalogoArticuloDTO toDTO(Articulo entity) {
+        return toDTO(entity, LocalDateTime.now());
+    }
+
+    /**
+     * Promociones evaluadas en el instante dado (uno solo para todo el listado)
+     */
+    public CatalogoArticuloDTO toDTO(Articulo entity, LocalDateTime ahora) {
         if (entity instanceof ArticuloManufacturado) {
-            return toDTOManufacturado((ArticuloManufacturado) entity);
+            return toDTOManufacturado((ArticuloManufacturado) entity, ahora);
         } else if (entity instanceof ArticuloInsumo) {
             return toDTOInsumo((ArticuloInsumo) entity);
         }
@@ -27,21 +50,22 @@ public interface CatalogoArticuloMapper {
                 "Tipo de artículo no soportado: " + entity.getClass().getSimpleName());
     }
 
-    default List<CatalogoArticuloDTO> toDTOList(List<Articulo> entities) {
+    public List<CatalogoArticuloDTO> toDTOList(List<Articulo> entities) {
+        LocalDateTime ahora = LocalDateTime.now();
         return entities.stream()
-                .map(this::toDTO)
+                .map(entity -> toDTO(entity, ahora))
                 .collect(Collectors.toList());
     }
 
     // ==================== MANUFACTURADO ====================
 
-    default CatalogoArticuloDTO toDTOManufacturado(ArticuloManufacturado entity) {
+    public CatalogoArticuloDTO toDTOManufacturado(ArticuloManufacturado entity, LocalDateTime ahora) {
         CatalogoArticuloDTO dto = new CatalogoArticuloDTO();
 
         dto.setIdArticulo(entity.getIdArticulo());
         dto.setDenominacion(entity.getDenominacion());
         dto.setDescripcion(entity.getDescripcion());
-        dto.setPrecioOriginal(entity.getPrecioVenta());
+        dto.setPrecioOriginal(precioVenta(entity));
         dto.setTiempoEstimadoEnMinutos(entity.getTiempoEstimadoEnMinutos());
 
         if (entity.getCategoria() != null) {
@@ -50,21 +74,23 @@ public interface CatalogoArticuloMapper {
         }
 
         // Disponibilidad
-        dto.setDisponible(!entity.getEliminado() && entity.verificarStockSuficiente(1));
+        dto.setDisponible(!entity.getEliminado() && disponibilidadStock.disponible(entity.getIdArticulo()));
 
-        // Promoción vigente
-        Promocion promocion = entity.getPromocionVigente();
+        // Promoción vigente (índice de promociones, sin recorrer detallesPromocion)
+        Double precioVenta = precioVenta(entity);
+        PromocionIndexada promocion = indicePromociones.mejorPromocion(entity.getIdArticulo(),
+                precioVenta != null ? precioVenta : 0.0, ahora);
         if (promocion != null) {
             dto.setTienePromocion(true);
-            dto.setIdPromocion(promocion.getIdPromocion());
-            Double precioFinal = calcularPrecioConDescuento(entity.getPrecioVenta(), promocion);
+            dto.setIdPromocion(promocion.idPromocion());
+            Double precioFinal = calcularPrecioConDescuento(precioVenta, promocion);
             dto.setPrecioFinal(precioFinal);
             dto.setPorcentajeDescuento(
-                    calcularPorcentajeDescuento(entity.getPrecioVenta(), precioFinal).intValue());
+                    calcularPorcentajeDescuento(precioVenta, precioFinal).intValue());
             dto.setEtiquetaPromocion(generarEtiquetaPromocion(promocion));
         } else {
             dto.setTienePromocion(false);
-            dto.setPrecioFinal(entity.getPrecioVenta());
+            dto.setPrecioFinal(precioVenta);
             dto.setPorcentajeDescuento(0);
         }
 
@@ -78,14 +104,14 @@ public interface CatalogoArticuloMapper {
 
     // ==================== INSUMO DE VENTA DIRECTA ====================
 
-    default CatalogoArticuloDTO toDTOInsumo(ArticuloInsumo entity) {
+    public CatalogoArticuloDTO toDTOInsumo(ArticuloInsumo entity) {
         CatalogoArticuloDTO dto = new CatalogoArticuloDTO();
 
         dto.setIdArticulo(entity.getIdArticulo());
         dto.setDenominacion(entity.getDenominacion());
         // ✅ Insumo de venta directa usa precioVenta (no precioCompra)
-        dto.setPrecioOriginal(entity.getPrecioVenta());
-        dto.setPrecioFinal(entity.getPrecioVenta());
+        dto.setPrecioOriginal(precioVenta(entity));
+        dto.setPrecioFinal(precioVenta(entity));
         dto.setTipoArticulo("INSUMO");
 
         // Los insumos no tienen tiempo de preparación
@@ -97,10 +123,7 @@ public interface CatalogoArticuloMapper {
         }
 
         // ✅ Disponibilidad: stock actual > 0
-        dto.setDisponible(
-                !entity.getEliminado() &&
-                        entity.getStockActual() != null &&
-                        entity.getStockActual() > 0);
+        dto.setDisponible(!entity.getEliminado() && disponibilidadStock.disponible(entity.getIdArticulo()));
 
         // Los insumos no tienen promociones propias
         dto.setTienePromocion(false);
@@ -114,7 +137,11 @@ public interface CatalogoArticuloMapper {
 
     // ==================== HELPERS ====================
 
-    default void setImagenPrincipal(CatalogoArticuloDTO dto, List<Imagen> imagenes) {
+    protected Double precioVenta(Articulo entity) {
+        return listaPreciosService.precioVenta(entity.getIdArticulo(), entity.getPrecioVenta());
+    }
+
+    public void setImagenPrincipal(CatalogoArticuloDTO dto, List<Imagen> imagenes) {
         if (imagenes != null && !imagenes.isEmpty()) {
             Imagen imagen = imagenes.get(0);
             ImagenDTO imagenDTO = new ImagenDTO();
@@ -125,31 +152,24 @@ public interface CatalogoArticuloMapper {
         }
     }
 
-    default Double calcularPrecioConDescuento(Double precioOriginal, Promocion promocion) {
-        if (promocion == null)
+    public Double calcularPrecioConDescuento(Double precioOriginal, PromocionIndexada promocion) {
+        if (promocion == null || precioOriginal == null)
             return precioOriginal;
-        switch (promocion.getTipoDescuento()) {
-            case PORCENTUAL:
-                return precioOriginal * (1 - promocion.getValorDescuento() / 100);
-            case MONTO_FIJO:
-                return Math.max(precioOriginal - promocion.getValorDescuento(), 0.0);
-            default:
-                return precioOriginal;
-        }
+        return promocion.precioConDescuento(precioOriginal);
     }
 
-    default Double calcularPorcentajeDescuento(Double precioOriginal, Double precioFinal) {
+    public Double calcularPorcentajeDescuento(Double precioOriginal, Double precioFinal) {
         if (precioOriginal == null || precioOriginal == 0)
             return 0.0;
         return ((precioOriginal - precioFinal) / precioOriginal) * 100;
     }
 
-    default String generarEtiquetaPromocion(Promocion promocion) {
-        switch (promocion.getTipoDescuento()) {
+    public String generarEtiquetaPromocion(PromocionIndexada promocion) {
+        switch (promocion.tipoDescuento()) {
             case PORCENTUAL:
-                return promocion.getValorDescuento().intValue() + "% OFF";
+                return (int) promocion.valorDescuento() + "% OFF";
             case MONTO_FIJO:
-                return "$" + promocion.getValorDescuento().intValue() + " OFF";
+                return "$" + (int) promocion.valorDescuento() + " OFF";
             default:
                 return "PROMO";
         }
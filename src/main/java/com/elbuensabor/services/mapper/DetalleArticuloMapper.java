@@ -3,18 +3,28 @@ package com.elbuensabor.services.mapper;
 import com.elbuensabor.dto.request.ImagenDTO;
 import com.elbuensabor.dto.response.cliente.DetalleArticuloDTO;
 import com.elbuensabor.entities.ArticuloManufacturado;
-import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.services.impl.DisponibilidadStockService;
+import com.elbuensabor.services.impl.IndicePromocionesService;
+import com.elbuensabor.services.impl.IndicePromocionesService.PromocionIndexada;
 import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring", uses = { PromocionClienteMapper.class })
-public interface DetalleArticuloMapper {
+public abstract class DetalleArticuloMapper {
+
+    @Autowired
+    protected IndicePromocionesService indicePromociones;
+
+    @Autowired
+    protected DisponibilidadStockService disponibilidadStock;
 
     @Mapping(source = "idArticulo", target = "idArticulo")
     @Mapping(source = "denominacion", target = "denominacion")
@@ -37,10 +47,10 @@ public interface DetalleArticuloMapper {
     // buildDetalleInsumo()
     @Mapping(target = "unidadMedida", ignore = true)
     @Mapping(target = "stockActual", ignore = true)
-    DetalleArticuloDTO toDTO(ArticuloManufacturado entity);
+    public abstract DetalleArticuloDTO toDTO(ArticuloManufacturado entity);
 
     @AfterMapping
-    default void calcularCamposDetalle(ArticuloManufacturado entity,
+    public void calcularCamposDetalle(ArticuloManufacturado entity,
             @MappingTarget DetalleArticuloDTO dto) {
 
         // ✅ Tipo
@@ -50,23 +60,26 @@ public interface DetalleArticuloMapper {
         dto.setUnidadMedida(null);
         dto.setStockActual(null);
 
-        // 1. Disponibilidad
-        boolean disponible = !entity.getEliminado() && entity.verificarStockSuficiente(1);
+        // 1. Disponibilidad (motor de recetas, igual que el catálogo)
+        int cantidadMaxima = disponibilidadStock.maximoPreparable(entity.getIdArticulo());
+        boolean disponible = !entity.getEliminado() && cantidadMaxima >= 1;
         dto.setDisponible(disponible);
 
         if (!disponible) {
             dto.setMensajeDisponibilidad("Agotado");
         } else {
-            Integer cantidadMaxima = entity.calcularCantidadMaximaPreparable();
-            if (cantidadMaxima != null && cantidadMaxima <= 5) {
+            if (cantidadMaxima <= 5) {
                 dto.setMensajeDisponibilidad("¡Últimas unidades!");
             } else {
                 dto.setMensajeDisponibilidad("Disponible");
             }
         }
 
-        // 2. Promoción y precios
-        Promocion promocion = entity.getPromocionVigente();
+        // 2. Promoción y precios (índice de promociones)
+        PromocionIndexada promocion = entity.getPrecioVenta() != null
+                ? indicePromociones.mejorPromocion(entity.getIdArticulo(), entity.getPrecioVenta(),
+                        LocalDateTime.now())
+                : null;
         if (promocion != null) {
             Double precioFinal = calcularPrecioConDescuento(entity.getPrecioVenta(), promocion);
             dto.setPrecioFinal(precioFinal);
@@ -109,20 +122,13 @@ public interface DetalleArticuloMapper {
 
     // ==================== HELPERS ====================
 
-    default Double calcularPrecioConDescuento(Double precioOriginal, Promocion promocion) {
+    public Double calcularPrecioConDescuento(Double precioOriginal, PromocionIndexada promocion) {
         if (promocion == null)
             return precioOriginal;
-        switch (promocion.getTipoDescuento()) {
-            case PORCENTUAL:
-                return precioOriginal * (1 - promocion.getValorDescuento() / 100);
-            case MONTO_FIJO:
-                return Math.max(precioOriginal - promocion.getValorDescuento(), 0.0);
-            default:
-                return precioOriginal;
-        }
+        return promocion.precioConDescuento(precioOriginal);
     }
 
-    default Double calcularPorcentajeDescuento(Double precioOriginal, Double precioFinal) {
+    public Double calcularPorcentajeDescuento(Double precioOriginal, Double precioFinal) {
         if (precioOriginal == null || precioOriginal == 0)
             return 0.0;
         return ((precioOriginal - precioFinal) / precioOriginal) * 100;
@@ -50,6 +50,7 @@ public interface DetallePedidoMapper {
             @Mapping(target = "subtotal", constant = "0.0"),
             @Mapping(target = "precioUnitarioOriginal", constant = "0.0"),
             @Mapping(target = "descuentoPromocion", constant = "0.0"),
+            @Mapping(target = "costo", ignore = true),
 
             @Mapping(target = "articulo", ignore = true),
             @Mapping(target = "pedido", ignore = true),
@@ -160,6 +160,7 @@ public interface PedidoMapper {
             @Mapping(target = "totalCosto", constant = "0.0"),
             @Mapping(target = "pagoConfirmado", expression = "java(getPagoConfirmadoInicial(request.getFormaPago()))"),
             @Mapping(target = "tiempoExtensionMinutos", constant = "0"),
+            @Mapping(target = "version", ignore = true),
 
             @Mapping(target = "cliente", ignore = true),
             @Mapping(target = "domicilio", ignore = true),
@@ -0,0 +1,33 @@
+package com.elbuensabor.services.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+/**
+ * Tiempo de una pasada de propagar() sobre MatrizRecetasSintetica.
+ *
+ * No forma parte de gradle test: corre con ./gradlew benchmark e informa el
+ * tiempo por salida estándar, sin afirmar límites.
+ */
+@Tag("benchmark")
+class CostosProduccionBenchmark {
+
+    private static final int INSUMOS_CAMBIADOS = 20;
+
+    @Test
+    void tiempoDePropagacion() {
+        MatrizRecetasSintetica matriz = new MatrizRecetasSintetica();
+        Set<Long> cambiados = matriz.encarecer(INSUMOS_CAMBIADOS);
+        int afectados = matriz.productosQueUsan(cambiados).size();
+
+        matriz.costos.propagarAlConfirmar(cambiados);
+        long inicio = System.nanoTime();
+        matriz.costos.propagar();
+        long nanos = System.nanoTime() - inicio;
+
+        System.out.printf("Propagación: %d insumos cambiados, %d de %d productos recalculados en %.2f ms%n",
+                cambiados.size(), afectados, MatrizRecetasSintetica.PRODUCTOS, nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.elbuensabor.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.elbuensabor.services.impl.MatrizRecetasSintetica.PRECIO_MANUAL;
+import static com.elbuensabor.services.impl.MatrizRecetasSintetica.redondear2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Propagación de precios de insumos sobre MatrizRecetasSintetica (5000
+ * productos, 400 insumos).
+ *
+ * Cambia el precio de 20 insumos y se verifica que solo se escriban los
+ * productos que los usan, con el costo y el precio de venta esperados. El
+ * tiempo de una pasada se mide aparte, en CostosProduccionBenchmark (tarea
+ * benchmark de Gradle).
+ */
+class CostosProduccionServiceTest {
+
+    private static final int INSUMOS_CAMBIADOS = 20;
+
+    private MatrizRecetasSintetica matriz;
+
+    @BeforeEach
+    void armarMatriz() {
+        matriz = new MatrizRecetasSintetica();
+    }
+
+    @Test
+    void propagaSoloALosProductosQueUsanLosInsumos() {
+        Set<Long> cambiados = matriz.encarecer(INSUMOS_CAMBIADOS);
+        Set<Long> afectados = matriz.productosQueUsan(cambiados);
+
+        matriz.costos.propagarAlConfirmar(cambiados);
+        matriz.costos.propagar();
+
+        ArgumentCaptor<SqlParameterSource[]> lote = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(matriz.jdbc, times(1)).batchUpdate(anyString(), lote.capture());
+        Set<Long> escritos = new HashSet<>();
+        for (SqlParameterSource fila : lote.getValue()) {
+            Long id = (Long) fila.getValue("id");
+            escritos.add(id);
+            double costo = redondear2(matriz.costoReceta(matriz.recetas.get(id)));
+            double precioEsperado = matriz.precioVenta.get(id) == PRECIO_MANUAL
+                    ? PRECIO_MANUAL
+                    : redondear2(costo * matriz.margen.get(id));
+            assertThat((Double) fila.getValue("costo")).isEqualTo(costo);
+            assertThat((Double) fila.getValue("precioVenta")).isEqualTo(precioEsperado);
+            assertThat(fila.getValue("costoAnterior")).isEqualTo(matriz.costoGuardado.get(id));
+        }
+        assertThat(afectados).isNotEmpty().hasSizeLessThan(MatrizRecetasSintetica.PRODUCTOS);
+        assertThat(escritos).isEqualTo(afectados);
+
+        assertThat(matriz.meterRegistry.get("costos.propagacion").timer().count()).isEqualTo(1);
+        assertThat(matriz.meterRegistry.get("costos.recalculados").counter().count()).isEqualTo(afectados.size());
+    }
+
+    @Test
+    void sinCambiosDePrecioNoEscribe() {
+        matriz.costos.propagarAlConfirmar(List.of(1L, 2L, 3L));
+        matriz.costos.propagar();
+
+        verify(matriz.jdbc, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+}
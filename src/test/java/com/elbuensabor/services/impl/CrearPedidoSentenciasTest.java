@@ -0,0 +1,90 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.pedido.CrearPedidoRequest;
+import com.elbuensabor.dto.request.pedido.DetallePedidoRequest;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.services.IPedidoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sentencias de crearPedido con 1 línea y con N líneas de artículos distintos.
+ *
+ * Todos los platos llevan la misma receta de dos insumos y ambos pedidos
+ * incluyen un combo de dos de ellos: reservas, movimientos de stock,
+ * desglose del combo y acumulados de analítica son los mismos en los dos.
+ * Se cuentan todas las sentencias que llegan a MySQL por la conexión de la
+ * transacción (Questions de la sesión), las de Hibernate y los lotes JDBC por
+ * igual. Lo único que crece con el pedido es el INSERT de cada renglón:
+ * detalle_pedido usa IDENTITY y no se agrupa en lotes.
+ */
+class CrearPedidoSentenciasTest extends PedidosIntegracionTest {
+
+    private static final int LINEAS = 12;
+
+    @Autowired
+    private IPedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void unaSentenciaMasPorCadaLineaAgregada() {
+        Usuario cliente = crearCliente("Sentencias");
+        ArticuloInsumo harina = crearInsumo("Harina", 1000.0);
+        ArticuloInsumo queso = crearInsumo("Queso", 1000.0);
+        List<ArticuloManufacturado> platos = new ArrayList<>();
+        for (int i = 0; i < LINEAS; i++) {
+            platos.add(crearManufacturado("Plato " + i, Map.of(harina, 0.2, queso, 0.1)));
+        }
+        Promocion combo = crearCombo("Combo", platos.subList(0, 2));
+        disponibilidadStock.recargar();
+
+        // Calienta la lista de precios y el resto de los cachés en memoria
+        pedidoService.crearPedido(pedidoConCombo(combo, platos), cliente);
+
+        long conUna = sentencias(cliente, pedidoConCombo(combo, List.of()));
+        long conVarias = sentencias(cliente, pedidoConCombo(combo, platos));
+
+        assertThat(conVarias).isEqualTo(conUna + LINEAS);
+    }
+
+    /**
+     * Una línea con el combo más una por plato
+     */
+    private CrearPedidoRequest pedidoConCombo(Promocion combo, List<ArticuloManufacturado> platos) {
+        CrearPedidoRequest request = pedidoDe(platos);
+        List<DetallePedidoRequest> detalles = new ArrayList<>(request.getDetalles());
+        detalles.add(new DetallePedidoRequest(null, 1, null, combo.getIdPromocion()));
+        request.setDetalles(detalles);
+        return request;
+    }
+
+    /**
+     * Sentencias enviadas por la conexión de la transacción mientras se crea el
+     * pedido. crearPedido se une a la transacción de la prueba, así que todo
+     * (JPA y JDBC) pasa por la misma sesión de MySQL.
+     */
+    private long sentencias(Usuario cliente, CrearPedidoRequest request) {
+        return enTransaccion(() -> {
+            long antes = preguntas();
+            pedidoService.crearPedido(request, cliente);
+            // La segunda consulta de Questions se cuenta a sí misma
+            return preguntas() - antes - 1;
+        });
+    }
+
+    private long preguntas() {
+        return jdbc.queryForObject("SHOW SESSION STATUS LIKE 'Questions'", (rs, i) -> rs.getLong(2));
+    }
+}
@@ -0,0 +1,61 @@
+package com.elbuensabor.services.impl;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo por consulta sobre el catálogo sintético de IndiceBusquedaServiceTest.
+ *
+ * No forma parte de gradle test: corre con ./gradlew benchmark e informa los
+ * tiempos por salida estándar, sin afirmar límites.
+ */
+@Tag("benchmark")
+class IndiceBusquedaBenchmark {
+
+    private static final int REPETICIONES = 500;
+
+    private static final String[] CONSULTAS = {
+            "hamburguesa",            // exacta, ~300 resultados
+            "clasica",                // sin acento
+            "jamon queso",            // dos términos, sin acentos
+            "milansea",               // transposición
+            "empanda criolla",        // letra faltante
+            "sandwic",                // prefijo sin acento
+            "champinones",            // en la descripción
+            "pizza napolitana 17"     // con número
+    };
+
+    @Test
+    void tiempoPorConsulta() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IndiceBusquedaService indice = IndiceBusquedaServiceTest.indexar(
+                IndiceBusquedaServiceTest.catalogoSintetico(), meterRegistry);
+
+        // Calentamiento (JIT) antes de medir
+        for (int i = 0; i < REPETICIONES; i++) {
+            for (String consulta : CONSULTAS) {
+                indice.buscar(consulta);
+            }
+        }
+
+        System.out.printf("Búsqueda en %d artículos (%d repeticiones por consulta)%n",
+                IndiceBusquedaServiceTest.ARTICULOS, REPETICIONES);
+        for (String consulta : CONSULTAS) {
+            int resultados = indice.buscar(consulta).size();
+            long inicio = System.nanoTime();
+            for (int i = 0; i < REPETICIONES; i++) {
+                indice.buscar(consulta);
+            }
+            long nanos = (System.nanoTime() - inicio) / REPETICIONES;
+            System.out.printf("  %-22s %6d resultados %8.1f µs%n", consulta, resultados, nanos / 1000.0);
+        }
+
+        Timer timer = meterRegistry.get("catalogo.busqueda").timer();
+        System.out.printf("  catalogo.busqueda: %d búsquedas, media %.1f µs, máximo %.1f µs%n",
+                timer.count(), timer.mean(TimeUnit.MICROSECONDS), timer.max(TimeUnit.MICROSECONDS));
+    }
+}
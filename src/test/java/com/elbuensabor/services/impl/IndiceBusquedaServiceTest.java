@@ -0,0 +1,163 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.repository.IArticuloRepository;
+import com.elbuensabor.repository.IPromocionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Búsqueda sobre un catálogo sintético de 3000 artículos: resultados de
+ * consultas con y sin acentos y con errores de tipeo, y qué artículos
+ * devuelve cada consulta.
+ *
+ * La semilla es fija, así que el catálogo y las consultas son los mismos en
+ * cada corrida. El tiempo por consulta se mide aparte, en
+ * IndiceBusquedaBenchmark (tarea benchmark de Gradle).
+ */
+class IndiceBusquedaServiceTest {
+
+    static final int ARTICULOS = 3000;
+
+    private static final String[] PLATOS = {"Hamburguesa", "Pizza", "Empanada", "Milanesa", "Lomito",
+            "Sándwich", "Tarta", "Ñoquis", "Ensalada", "Papas"};
+    private static final String[] VARIANTES = {"Clásica", "Napolitana", "Jamón y Queso", "Especial", "Vegana",
+            "Cuatro Quesos", "Criolla", "Picante", "Completa", "Caprese"};
+    private static final String[] CATEGORIAS = {"Platos", "Minutas", "Pastas", "Entradas", "Bebidas"};
+    private static final String[] INGREDIENTES = {"tomate", "cebolla", "muzzarella", "albahaca", "lechuga",
+            "morrón", "huevo", "panceta", "champiñones", "aceitunas"};
+
+    // Artículos conocidos, además de los generados
+    private static final long HAMBURGUESA_CLASICA = 1L;
+    private static final long NOQUIS_CASEROS = 2L;
+    private static final long PIZZA_NAPOLITANA = 3L;
+
+    private List<Object[]> textos;
+    private IndiceBusquedaService indice;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void cargarCatalogo() {
+        textos = catalogoSintetico();
+        meterRegistry = new SimpleMeterRegistry();
+        indice = indexar(textos, meterRegistry);
+    }
+
+    /**
+     * Filas de findTextosParaBusqueda: ID, denominación, descripción y
+     * categoría
+     */
+    static List<Object[]> catalogoSintetico() {
+        List<Object[]> textos = new ArrayList<>();
+        textos.add(new Object[]{HAMBURGUESA_CLASICA, "Hamburguesa Clásica", "Carne, lechuga y tomate", "Platos"});
+        textos.add(new Object[]{NOQUIS_CASEROS, "Ñoquis Caseros", "Con salsa bolognesa", "Pastas"});
+        textos.add(new Object[]{PIZZA_NAPOLITANA, "Pizza Napolitana", "Muzzarella, tomate y ajo", "Platos"});
+
+        Random random = new Random(42);
+        for (long id = 4; id <= ARTICULOS; id++) {
+            String denominacion = PLATOS[random.nextInt(PLATOS.length)] + " "
+                    + VARIANTES[random.nextInt(VARIANTES.length)] + " " + id;
+            String descripcion = "Con " + INGREDIENTES[random.nextInt(INGREDIENTES.length)] + " y "
+                    + INGREDIENTES[random.nextInt(INGREDIENTES.length)];
+            textos.add(new Object[]{id, denominacion, descripcion, CATEGORIAS[random.nextInt(CATEGORIAS.length)]});
+        }
+        return textos;
+    }
+
+    static IndiceBusquedaService indexar(List<Object[]> textos, MeterRegistry meterRegistry) {
+        List<Object[]> promociones = new ArrayList<>();
+        promociones.add(new Object[]{HAMBURGUESA_CLASICA, "Martes de Burger"});
+
+        IArticuloRepository articuloRepository = mock(IArticuloRepository.class);
+        IPromocionRepository promocionRepository = mock(IPromocionRepository.class);
+        when(articuloRepository.findTextosParaBusqueda()).thenReturn(textos);
+        when(promocionRepository.findNombresActivosPorArticulo()).thenReturn(promociones);
+
+        IndiceBusquedaService indice = new IndiceBusquedaService();
+        ReflectionTestUtils.setField(indice, "articuloRepository", articuloRepository);
+        ReflectionTestUtils.setField(indice, "promocionRepository", promocionRepository);
+        ReflectionTestUtils.setField(indice, "meterRegistry", meterRegistry);
+        indice.registrarMetricas();
+        indice.recargar();
+        return indice;
+    }
+
+    @Test
+    void encuentraSinAcentosYConAcentos() {
+        assertThat(indice.buscar("hamburguesa clasica")).startsWith(HAMBURGUESA_CLASICA);
+        assertThat(indice.buscar("HAMBURGUESA CLÁSICA")).startsWith(HAMBURGUESA_CLASICA);
+        assertThat(indice.buscar("noquis caseros")).containsExactly(NOQUIS_CASEROS);
+        assertThat(indice.buscar("ñoquis caseros")).containsExactly(NOQUIS_CASEROS);
+    }
+
+    @Test
+    void toleraErroresDeTipeo() {
+        // Letra faltante, transposición y prefijo a medio tipear
+        assertThat(indice.buscar("hamburgesa clasica")).startsWith(HAMBURGUESA_CLASICA);
+        assertThat(indice.buscar("piza napolitnaa")).startsWith(PIZZA_NAPOLITANA);
+        assertThat(indice.buscar("napolitna")).contains(PIZZA_NAPOLITANA);
+        assertThat(indice.buscar("martes burg")).containsExactly(HAMBURGUESA_CLASICA);
+    }
+
+    @Test
+    void noAproximaNumeros() {
+        assertThat(indice.buscar("1999")).containsExactly(1999L);
+    }
+
+    @Test
+    void devuelveLosArticulosQueContienenCadaTermino() {
+        // Exacta, dos términos, transposición, letra faltante, prefijo y descripción
+        assertDevuelveExactamente("hamburguesa", "hamburguesa");
+        assertDevuelveExactamente("jamon queso", "jamon y queso");
+        assertDevuelveExactamente("milansea", "milanesa");
+        assertDevuelveExactamente("empanda criolla", "empanada", "criolla");
+        assertDevuelveExactamente("sandwic", "sandwich");
+        assertDevuelveExactamente("champinones", "champinones");
+    }
+
+    @Test
+    void registraCadaBusqueda() {
+        indice.buscar("hamburguesa");
+        indice.buscar("piza");
+        indice.buscar("sin resultados xyz");
+
+        assertThat(meterRegistry.get("catalogo.busqueda").timer().count()).isEqualTo(3);
+    }
+
+    /**
+     * La consulta devuelve todos los artículos cuyo texto (sin acentos)
+     * contiene los fragmentos dados, y ninguno más
+     */
+    private void assertDevuelveExactamente(String consulta, String... fragmentos) {
+        List<Long> esperados = new ArrayList<>();
+        for (Object[] fila : textos) {
+            String texto = sinAcentos(fila[1] + " " + fila[2] + " " + fila[3]);
+            if (Arrays.stream(fragmentos).allMatch(texto::contains)) {
+                esperados.add((Long) fila[0]);
+            }
+        }
+
+        assertThat(esperados).as("artículos con %s", Arrays.toString(fragmentos)).isNotEmpty();
+        assertThat(indice.buscar(consulta)).as("resultados de \"%s\"", consulta)
+                .containsExactlyInAnyOrderElementsOf(esperados);
+    }
+
+    private static String sinAcentos(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
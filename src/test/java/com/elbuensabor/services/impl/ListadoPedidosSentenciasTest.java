@@ -0,0 +1,165 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.Rol;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.services.IPedidoService;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sentencias de cada listado de pedidos por rol.
+ *
+ * Cada listado es una consulta de IDs más la carga de las vistas
+ * (findVistasByIdIn) y las de imágenes y combos de los artículos: la cantidad
+ * no depende de cuántos pedidos, clientes o artículos distintos devuelve. Se
+ * compara el mismo listado con 1 pedido y con PEDIDOS pedidos de clientes y
+ * artículos distintos, y se acota el total. Los listados sin paginar cargan
+ * las vistas por lotes de 500 IDs.
+ */
+class ListadoPedidosSentenciasTest extends PedidosIntegracionTest {
+
+    private static final int PEDIDOS = 15;
+
+    // IDs, vistas, imágenes y combos
+    private static final long MAXIMO_POR_LISTADO = 4;
+    private static final int LOTE_VISTAS = 500;
+
+    @Autowired
+    private IPedidoService pedidoService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    private Usuario clienteConUno;
+    private Usuario clienteFrecuente;
+    private final List<Long> pedidosDeClientesDistintos = new ArrayList<>();
+    private final List<Long> pedidosFrecuente = new ArrayList<>();
+
+    @BeforeEach
+    void crearPedidos() {
+        List<ArticuloManufacturado> articulos = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS; i++) {
+            articulos.add(crearManufacturado("Listado " + i, Map.of()));
+        }
+
+        clienteFrecuente = crearCliente("Frecuente");
+        for (ArticuloManufacturado articulo : articulos) {
+            pedidosFrecuente.add(pedidoService.crearPedido(pedidoDe(List.of(articulo)), clienteFrecuente)
+                    .getIdPedido());
+        }
+
+        // Los últimos pedidos creados: cada uno de un cliente y un artículo distintos
+        for (int i = 0; i < PEDIDOS; i++) {
+            Usuario cliente = crearCliente("Cliente" + i);
+            if (i == 0) {
+                clienteConUno = cliente;
+            }
+            pedidosDeClientesDistintos.add(pedidoService.crearPedido(pedidoDe(List.of(articulos.get(i))), cliente)
+                    .getIdPedido());
+        }
+    }
+
+    @Test
+    void pedidosDelCliente() {
+        long conUno = sentencias(() -> pedidoService.listarPedidosCliente(idCliente(clienteConUno)));
+        long conVarios = sentencias(() -> pedidoService.listarPedidosCliente(idCliente(clienteFrecuente)));
+
+        assertThat(conVarios).isEqualTo(conUno).isLessThanOrEqualTo(MAXIMO_POR_LISTADO);
+    }
+
+    @Test
+    void paginasAdmin() {
+        assertPaginas(tamanio -> pedidoService.listarTodosPedidosPaginado(null, tamanio).getPedidos());
+        assertPaginas(tamanio -> pedidoService.listarPedidosPorEstadoPaginado("PENDIENTE", null, tamanio)
+                .getPedidos());
+        assertPaginas(tamanio -> pedidoService.listarPedidosPorFechaPaginado(LocalDate.now(), null, tamanio)
+                .getPedidos());
+    }
+
+    @Test
+    void pedidosDelDelivery() {
+        Usuario conUno = crearUsuario("RepartidorUno", Rol.DELIVERY);
+        Usuario conVarios = crearUsuario("RepartidorVarios", Rol.DELIVERY);
+        asignarListos(pedidosFrecuente.subList(0, 1), conUno);
+        asignarListos(pedidosDeClientesDistintos, conVarios);
+
+        long sentenciasConUno = sentencias(() -> pedidoService.listarPedidosDelivery(conUno));
+        long sentenciasConVarios = sentencias(() -> {
+            assertThat(pedidoService.listarPedidosDelivery(conVarios)).hasSize(PEDIDOS);
+        });
+
+        assertThat(sentenciasConVarios).isEqualTo(sentenciasConUno).isLessThanOrEqualTo(MAXIMO_POR_LISTADO);
+    }
+
+    @Test
+    void listadosSinPaginar() {
+        assertPorLotes("todos", () -> pedidoService.listarTodosPedidos().size());
+        assertPorLotes("por estado", () -> pedidoService.listarPedidosPorEstado("PENDIENTE").size());
+        assertPorLotes("del día", () -> pedidoService.listarPedidosDelDia().size());
+        assertPorLotes("por fecha", () -> pedidoService.listarPedidosPorFecha(LocalDate.now()).size());
+    }
+
+    @Test
+    void cocinaSinConsultas() {
+        assertThat(sentencias(() -> pedidoService.listarPedidosCocina())).isZero();
+    }
+
+    private interface Pagina {
+        List<?> listar(int tamanio);
+    }
+
+    /**
+     * Primera página de 1 y de PEDIDOS: los pedidos más nuevos son los de
+     * clientes y artículos distintos
+     */
+    private void assertPaginas(Pagina pagina) {
+        long conUno = sentencias(() -> assertThat(pagina.listar(1)).hasSize(1));
+        long conVarios = sentencias(() -> assertThat(pagina.listar(PEDIDOS)).hasSize(PEDIDOS));
+
+        assertThat(conVarios).isEqualTo(conUno).isLessThanOrEqualTo(MAXIMO_POR_LISTADO);
+    }
+
+    /**
+     * Una consulta de IDs, una de vistas por lote y las de imágenes y combos
+     */
+    private void assertPorLotes(String listado, Supplier<Integer> listar) {
+        int[] pedidos = new int[1];
+        long sentencias = sentencias(() -> pedidos[0] = listar.get());
+        long lotes = (pedidos[0] + LOTE_VISTAS - 1) / LOTE_VISTAS;
+
+        assertThat(pedidos[0]).as(listado).isGreaterThanOrEqualTo(2 * PEDIDOS);
+        assertThat(sentencias).as(listado).isLessThanOrEqualTo(1 + lotes + 2);
+    }
+
+    private long sentencias(Runnable listado) {
+        Statistics estadisticas = estadisticas();
+        listado.run();
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private Long idCliente(Usuario usuario) {
+        return usuario.getCliente().getIdCliente();
+    }
+
+    /**
+     * Deja los pedidos LISTO para delivery y asignados al repartidor
+     */
+    private void asignarListos(List<Long> idsPedidos, Usuario delivery) {
+        jdbc.update("UPDATE pedido SET estado = 'LISTO', tipo_envio = 'DELIVERY', id_usuario_delivery = :delivery " +
+                        "WHERE id_pedido IN (:ids)",
+                new MapSqlParameterSource("delivery", delivery.getIdUsuario()).addValue("ids", idsPedidos));
+    }
+}
@@ -0,0 +1,170 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.IArticuloManufacturadoRepository;
+import com.elbuensabor.repository.IDetalleManufacturadoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Matriz sintética de recetas para CostosProduccionService: 5000 productos de
+ * 3 a 10 insumos cada uno, elegidos entre 400.
+ *
+ * El índice inverso es el real de DisponibilidadStockService; la consulta
+ * agregada de costos y el lote de UPDATE se resuelven en memoria sobre la
+ * matriz, sin base. La semilla es fija.
+ */
+final class MatrizRecetasSintetica {
+
+    static final int INSUMOS = 400;
+    static final int PRODUCTOS = 5000;
+
+    // IDs: insumos 1..INSUMOS, productos a continuación
+    private static final long PRIMER_PRODUCTO = 100_000L;
+
+    // Uno de cada diez productos tiene el precio cargado a mano
+    static final double PRECIO_MANUAL = 9999.0;
+
+    final double[] precioCompra = new double[INSUMOS + 1];
+    final Map<Long, Map<Long, Double>> recetas = new HashMap<>();
+    final Map<Long, Double> costoGuardado = new HashMap<>();
+    final Map<Long, Double> margen = new HashMap<>();
+    final Map<Long, Double> precioVenta = new HashMap<>();
+
+    final CostosProduccionService costos;
+    final NamedParameterJdbcTemplate jdbc;
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    MatrizRecetasSintetica() {
+        Random random = new Random(7);
+        for (int i = 1; i <= INSUMOS; i++) {
+            precioCompra[i] = redondear2(50 + random.nextDouble() * 950);
+        }
+
+        List<Object[]> filasRecetas = new ArrayList<>();
+        for (int p = 0; p < PRODUCTOS; p++) {
+            long id = PRIMER_PRODUCTO + p;
+            Map<Long, Double> receta = new HashMap<>();
+            int largo = 3 + random.nextInt(8);
+            while (receta.size() < largo) {
+                receta.put(1L + random.nextInt(INSUMOS), redondear2(0.05 + random.nextDouble() * 2));
+            }
+            recetas.put(id, receta);
+            receta.forEach((insumo, cantidad) -> filasRecetas.add(new Object[]{id, insumo, cantidad}));
+
+            double costo = redondear2(costoReceta(receta));
+            double margenProducto = redondear2(1.5 + random.nextDouble());
+            costoGuardado.put(id, costo);
+            margen.put(id, margenProducto);
+            precioVenta.put(id, p % 10 == 0 ? PRECIO_MANUAL : redondear2(costo * margenProducto));
+        }
+
+        List<Object[]> filasStock = new ArrayList<>();
+        for (long i = 1; i <= INSUMOS; i++) {
+            filasStock.add(new Object[]{i, 1000.0});
+        }
+
+        IArticuloInsumoRepository insumoRepository = mock(IArticuloInsumoRepository.class);
+        IDetalleManufacturadoRepository detalleRepository = mock(IDetalleManufacturadoRepository.class);
+        when(insumoRepository.findStock()).thenReturn(filasStock);
+        when(detalleRepository.findRecetas()).thenReturn(filasRecetas);
+        DisponibilidadStockService disponibilidad = new DisponibilidadStockService();
+        ReflectionTestUtils.setField(disponibilidad, "insumoRepository", insumoRepository);
+        ReflectionTestUtils.setField(disponibilidad, "detalleManufacturadoRepository", detalleRepository);
+        ReflectionTestUtils.setField(disponibilidad, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(disponibilidad, "meterRegistry", meterRegistry);
+        disponibilidad.registrarMetricas();
+        disponibilidad.recargar();
+
+        // SUM(cantidad * precioCompra) por producto, como findCostosRecetaByIdIn
+        IArticuloManufacturadoRepository manufacturadoRepository = mock(IArticuloManufacturadoRepository.class);
+        when(manufacturadoRepository.findCostosRecetaByIdIn(anyCollection())).thenAnswer(invocacion -> {
+            Collection<Long> ids = invocacion.getArgument(0);
+            List<Object[]> filas = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                filas.add(new Object[]{id, costoGuardado.get(id), margen.get(id), precioVenta.get(id),
+                        costoReceta(recetas.get(id))});
+            }
+            return filas;
+        });
+
+        jdbc = mock(NamedParameterJdbcTemplate.class);
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocacion -> {
+            int[] filas = new int[((SqlParameterSource[]) invocacion.getArgument(1)).length];
+            Arrays.fill(filas, 1);
+            return filas;
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        costos = new CostosProduccionService();
+        ReflectionTestUtils.setField(costos, "manufacturadoRepository", manufacturadoRepository);
+        ReflectionTestUtils.setField(costos, "disponibilidadStock", disponibilidad);
+        ReflectionTestUtils.setField(costos, "listaPreciosService", mock(ListaPreciosService.class));
+        ReflectionTestUtils.setField(costos, "catalogoCache", mock(CatalogoCacheService.class));
+        ReflectionTestUtils.setField(costos, "jdbc", jdbc);
+        ReflectionTestUtils.setField(costos, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(costos, "meterRegistry", meterRegistry);
+        costos.registrarMetricas();
+    }
+
+    /**
+     * Sube 10% el precio de compra de la cantidad dada de insumos, repartidos
+     * en el rango de IDs, y devuelve sus IDs
+     */
+    Set<Long> encarecer(int cantidad) {
+        Set<Long> cambiados = new HashSet<>();
+        for (long i = 1; cambiados.size() < cantidad; i += INSUMOS / cantidad) {
+            cambiados.add(i);
+            precioCompra[(int) i] = redondear2(precioCompra[(int) i] * 1.1);
+        }
+        return cambiados;
+    }
+
+    /**
+     * Productos cuya receta usa alguno de los insumos
+     */
+    Set<Long> productosQueUsan(Set<Long> insumos) {
+        Set<Long> afectados = new HashSet<>();
+        recetas.forEach((id, receta) -> {
+            if (receta.keySet().stream().anyMatch(insumos::contains)) {
+                afectados.add(id);
+            }
+        });
+        return afectados;
+    }
+
+    double costoReceta(Map<Long, Double> receta) {
+        double total = 0;
+        for (Map.Entry<Long, Double> detalle : receta.entrySet()) {
+            total += detalle.getValue() * precioCompra[detalle.getKey().intValue()];
+        }
+        return total;
+    }
+
+    static double redondear2(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+}
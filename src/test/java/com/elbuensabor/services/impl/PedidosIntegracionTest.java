@@ -0,0 +1,358 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.pedido.CrearPedidoRequest;
+import com.elbuensabor.dto.request.pedido.DetallePedidoRequest;
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.Categoria;
+import com.elbuensabor.entities.Cliente;
+import com.elbuensabor.entities.DetalleManufacturado;
+import com.elbuensabor.entities.FormaPago;
+import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.entities.PromocionDetalle;
+import com.elbuensabor.entities.Rol;
+import com.elbuensabor.entities.TipoCategoria;
+import com.elbuensabor.entities.TipoDescuento;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.entities.TipoPromocion;
+import com.elbuensabor.entities.UnidadMedida;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.IArticuloManufacturadoRepository;
+import com.elbuensabor.repository.ICategoriaRepository;
+import com.elbuensabor.repository.IPromocionRepository;
+import com.elbuensabor.repository.IUnidadMedidaRepository;
+import com.elbuensabor.repository.IUsuarioRepository;
+import com.elbuensabor.services.IVentaDiariaService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Base de las pruebas de pedidos contra MySQL (perfil "test", base
+ * el_buen_sabor_test). Crea los datos mínimos para armar pedidos: cliente,
+ * categoría, unidad de medida, insumos con su saldo de apertura en el libro
+ * de stock, manufacturados con receta y combos.
+ *
+ * Cada prueba usa un sufijo propio en emails y denominaciones, que son
+ * únicos. Al terminar se borra todo lo que creó (pedidos de sus clientes
+ * incluidos), se reconstruye venta_diaria de esos días y se recargan los
+ * servicios en memoria, así los pedidos de una prueba no quedan en el
+ * tablero de cocina, el estimador ni los listados de la siguiente.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+abstract class PedidosIntegracionTest {
+
+    @Autowired
+    protected IUsuarioRepository usuarioRepository;
+
+    @Autowired
+    protected ICategoriaRepository categoriaRepository;
+
+    @Autowired
+    protected IUnidadMedidaRepository unidadMedidaRepository;
+
+    @Autowired
+    protected IArticuloInsumoRepository insumoRepository;
+
+    @Autowired
+    protected IArticuloManufacturadoRepository manufacturadoRepository;
+
+    @Autowired
+    protected IPromocionRepository promocionRepository;
+
+    @Autowired
+    protected LibroStockService libroStock;
+
+    @Autowired
+    protected DisponibilidadStockService disponibilidadStock;
+
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private NamedParameterJdbcTemplate baseDatos;
+
+    @Autowired
+    private IVentaDiariaService ventaDiariaService;
+
+    @Autowired
+    private TableroCocinaService tableroCocina;
+
+    @Autowired
+    private EstimadorTiempoCocinaService estimadorTiempo;
+
+    @Autowired
+    private DetectorRetrasosService detectorRetrasos;
+
+    @Autowired
+    private DespachoDeliveryService despachoDelivery;
+
+    @Autowired
+    private ListaPreciosService listaPrecios;
+
+    @Autowired
+    private IndiceBusquedaService indiceBusqueda;
+
+    @Autowired
+    private IndicePromocionesService indicePromociones;
+
+    protected final String sufijo = UUID.randomUUID().toString().substring(0, 8);
+
+    protected Categoria categoria;
+    protected UnidadMedida unidad;
+
+    // Lo que crea la prueba, para borrarlo al terminar
+    private final List<Long> usuarios = new ArrayList<>();
+    private final List<Long> clientes = new ArrayList<>();
+    private final List<Long> articulos = new ArrayList<>();
+    private final List<Long> promociones = new ArrayList<>();
+
+    @BeforeEach
+    void crearMaestros() {
+        categoria = enTransaccion(() -> {
+            Categoria nueva = new Categoria();
+            nueva.setDenominacion("Prueba " + sufijo);
+            nueva.setEsSubcategoria(false);
+            nueva.setTipoCategoria(TipoCategoria.COMIDAS);
+            return categoriaRepository.save(nueva);
+        });
+        unidad = enTransaccion(() -> {
+            UnidadMedida nueva = new UnidadMedida();
+            nueva.setDenominacion("Unidad " + sufijo);
+            return unidadMedidaRepository.save(nueva);
+        });
+    }
+
+    /**
+     * Borra en orden de claves foráneas lo que creó la prueba y deja los
+     * servicios en memoria como si no hubiera existido
+     */
+    @AfterEach
+    void borrarDatos() {
+        List<Long> pedidos = clientes.isEmpty() ? List.of() : baseDatos.queryForList(
+                "SELECT id_pedido FROM pedido WHERE id_cliente IN (:ids)",
+                new MapSqlParameterSource("ids", clientes), Long.class);
+        List<Date> dias = pedidos.isEmpty() ? List.of() : baseDatos.queryForList(
+                "SELECT DISTINCT DATE(fecha) FROM pedido WHERE id_pedido IN (:ids)",
+                new MapSqlParameterSource("ids", pedidos), Date.class);
+
+        enTransaccion(() -> {
+            borrar(pedidos,
+                    "DELETE FROM componente_combo_vendido WHERE id_detalle_pedido IN " +
+                            "(SELECT id_detalle_pedido FROM detalle_pedido WHERE id_pedido IN (:ids))",
+                    "DELETE FROM reserva_stock WHERE id_pedido IN (:ids)",
+                    "DELETE FROM outbox_pedido WHERE id_pedido IN (:ids)",
+                    "DELETE FROM detalle_pedido WHERE id_pedido IN (:ids)",
+                    "DELETE FROM pedido WHERE id_pedido IN (:ids)");
+            borrar(promociones,
+                    "DELETE FROM promocion_detalle WHERE id_promocion IN (:ids)",
+                    "DELETE FROM promocion WHERE id_promocion IN (:ids)");
+            borrar(articulos,
+                    "DELETE FROM venta_articulo_diaria WHERE id_articulo IN (:ids)",
+                    "DELETE FROM movimiento_stock WHERE id_articulo_insumo IN (:ids)",
+                    "DELETE FROM corte_stock WHERE id_articulo_insumo IN (:ids)",
+                    "DELETE FROM detalle_manufacturado WHERE id_articulo_manufacturado IN (:ids) " +
+                            "OR id_articulo_insumo IN (:ids)",
+                    "DELETE FROM articulo_manufacturado WHERE id_articulo IN (:ids)",
+                    "DELETE FROM articulo_insumo WHERE id_articulo IN (:ids)",
+                    "DELETE FROM articulo WHERE id_articulo IN (:ids)");
+            borrar(clientes, "DELETE FROM cliente WHERE id_cliente IN (:ids)");
+            borrar(usuarios, "DELETE FROM usuario WHERE id_usuario IN (:ids)");
+            if (categoria != null) {
+                borrar(List.of(categoria.getIdCategoria()), "DELETE FROM categoria WHERE id_categoria IN (:ids)");
+            }
+            if (unidad != null) {
+                borrar(List.of(unidad.getIdUnidadMedida()),
+                        "DELETE FROM unidad_medida WHERE id_unidad_medida IN (:ids)");
+            }
+            return null;
+        });
+
+        for (Date dia : dias) {
+            ventaDiariaService.reconstruir(dia.toLocalDate(), dia.toLocalDate());
+        }
+        tableroCocina.reconstruir();
+        estimadorTiempo.reconstruir();
+        detectorRetrasos.reconstruir();
+        despachoDelivery.reconstruir();
+        disponibilidadStock.recargar();
+        listaPrecios.recargar();
+        indiceBusqueda.recargar();
+        indicePromociones.reconstruir();
+    }
+
+    private void borrar(List<Long> ids, String... sentencias) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (String sentencia : sentencias) {
+            baseDatos.update(sentencia, new MapSqlParameterSource("ids", ids));
+        }
+    }
+
+    protected <T> T enTransaccion(Supplier<T> accion) {
+        return new TransactionTemplate(transactionManager).execute(status -> accion.get());
+    }
+
+    protected Usuario crearCliente(String nombre) {
+        Usuario usuario = crearUsuario(nombre, Rol.CLIENTE);
+        clientes.add(usuario.getCliente().getIdCliente());
+        return usuario;
+    }
+
+    /**
+     * Usuario con el rol dado; los CLIENTE llevan su Cliente
+     */
+    protected Usuario crearUsuario(String nombre, Rol rol) {
+        Usuario guardado = enTransaccion(() -> {
+            Usuario usuario = new Usuario();
+            usuario.setNombre(nombre);
+            usuario.setApellido("Prueba");
+            usuario.setEmail(nombre.toLowerCase() + "." + sufijo + "@prueba.local");
+            usuario.setPassword("-");
+            usuario.setRol(rol);
+
+            if (rol == Rol.CLIENTE) {
+                Cliente cliente = new Cliente();
+                cliente.setTelefono("2610000000");
+                cliente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+                cliente.setUsuario(usuario);
+                usuario.setCliente(cliente);
+            }
+            return usuarioRepository.save(usuario);
+        });
+        usuarios.add(guardado.getIdUsuario());
+        return guardado;
+    }
+
+    /**
+     * Insumo para elaborar con su stock inicial registrado como AJUSTE, igual
+     * que el alta desde ArticuloInsumoServiceImpl
+     */
+    protected ArticuloInsumo crearInsumo(String denominacion, double stock) {
+        ArticuloInsumo creado = enTransaccion(() -> {
+            ArticuloInsumo insumo = new ArticuloInsumo();
+            insumo.setDenominacion(denominacion + " " + sufijo);
+            insumo.setPrecioVenta(0.0);
+            insumo.setPrecioCompra(10.0);
+            insumo.setStockActual(stock);
+            insumo.setStockMaximo(stock * 2);
+            insumo.setEsParaElaborar(true);
+            insumo.setUnidadMedida(unidad);
+            insumo.setCategoria(categoria);
+            ArticuloInsumo guardado = insumoRepository.save(insumo);
+            libroStock.registrar(List.of(new LibroStockService.Movimiento(guardado.getIdArticulo(),
+                    TipoMovimientoStock.AJUSTE, stock, "alta")));
+            return guardado;
+        });
+        articulos.add(creado.getIdArticulo());
+        return creado;
+    }
+
+    /**
+     * Manufacturado con la receta dada (insumo → cantidad por unidad); sin
+     * receta no consume stock
+     */
+    protected ArticuloManufacturado crearManufacturado(String denominacion, Map<ArticuloInsumo, Double> receta) {
+        ArticuloManufacturado creado = enTransaccion(() -> {
+            ArticuloManufacturado manufacturado = new ArticuloManufacturado();
+            manufacturado.setDenominacion(denominacion + " " + sufijo);
+            manufacturado.setPrecioVenta(1000.0);
+            manufacturado.setCostoProduccion(400.0);
+            manufacturado.setMargenGanancia(2.5);
+            manufacturado.setTiempoEstimadoEnMinutos(10);
+            manufacturado.setUnidadMedida(unidad);
+            manufacturado.setCategoria(categoria);
+            receta.forEach((insumo, cantidad) -> {
+                DetalleManufacturado detalle = new DetalleManufacturado();
+                detalle.setArticuloManufacturado(manufacturado);
+                detalle.setArticuloInsumo(insumo);
+                detalle.setCantidad(cantidad);
+                manufacturado.getDetalles().add(detalle);
+            });
+            return manufacturadoRepository.save(manufacturado);
+        });
+        articulos.add(creado.getIdArticulo());
+        return creado;
+    }
+
+    /**
+     * Combo vigente todo el día con una unidad de cada artículo y 10% de
+     * descuento
+     */
+    protected Promocion crearCombo(String denominacion, List<? extends Articulo> componentes) {
+        Promocion creada = enTransaccion(() -> {
+            Promocion promocion = new Promocion();
+            promocion.setDenominacion(denominacion + " " + sufijo);
+            promocion.setFechaDesde(LocalDateTime.now().minusDays(1));
+            promocion.setFechaHasta(LocalDateTime.now().plusDays(1));
+            promocion.setHoraDesde(LocalTime.MIN);
+            promocion.setHoraHasta(LocalTime.of(23, 59, 59));
+            promocion.setTipoPromocion(TipoPromocion.COMBO);
+            promocion.setTipoDescuento(TipoDescuento.PORCENTUAL);
+            promocion.setValorDescuento(10.0);
+            for (Articulo articulo : componentes) {
+                PromocionDetalle detalle = new PromocionDetalle();
+                detalle.setCantidad(1);
+                detalle.setArticulo(articulo);
+                detalle.setPromocion(promocion);
+                promocion.getDetalles().add(detalle);
+            }
+            return promocionRepository.save(promocion);
+        });
+        promociones.add(creada.getIdPromocion());
+        return creada;
+    }
+
+    /**
+     * Pedido TAKE_AWAY en efectivo con una línea de una unidad por artículo
+     */
+    protected CrearPedidoRequest pedidoDe(List<? extends Articulo> articulos) {
+        List<DetallePedidoRequest> detalles = new ArrayList<>();
+        for (Articulo articulo : articulos) {
+            detalles.add(new DetallePedidoRequest(articulo.getIdArticulo(), 1, null, null));
+        }
+        CrearPedidoRequest request = new CrearPedidoRequest();
+        request.setTipoEnvio(TipoEnvio.TAKE_AWAY);
+        request.setFormaPago(FormaPago.EFECTIVO);
+        request.setDetalles(detalles);
+        return request;
+    }
+
+    /**
+     * Estadísticas de Hibernate habilitadas y en cero. Son globales: las tareas
+     * programadas del perfil de prueba no corren mientras se mide.
+     */
+    protected Statistics estadisticas() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+        return estadisticas;
+    }
+}
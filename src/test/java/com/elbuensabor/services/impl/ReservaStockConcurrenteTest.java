@@ -0,0 +1,172 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.pedido.CancelarPedidoRequest;
+import com.elbuensabor.dto.response.pedido.PedidoClienteResponse;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.Usuario;
+import com.elbuensabor.exceptions.ConflictoEstadoPedidoException;
+import com.elbuensabor.services.IPedidoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cientos de pedidos concurrentes sobre el mismo insumo, con cancelaciones
+ * (dos por pedido, a la vez) mezcladas con las altas.
+ *
+ * Mientras corren, un hilo lee stock_actual y registra el mínimo. Al
+ * terminar, el stock nunca fue negativo, los rechazos son todos por stock
+ * insuficiente, el stock consumido es igual a las reservas vigentes y el
+ * libro de movimientos da el mismo saldo que stock_actual.
+ */
+class ReservaStockConcurrenteTest extends PedidosIntegracionTest {
+
+    private static final double STOCK_INICIAL = 100.0;
+    private static final int PEDIDOS = 400;
+    private static final int HILOS = 32;
+
+    @Autowired
+    private IPedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void elStockNuncaQuedaNegativoYCoincideConElLibro() throws Exception {
+        Usuario cliente = crearCliente("Concurrencia");
+        ArticuloInsumo harina = crearInsumo("Harina", STOCK_INICIAL);
+        ArticuloManufacturado pizza = crearManufacturado("Pizza", Map.of(harina, 1.0));
+        ArticuloManufacturado fugazza = crearManufacturado("Fugazza", Map.of(harina, 2.0));
+        disponibilidadStock.recargar();
+        Long idHarina = harina.getIdArticulo();
+
+        AtomicInteger creados = new AtomicInteger();
+        AtomicInteger sinStock = new AtomicInteger();
+        AtomicInteger cancelados = new AtomicInteger();
+        Queue<Throwable> inesperados = new ConcurrentLinkedQueue<>();
+
+        // Muestreo de stock_actual mientras corren los pedidos
+        AtomicBoolean corriendo = new AtomicBoolean(true);
+        double[] minimo = {STOCK_INICIAL};
+        Thread muestreo = new Thread(() -> {
+            while (corriendo.get()) {
+                Double stock = stockActual(idHarina);
+                minimo[0] = Math.min(minimo[0], stock);
+            }
+        });
+        muestreo.start();
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<List<Future<?>>>> altas = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS; i++) {
+            ArticuloManufacturado articulo = i % 4 == 0 ? fugazza : pizza;
+            boolean cancelar = i % 5 == 0;
+            altas.add(hilos.submit(() -> {
+                largada.await();
+                PedidoClienteResponse pedido = crear(articulo, cliente, creados, sinStock, inesperados);
+                List<Future<?>> cancelaciones = new ArrayList<>();
+                if (pedido != null && cancelar) {
+                    // Dos cancelaciones simultáneas: el stock vuelve una sola vez
+                    for (int intento = 0; intento < 2; intento++) {
+                        cancelaciones.add(hilos.submit(
+                                () -> cancelarSiPuede(pedido.getIdPedido(), cliente, cancelados, inesperados)));
+                    }
+                }
+                return cancelaciones;
+            }));
+        }
+        largada.countDown();
+
+        // Cada alta devuelve sus cancelaciones: se esperan todas antes de cerrar el pool
+        for (Future<List<Future<?>>> alta : altas) {
+            for (Future<?> cancelacion : alta.get(5, TimeUnit.MINUTES)) {
+                cancelacion.get(5, TimeUnit.MINUTES);
+            }
+        }
+        hilos.shutdown();
+        assertThat(hilos.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        corriendo.set(false);
+        muestreo.join();
+
+        double stockFinal = stockActual(idHarina);
+        Double reservado = jdbc.queryForObject(
+                "SELECT COALESCE(SUM(cantidad), 0) FROM reserva_stock WHERE id_articulo_insumo = ? AND liberada = false",
+                Double.class, idHarina);
+        Double libro = jdbc.queryForObject(
+                "SELECT COALESCE(SUM(cantidad), 0) FROM movimiento_stock WHERE id_articulo_insumo = ?",
+                Double.class, idHarina);
+        Double consumido = jdbc.queryForObject(
+                "SELECT COALESCE(-SUM(cantidad), 0) FROM movimiento_stock WHERE id_articulo_insumo = ? AND tipo = 'CONSUMO'",
+                Double.class, idHarina);
+        Double reservadoTotal = jdbc.queryForObject(
+                "SELECT COALESCE(SUM(cantidad), 0) FROM reserva_stock WHERE id_articulo_insumo = ?",
+                Double.class, idHarina);
+
+        assertThat(inesperados).isEmpty();
+        assertThat(creados.get() + sinStock.get()).isEqualTo(PEDIDOS);
+        assertThat(sinStock.get()).isPositive();
+        assertThat(cancelados.get()).isPositive();
+        assertThat(minimo[0]).isGreaterThanOrEqualTo(0.0);
+        assertThat(stockFinal).isGreaterThanOrEqualTo(0.0);
+        assertThat(STOCK_INICIAL - stockFinal).isEqualTo(reservado);
+        assertThat(libro).isEqualTo(stockFinal);
+        assertThat(consumido).isEqualTo(reservadoTotal);
+    }
+
+    private PedidoClienteResponse crear(ArticuloManufacturado articulo, Usuario cliente, AtomicInteger creados,
+            AtomicInteger sinStock, Queue<Throwable> inesperados) {
+        try {
+            PedidoClienteResponse pedido = pedidoService.crearPedido(pedidoDe(List.of(articulo)), cliente);
+            creados.incrementAndGet();
+            return pedido;
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Stock insuficiente")) {
+                sinStock.incrementAndGet();
+            } else {
+                inesperados.add(e);
+            }
+        } catch (Throwable e) {
+            inesperados.add(e);
+        }
+        return null;
+    }
+
+    private void cancelarSiPuede(Long idPedido, Usuario cliente, AtomicInteger cancelados,
+            Queue<Throwable> inesperados) {
+        try {
+            pedidoService.cancelarPedido(new CancelarPedidoRequest(idPedido, "Prueba de concurrencia"), cliente);
+            cancelados.incrementAndGet();
+        } catch (ConflictoEstadoPedidoException e) {
+            // La otra cancelación ganó entre la lectura y el UPDATE
+        } catch (IllegalArgumentException e) {
+            // La otra cancelación ganó antes de la lectura: el pedido ya está CANCELADO
+            if (!"El pedido no puede ser cancelado".equals(e.getMessage())) {
+                inesperados.add(e);
+            }
+        } catch (Throwable e) {
+            inesperados.add(e);
+        }
+    }
+
+    private Double stockActual(Long idInsumo) {
+        return jdbc.queryForObject("SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?",
+                Double.class, idInsumo);
+    }
+}